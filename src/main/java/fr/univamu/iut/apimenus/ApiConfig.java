@@ -0,0 +1,114 @@
+package fr.univamu.iut.apimenus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Classe utilitaire qui centralise la configuration de l'api.
+ * Une valeur est d'abord cherchée dans les propriétés système (-Dapimenus.xxx),
+ * puis dans les variables d'environnement (APIMENUS_XXX),
+ * et enfin dans le fichier apimenus.properties présent dans le classpath.
+ */
+public final class ApiConfig {
+
+    /**
+     * Valeurs lues dans le fichier apimenus.properties
+     */
+    private static final Properties FILE_PROPERTIES = loadFileProperties();
+
+    /**
+     * Constructeur privé, la classe n'est pas instanciable
+     */
+    private ApiConfig() {
+    }
+
+    /**
+     * Méthode qui charge le fichier apimenus.properties s'il existe
+     * @return Properties les propriétés trouvées (vide si le fichier est absent)
+     */
+    private static Properties loadFileProperties() {
+        Properties properties = new Properties();
+        try (InputStream in = ApiConfig.class.getClassLoader().getResourceAsStream("apimenus.properties")) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+        }
+        return properties;
+    }
+
+    /**
+     * Méthode permettant de récupérer une valeur de configuration
+     * @param key String clé de la propriété (p.ex. apimenus.db.url)
+     * @param defaultValue String valeur retournée si la clé n'est définie nulle part
+     * @return String valeur trouvée
+     */
+    public static String getString(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) {
+            value = System.getenv(key.toUpperCase(Locale.ROOT).replace('.', '_').replace('-', '_'));
+        }
+        if (value == null) {
+            value = FILE_PROPERTIES.getProperty(key);
+        }
+        return value == null ? defaultValue : value.trim();
+    }
+
+    /**
+     * Méthode permettant de récupérer une valeur de configuration entière
+     * @param key String clé de la propriété
+     * @param defaultValue int valeur retournée si la clé est absente ou invalide
+     * @return int valeur trouvée
+     */
+    public static int getInt(String key, int defaultValue) {
+        try {
+            return Integer.parseInt(getString(key, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            System.err.println("Configuration invalide pour " + key + " : " + e.getMessage());
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Méthode permettant de récupérer une valeur de configuration entière longue
+     * @param key String clé de la propriété
+     * @param defaultValue long valeur retournée si la clé est absente ou invalide
+     * @return long valeur trouvée
+     */
+    public static long getLong(String key, long defaultValue) {
+        try {
+            return Long.parseLong(getString(key, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            System.err.println("Configuration invalide pour " + key + " : " + e.getMessage());
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Méthode permettant de récupérer une valeur de configuration décimale
+     * @param key String clé de la propriété
+     * @param defaultValue double valeur retournée si la clé est absente ou invalide
+     * @return double valeur trouvée
+     */
+    public static double getDouble(String key, double defaultValue) {
+        try {
+            return Double.parseDouble(getString(key, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            System.err.println("Configuration invalide pour " + key + " : " + e.getMessage());
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Méthode permettant de récupérer une valeur de configuration booléenne
+     * @param key String clé de la propriété
+     * @param defaultValue boolean valeur retournée si la clé est absente
+     * @return boolean valeur trouvée
+     */
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        return Boolean.parseBoolean(getString(key, String.valueOf(defaultValue)));
+    }
+}
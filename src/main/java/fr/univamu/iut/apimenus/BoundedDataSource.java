@@ -0,0 +1,181 @@
+package fr.univamu.iut.apimenus;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+/**
+ * Pool de connexions dont les emprunts sont bornés par un sémaphore de la taille du pool (mode threads virtuels) :
+ * seuls les traitements qui ont besoin de la base attendent une connexion, dans l'ordre d'arrivée,
+ * et le permis est rendu avec la connexion. Les appels à l'api plats ne sont pas concernés
+ * (ils sont bornés par le client de l'api plats).
+ */
+public class BoundedDataSource implements DataSource, Closeable {
+
+    /**
+     * Pool de connexions emprunté
+     */
+    private final DataSource dataSource;
+
+    /**
+     * Permis d'emprunt d'une connexion
+     */
+    private final Semaphore permits;
+
+    /**
+     * Temps d'attente maximum d'un permis (millisecondes)
+     */
+    private final long timeoutMillis;
+
+    /**
+     * Constructeur du pool borné
+     * @param dataSource DataSource pool de connexions emprunté
+     * @param maxConnections int nombre maximum de connexions empruntées en même temps
+     * @param timeoutMillis long temps d'attente maximum d'une connexion (millisecondes)
+     */
+    public BoundedDataSource(DataSource dataSource, int maxConnections, long timeoutMillis) {
+        this.dataSource = dataSource;
+        this.permits = new Semaphore(Math.max(1, maxConnections), true);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Méthode qui emprunte une connexion après avoir obtenu un permis ; le permis est rendu à la fermeture de la connexion
+     * @return Connection connexion empruntée
+     * @throws SQLException si aucun permis n'est libéré à temps, si l'attente est interrompue
+     *         ou si le pool ne peut pas fournir de connexion
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return wrap(dataSource.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Méthode qui emprunte une connexion avec un autre utilisateur après avoir obtenu un permis
+     * @param username String utilisateur
+     * @param password String mot de passe
+     * @return Connection connexion empruntée
+     * @throws SQLException si aucun permis n'est libéré à temps ou si le pool ne peut pas fournir de connexion
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return wrap(dataSource.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Méthode qui attend un permis d'emprunt
+     * @throws SQLException si aucun permis n'est libéré à temps ou si l'attente est interrompue (délai de la requête dépassé)
+     */
+    private void acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("Aucune connexion libre après " + timeoutMillis + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Attente d'une connexion interrompue", e);
+        }
+    }
+
+    /**
+     * Méthode qui enveloppe une connexion pour rendre le permis à sa fermeture (une seule fois)
+     * @param conn Connection connexion empruntée
+     * @return Connection connexion enveloppée
+     */
+    private Connection wrap(Connection conn) {
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    try {
+                        return method.invoke(conn, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    } finally {
+                        if (method.getName().equals("close") && closed.compareAndSet(false, true)) {
+                            permits.release();
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Méthode qui retourne le nombre de connexions pouvant encore être empruntées sans attendre
+     * @return int nombre de permis libres
+     */
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    /*
+     * Les méthodes suivantes sont transmises au pool emprunté
+     */
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return dataSource.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return dataSource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? iface.cast(this) : dataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || dataSource.isWrapperFor(iface);
+    }
+
+    /**
+     * Méthode qui ferme le pool de connexions emprunté
+     * @throws IOException si la fermeture échoue
+     */
+    @Override
+    public void close() throws IOException {
+        if (dataSource instanceof Closeable) {
+            ((Closeable) dataSource).close();
+        }
+    }
+}
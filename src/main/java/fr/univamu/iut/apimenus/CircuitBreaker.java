@@ -0,0 +1,166 @@
+package fr.univamu.iut.apimenus;
+
+/**
+ * Disjoncteur placé devant une dépendance distante (l'api plats & utilisateurs).
+ * Après un nombre d'échecs consécutifs, le disjoncteur s'ouvre : les appels sont refusés immédiatement
+ * pendant une durée donnée. Il passe ensuite en demi-ouverture : quelques appels d'essai sont autorisés,
+ * un succès le referme, un échec le rouvre.
+ */
+public class CircuitBreaker {
+
+    /**
+     * États du disjoncteur
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final int halfOpenMaxCalls;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private int halfOpenCalls;
+
+    private long openings;
+    private long rejections;
+    private long successes;
+    private long failures;
+
+    /**
+     * Constructeur du disjoncteur
+     * @param failureThreshold int nombre d'échecs consécutifs qui ouvrent le disjoncteur
+     * @param openMillis long durée pendant laquelle les appels sont refusés
+     * @param halfOpenMaxCalls int nombre d'appels d'essai autorisés en demi-ouverture
+     */
+    public CircuitBreaker(int failureThreshold, long openMillis, int halfOpenMaxCalls) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = openMillis;
+        this.halfOpenMaxCalls = Math.max(1, halfOpenMaxCalls);
+    }
+
+    /**
+     * Méthode appelée avant un appel : indique si l'appel est autorisé.
+     * Un appel autorisé doit ensuite être terminé par onSuccess, onFailure ou onCancel.
+     * @return boolean true si l'appel peut être tenté, false si le disjoncteur est ouvert
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+            state = State.HALF_OPEN;
+            halfOpenCalls = 0;
+        }
+
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && halfOpenCalls < halfOpenMaxCalls) {
+            halfOpenCalls++;
+            return true;
+        }
+        rejections++;
+        return false;
+    }
+
+    /**
+     * Méthode appelée après un appel réussi : le disjoncteur est refermé
+     */
+    public synchronized void onSuccess() {
+        successes++;
+        consecutiveFailures = 0;
+        if (state == State.HALF_OPEN) {
+            state = State.CLOSED;
+        }
+    }
+
+    /**
+     * Méthode appelée après un appel en échec (erreur réseau, délai dépassé, erreur 5xx)
+     */
+    public synchronized void onFailure() {
+        failures++;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            open();
+        }
+    }
+
+    /**
+     * Méthode appelée lorsqu'un appel autorisé n'a finalement pas été tenté
+     */
+    public synchronized void onCancel() {
+        if (state == State.HALF_OPEN && halfOpenCalls > 0) {
+            halfOpenCalls--;
+        }
+    }
+
+    /**
+     * Méthode qui ouvre le disjoncteur
+     */
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        openings++;
+    }
+
+    /**
+     * Méthode qui retourne l'état du disjoncteur
+     * @return State état courant
+     */
+    public synchronized State getState() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * Méthode qui retourne la durée pendant laquelle les appels sont refusés
+     * @return long durée en ms
+     */
+    public long getOpenMillis() {
+        return openMillis;
+    }
+
+    /**
+     * Méthode qui retourne le nombre d'échecs consécutifs
+     * @return int nombre d'échecs consécutifs
+     */
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * Méthode qui retourne le nombre d'ouvertures du disjoncteur
+     * @return long nombre d'ouvertures
+     */
+    public synchronized long getOpenings() {
+        return openings;
+    }
+
+    /**
+     * Méthode qui retourne le nombre d'appels refusés par le disjoncteur
+     * @return long nombre d'appels refusés
+     */
+    public synchronized long getRejections() {
+        return rejections;
+    }
+
+    /**
+     * Méthode qui retourne le nombre d'appels réussis
+     * @return long nombre de succès
+     */
+    public synchronized long getSuccesses() {
+        return successes;
+    }
+
+    /**
+     * Méthode qui retourne le nombre d'appels en échec
+     * @return long nombre d'échecs
+     */
+    public synchronized long getFailures() {
+        return failures;
+    }
+}
@@ -17,6 +17,9 @@ public class Menu {
     protected String description;
     protected float price;
     protected Timestamp creationDate;
+    protected long version;
+    protected boolean degraded;
+    protected Timestamp platsSyncedAt;
     protected List<PlatDTO> listPlat = new ArrayList<>();
 
     /**
@@ -143,6 +146,54 @@ public class Menu {
         this.creationDate = creationDate;
     }
 
+    /**
+     * Méthode qui retourne la version du menu, incrémentée à chaque modification
+     * @return long version du menu
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Méthode qui définit la version du menu
+     * @param version long version du menu
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * Méthode qui indique si la liste de plats est incomplète (api plats & utilisateurs indisponible)
+     * @return boolean true si des plats n'ont pas pu être récupérés
+     */
+    public boolean isDegraded() {
+        return degraded;
+    }
+
+    /**
+     * Méthode qui marque la liste de plats comme incomplète
+     * @param degraded boolean true si des plats n'ont pas pu être récupérés
+     */
+    public void setDegraded(boolean degraded) {
+        this.degraded = degraded;
+    }
+
+    /**
+     * Méthode qui retourne la date de la plus ancienne copie locale des plats du menu
+     * @return Timestamp date de copie, null si les plats ont été lus auprès de l'api plats & utilisateurs
+     */
+    public Timestamp getPlatsSyncedAt() {
+        return platsSyncedAt;
+    }
+
+    /**
+     * Méthode qui définit la date de la plus ancienne copie locale des plats du menu
+     * @param platsSyncedAt Timestamp date de copie, null si les plats ont été lus auprès de l'api plats & utilisateurs
+     */
+    public void setPlatsSyncedAt(Timestamp platsSyncedAt) {
+        this.platsSyncedAt = platsSyncedAt;
+    }
+
     /**
      * Méthode qui retourne la liste de plats associés au menu
      * @return List<PlatDTO> un plat est représenté par un DTO
@@ -1,11 +1,22 @@
 package fr.univamu.iut.apimenus;
 
+import fr.univamu.iut.apimenus.dto.MenuChangeDTO;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
 import jakarta.enterprise.inject.Disposes;
 import jakarta.enterprise.inject.Produces;
+import jakarta.enterprise.inject.Typed;
 import jakarta.ws.rs.ApplicationPath;
 import jakarta.ws.rs.core.Application;
 
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
 /**
  * Main de l'api
  * @author Rayan BENDJEDDOU
@@ -14,18 +25,322 @@ import jakarta.ws.rs.core.Application;
 @ApplicationScoped
 public class MenuApplication extends Application {
 
+    /**
+     * Méthode appelée par l'API CDI pour créer le pool de connexions à la base de données,
+     * partagé par toute l'application
+     * @return DataSource le pool de connexions
+     */
+    @Produces
+    @ApplicationScoped
+    private DataSource openDataSource() {
+        DataSource dataSource = MenuRepositoryMariadb.createDataSource(
+                ApiConfig.getString("apimenus.db.url", "jdbc:mariadb://mysql-apimenus.alwaysdata.net/apimenus_db"),
+                ApiConfig.getString("apimenus.db.user", "apimenus"),
+                ApiConfig.getString("apimenus.db.password", "apirest2024"));
+
+        // application des évolutions du schéma (colonnes et tables ajoutées par l'api)
+        if (ApiConfig.getBoolean("apimenus.db.migrate", true)) {
+            MenuRepositoryMariadb.applySchema(dataSource);
+        }
+
+        // mode threads virtuels : les traitements ne sont pas bornés, seuls les emprunts de connexion le sont
+        if (VirtualThreads.isEnabled()) {
+            return new BoundedDataSource(dataSource, ApiConfig.getInt("apimenus.db.pool.max-size", 10),
+                    ApiConfig.getLong("apimenus.db.pool.connection-timeout-ms", 10000));
+        }
+        return dataSource;
+    }
+
+    /**
+     * Méthode permettant de fermer le pool de connexions lorsque l'application est arrêtée
+     * @param dataSource le pool de connexions instancié dans la méthode @openDataSource
+     */
+    private void closeDataSource(@Disposes DataSource dataSource) {
+        // HikariDataSource, éventuellement enveloppé dans un BoundedDataSource
+        if (dataSource instanceof Closeable) {
+            try {
+                ((Closeable) dataSource).close();
+            } catch (IOException e) {
+                System.err.println(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Méthode appelée par l'API CDI pour créer le client de l'api plats & utilisateurs,
+     * partagé par toute l'application
+     * @return PlatApiClient le client de l'api plats
+     */
+    @Produces
+    @ApplicationScoped
+    private PlatApiClient openPlatApiClient() {
+        return new PlatApiClient(ApiConfig.getString("apimenus.plats.url", "http://localhost:8080/APII-1.0-SNAPSHOT/api/"));
+    }
+
+    /**
+     * Méthode permettant de fermer le client de l'api plats lorsque l'application est arrêtée
+     * @param platApi le client instancié dans la méthode @openPlatApiClient
+     */
+    private void closePlatApiClient(@Disposes PlatApiClient platApi) {
+        platApi.close();
+    }
+
+    /**
+     * Méthode appelée par l'API CDI pour créer le cache des plats, partagé par toute l'application
+     * @param platApi le client de l'api plats & utilisateurs
+     * @return PlatCache le cache des plats
+     */
+    @Produces
+    @ApplicationScoped
+    private PlatCache openPlatCache(PlatApiClient platApi) {
+        return new PlatCache(platApi);
+    }
+
+    /**
+     * Méthode permettant d'arrêter le cache des plats lorsque l'application est arrêtée
+     * @param platCache le cache instancié dans la méthode @openPlatCache
+     */
+    private void closePlatCache(@Disposes PlatCache platCache) {
+        platCache.close();
+    }
+
+    /**
+     * Méthode appelée par l'API CDI pour créer le pool de threads des endpoints asynchrones,
+     * partagé par toute l'application
+     * @return MenuTaskExecutor le pool de threads
+     */
+    @Produces
+    @ApplicationScoped
+    private MenuTaskExecutor openTaskExecutor() {
+        long timeoutMillis = ApiConfig.getLong("apimenus.async.timeout-ms", 10000);
+
+        // mode threads virtuels : un thread par requête, sans limite du nombre de traitements simultanés ;
+        // les emprunts de connexion sont bornés par le pool (@openDataSource), les appels à l'api plats par son client
+        ExecutorService virtualExecutor = VirtualThreads.newExecutor("menu-task");
+        if (virtualExecutor != null) {
+            return new MenuTaskExecutor(virtualExecutor, timeoutMillis);
+        }
+
+        return new MenuTaskExecutor(ApiConfig.getInt("apimenus.async.pool-size", 16),
+                ApiConfig.getInt("apimenus.async.queue-size", 200),
+                timeoutMillis);
+    }
+
+    /**
+     * Méthode permettant d'arrêter le pool de threads lorsque l'application est arrêtée
+     * @param tasks le pool instancié dans la méthode @openTaskExecutor
+     */
+    private void closeTaskExecutor(@Disposes MenuTaskExecutor tasks) {
+        tasks.close();
+    }
+
+    /**
+     * Méthode qui indique si les menus sont gardés en mémoire plutôt que dans la base de données
+     * (apimenus.repository=memory) ; la base de données n'est alors jamais ouverte
+     * @return boolean true pour le dépôt en mémoire
+     */
+    private static boolean isMemoryRepository() {
+        return "memory".equalsIgnoreCase(ApiConfig.getString("apimenus.repository", "mariadb"));
+    }
+
+    /**
+     * Méthode appelée par l'API CDI pour créer le dépôt des menus en mémoire, partagé par toute l'application
+     * (utilisé seulement si apimenus.repository=memory) ; les plats sont lus dans l'api plats à travers le cache
+     * des plats, ou sont des plats fixes (apimenus.repository.memory.plat-source=fixed)
+     * @param platCache le cache des plats
+     * @return MenuRepositoryMemory le dépôt en mémoire, vide au démarrage
+     *          (seulement de type MenuRepositoryMemory, MenuRepositoryInterface restant produit par @openDbConnection)
+     */
+    @Produces
+    @ApplicationScoped
+    @Typed(MenuRepositoryMemory.class)
+    private MenuRepositoryMemory openMemoryRepository(PlatCache platCache) {
+        PlatSource platSource = platCache::getAll;
+        if ("fixed".equalsIgnoreCase(ApiConfig.getString("apimenus.repository.memory.plat-source", "api"))) {
+            platSource = PlatSource.fixedPrice((float) ApiConfig.getDouble("apimenus.repository.memory.fixed-price", 10));
+        }
+        return new MenuRepositoryMemory(platSource);
+    }
+
+    /**
+     * Méthode appelée par l'API CDI pour créer la diffusion des modifications des menus (Server-Sent Events),
+     * partagée par toute l'application ; elle lit le journal des modifications avec son propre dépôt
+     * (le dépôt en mémoire lui-même si apimenus.repository=memory)
+     * @param dataSource le pool de connexions à la base de données
+     * @param platApi le client de l'api plats & utilisateurs
+     * @param platCache le cache des plats
+     * @param memoryRepo le dépôt des menus en mémoire
+     * @return MenuEventBroadcaster la diffusion des modifications
+     */
+    @Produces
+    @ApplicationScoped
+    private MenuEventBroadcaster openMenuEvents(DataSource dataSource, PlatApiClient platApi, PlatCache platCache,
+                                                MenuRepositoryMemory memoryRepo) {
+        if (isMemoryRepository()) {
+            return new MenuEventBroadcaster(memoryRepo);
+        }
+        return new MenuEventBroadcaster(new MenuRepositoryMariadb(dataSource, platApi, platCache));
+    }
+
+    /**
+     * Méthode permettant d'arrêter la diffusion et de déconnecter les abonnés lorsque l'application est arrêtée
+     * @param events la diffusion instanciée dans la méthode @openMenuEvents
+     */
+    private void closeMenuEvents(@Disposes MenuEventBroadcaster events) {
+        events.close();
+    }
+
+    /**
+     * Méthode appelée par l'API CDI pour créer la tâche de vérification des prix des menus,
+     * partagée par toute l'application ; elle lit et corrige les menus avec son propre dépôt
+     * @param dataSource le pool de connexions à la base de données
+     * @param platApi le client de l'api plats & utilisateurs
+     * @param platCache le cache des plats
+     * @param events la diffusion des modifications, prévenue après chaque correction
+     * @param memoryRepo le dépôt des menus en mémoire
+     * @return PriceReconciler la tâche de vérification des prix
+     */
+    @Produces
+    @ApplicationScoped
+    private PriceReconciler openPriceReconciler(DataSource dataSource, PlatApiClient platApi, PlatCache platCache,
+                                                MenuEventBroadcaster events, MenuRepositoryMemory memoryRepo) {
+        if (isMemoryRepository()) {
+            return new PriceReconciler(memoryRepo, events);
+        }
+        return new PriceReconciler(new MenuRepositoryMariadb(dataSource, platApi, platCache), events);
+    }
+
+    /**
+     * Méthode qui programme la vérification des prix des menus au démarrage de l'application
+     * @param init objet transmis par l'API CDI au démarrage
+     * @param reconciler la tâche instanciée dans la méthode @openPriceReconciler
+     */
+    private void startPriceReconciler(@Observes @Initialized(ApplicationScoped.class) Object init, PriceReconciler reconciler) {
+        reconciler.start();
+    }
+
+    /**
+     * Méthode permettant d'arrêter la vérification des prix lorsque l'application est arrêtée
+     * @param reconciler la tâche instanciée dans la méthode @openPriceReconciler
+     */
+    private void closePriceReconciler(@Disposes PriceReconciler reconciler) {
+        reconciler.close();
+    }
+
+    /**
+     * Méthode appelée par l'API CDI pour créer la tâche de synchronisation de la copie locale des plats,
+     * partagée par toute l'application ; elle écrit les copies avec son propre dépôt
+     * @param dataSource le pool de connexions à la base de données
+     * @param platApi le client de l'api plats & utilisateurs
+     * @param platCache le cache des plats
+     * @param platMenuIndex l'index des associations, qui donne les menus des plats dont la copie a changé
+     * @param memoryRepo le dépôt des menus en mémoire (sans copie des plats : la synchronisation est sans effet)
+     * @return PlatSnapshotSync la tâche de synchronisation des plats
+     */
+    @Produces
+    @ApplicationScoped
+    private PlatSnapshotSync openPlatSnapshotSync(DataSource dataSource, PlatApiClient platApi, PlatCache platCache,
+                                                  PlatMenuIndex platMenuIndex, MenuRepositoryMemory memoryRepo) {
+        if (isMemoryRepository()) {
+            return new PlatSnapshotSync(memoryRepo);
+        }
+        return new PlatSnapshotSync(new MenuRepositoryMariadb(dataSource, platApi, platCache, platMenuIndex));
+    }
+
+    /**
+     * Méthode qui programme la synchronisation de la copie locale des plats au démarrage de l'application
+     * @param init objet transmis par l'API CDI au démarrage
+     * @param snapshotSync la tâche instanciée dans la méthode @openPlatSnapshotSync
+     */
+    private void startPlatSnapshotSync(@Observes @Initialized(ApplicationScoped.class) Object init, PlatSnapshotSync snapshotSync) {
+        snapshotSync.start();
+    }
+
+    /**
+     * Méthode permettant d'arrêter la synchronisation des plats lorsque l'application est arrêtée
+     * @param snapshotSync la tâche instanciée dans la méthode @openPlatSnapshotSync
+     */
+    private void closePlatSnapshotSync(@Disposes PlatSnapshotSync snapshotSync) {
+        snapshotSync.close();
+    }
+
+    /**
+     * Méthode appelée par l'API CDI pour créer l'index en mémoire des associations de Plat_menu,
+     * partagé par toute l'application. Les modifications faites par une autre instance de l'api
+     * (lues dans le journal des modifications) y sont reportées en relisant les associations des menus concernés.
+     * @param dataSource le pool de connexions à la base de données
+     * @param platApi le client de l'api plats & utilisateurs
+     * @param platCache le cache des plats
+     * @param events la diffusion des modifications, dont le journal est suivi
+     * @return PlatMenuIndex l'index des associations (chargé au démarrage de l'application)
+     */
+    @Produces
+    @ApplicationScoped
+    private PlatMenuIndex openPlatMenuIndex(DataSource dataSource, PlatApiClient platApi, PlatCache platCache,
+                                            MenuEventBroadcaster events) {
+        PlatMenuIndex index = new PlatMenuIndex();
+        if (isMemoryRepository()) {
+            // le dépôt en mémoire garde lui-même les plats de chaque menu : l'index reste vide
+            return index;
+        }
+        MenuRepositoryMariadb indexRepo = new MenuRepositoryMariadb(dataSource, platApi, platCache, index);
+        events.addListener(changes -> {
+            List<Integer> menuIds = new ArrayList<>(changes.size());
+            for (MenuChangeDTO change : changes) {
+                menuIds.add(change.getId());
+            }
+            try {
+                indexRepo.refreshPlatMenuIndex(menuIds);
+            } catch (RuntimeException e) {
+                // l'index sera corrigé par la prochaine modification de ces menus
+                System.err.println(e.getMessage());
+            }
+        });
+        return index;
+    }
+
+    /**
+     * Méthode qui charge l'index des associations au démarrage de l'application (une seule lecture de Plat_menu) ;
+     * en cas d'erreur, les plats des menus continuent d'être lus dans la base de données
+     * @param init objet transmis par l'API CDI au démarrage
+     * @param dataSource le pool de connexions à la base de données
+     * @param platApi le client de l'api plats & utilisateurs
+     * @param platCache le cache des plats
+     * @param index l'index instancié dans la méthode @openPlatMenuIndex
+     */
+    private void loadPlatMenuIndex(@Observes @Initialized(ApplicationScoped.class) Object init, DataSource dataSource,
+                                   PlatApiClient platApi, PlatCache platCache, PlatMenuIndex index) {
+        if (isMemoryRepository()) {
+            return;
+        }
+        try {
+            new MenuRepositoryMariadb(dataSource, platApi, platCache, index).loadPlatMenuIndex();
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
     /**
      * Méthode appelée par l'API CDI pour injecter la connection à la base de données au moment de la création
      * de la ressource
+     * @param dataSource le pool de connexions à la base de données
+     * @param platApi le client de l'api plats & utilisateurs
+     * @param platCache le cache des plats
+     * @param platMenuIndex l'index des associations de Plat_menu, tenu à jour par le dépôt
+     * @param memoryRepo le dépôt des menus en mémoire, renvoyé si apimenus.repository=memory
      * @return un objet implémentant l'interface MenuRepositoryInterface utilisée
      *          pour accéder aux données des menus, voire les modifier
      */
     @Produces
-    private MenuRepositoryInterface openDbConnection(){
+    private MenuRepositoryInterface openDbConnection(DataSource dataSource, PlatApiClient platApi, PlatCache platCache,
+                                                     PlatMenuIndex platMenuIndex, MenuRepositoryMemory memoryRepo){
+        if (isMemoryRepository()) {
+            return memoryRepo;
+        }
         MenuRepositoryMariadb db = null;
 
         try{
-            db = new MenuRepositoryMariadb("jdbc:mariadb://mysql-apimenus.alwaysdata.net/apimenus_db", "apimenus", "apirest2024");
+            db = new MenuRepositoryMariadb(dataSource, platApi, platCache, platMenuIndex);
         }
         catch (Exception e){
             System.err.println(e.getMessage());
@@ -41,4 +356,4 @@ public class MenuApplication extends Application {
         menuRepo.close();
     }
 
-}
\ No newline at end of file
+}
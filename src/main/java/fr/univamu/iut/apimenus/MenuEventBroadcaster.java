@@ -0,0 +1,432 @@
+package fr.univamu.iut.apimenus;
+
+import fr.univamu.iut.apimenus.dto.MenuChangeDTO;
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Diffusion des modifications des menus aux clients abonnés (Server-Sent Events).
+ * Les événements sont lus dans le journal Menu_change : l'id de chaque événement est sa position (seq)
+ * dans le journal, ce qui permet à un client de reprendre après une coupure (en-tête Last-Event-ID).
+ * Le journal est relu dès qu'une écriture de l'api le signale (changed), et périodiquement
+ * pour les écritures faites par une autre instance ou par une tâche de fond ;
+ * les entrées lues sont aussi transmises aux écouteurs (p.ex. pour invalider les caches).
+ * Chaque abonné a une file d'attente bornée : un client trop lent, dont la file est pleine, est déconnecté.
+ */
+public class MenuEventBroadcaster {
+
+    /**
+     * Champs des menus envoyés dans les événements (les plats ne sont pas récupérés)
+     */
+    private static final MenuProjection EVENT_PROJECTION =
+            new MenuProjection(Arrays.asList("author", "title", "description", "price", "version"), false);
+
+    /**
+     * Nom de l'événement envoyé quand la reprise demandée est trop ancienne : le client doit se resynchroniser
+     * avec /api/menus/changes
+     */
+    public static final String RESET_EVENT = "reset";
+
+    /**
+     * Accès au journal des modifications et aux menus
+     */
+    private MenuRepositoryInterface menuRepo;
+
+    /**
+     * Thread unique qui lit le journal et remplit les files des abonnés (les abonnements y sont aussi enregistrés)
+     */
+    private ScheduledExecutorService poller;
+
+    /**
+     * Threads qui envoient les événements aux abonnés
+     */
+    private ExecutorService dispatcher;
+
+    /**
+     * Abonnés connectés
+     */
+    private List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Écouteurs qui reçoivent chaque lot d'entrées lues dans le journal
+     */
+    private List<Consumer<List<MenuChangeDTO>>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Sérialiseur JSON des événements
+     */
+    private Jsonb jsonb;
+
+    /**
+     * Position de la dernière modification diffusée (-1 tant que le journal n'a pas été lu)
+     */
+    private long lastSeq = -1;
+
+    /**
+     * Nombre maximum d'événements en attente par abonné
+     */
+    private int bufferSize;
+
+    /**
+     * Nombre maximum d'événements renvoyés lors d'une reprise (Last-Event-ID), au plus la taille de la file
+     */
+    private int maxReplay;
+
+    /**
+     * Délai maximum (ms) d'envoi d'un événement à un abonné
+     */
+    private long sendTimeoutMillis;
+
+    /**
+     * true si une relecture du journal est déjà demandée
+     */
+    private AtomicBoolean pollRequested = new AtomicBoolean();
+
+    /**
+     * Nombre d'abonnés déconnectés parce qu'ils étaient trop lents
+     */
+    private LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructeur réservé au conteneur CDI (création du proxy du bean)
+     */
+    protected MenuEventBroadcaster() {
+    }
+
+    /**
+     * Constructeur de la diffusion, configurée par les clés apimenus.events.*
+     * @param menuRepo MenuRepositoryInterface accès au journal des modifications et aux menus
+     */
+    public MenuEventBroadcaster(MenuRepositoryInterface menuRepo) {
+        this.menuRepo = menuRepo;
+        this.jsonb = JsonbBuilder.create();
+        this.bufferSize = Math.max(1, ApiConfig.getInt("apimenus.events.buffer-size", 256));
+        this.maxReplay = Math.max(0, Math.min(ApiConfig.getInt("apimenus.events.max-replay", 1000), bufferSize));
+        this.sendTimeoutMillis = ApiConfig.getLong("apimenus.events.send-timeout-ms", 5000);
+
+        this.poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "menu-events-poll");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ExecutorService virtualExecutor = VirtualThreads.newExecutor("menu-events");
+        this.dispatcher = virtualExecutor != null ? virtualExecutor
+                : Executors.newFixedThreadPool(Math.max(1, ApiConfig.getInt("apimenus.events.dispatch-threads", 4)), runnable -> {
+            Thread thread = new Thread(runnable, "menu-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long pollMillis = Math.max(50, ApiConfig.getLong("apimenus.events.poll-ms", 1000));
+        poller.scheduleWithFixedDelay(this::poll, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+
+        // purge du journal : seules les apimenus.menus.changes.retention dernières positions sont gardées
+        long pruneSeconds = ApiConfig.getLong("apimenus.menus.changes.prune-interval-seconds", 600);
+        if (pruneSeconds > 0) {
+            poller.scheduleWithFixedDelay(this::prune, pruneSeconds, pruneSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Méthode qui supprime les modifications les plus anciennes du journal (exécutée sur le thread de lecture du journal) ;
+     * un abonné ou un client de /api/menus/changes qui reprend avant la plus ancienne modification gardée
+     * reçoit un reset
+     */
+    private void prune() {
+        try {
+            menuRepo.pruneChanges(ApiConfig.getLong("apimenus.menus.changes.retention", 100000));
+        } catch (RuntimeException e) {
+            // base indisponible : la purge sera faite la prochaine fois
+            System.err.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Méthode appelée après une écriture de l'api : le journal est relu sans attendre la relecture périodique
+     */
+    public void changed() {
+        if ((!subscribers.isEmpty() || !listeners.isEmpty()) && pollRequested.compareAndSet(false, true)) {
+            try {
+                poller.execute(this::poll);
+            } catch (RejectedExecutionException e) {
+                // diffusion arrêtée
+                pollRequested.set(false);
+            }
+        }
+    }
+
+    /**
+     * Méthode qui ajoute un écouteur des entrées du journal (appelé sur le thread de lecture du journal)
+     * @param listener Consumer<List<MenuChangeDTO>> traitement de chaque lot d'entrées, dans l'ordre du journal
+     */
+    public void addListener(Consumer<List<MenuChangeDTO>> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Méthode qui abonne un client aux modifications des menus
+     * @param sink SseEventSink flux d'événements du client
+     * @param sse Sse fabrique des événements
+     * @param menuId Integer id du seul menu suivi, null pour tous les menus
+     * @param author String auteur des menus suivis, null pour tous les auteurs
+     *               (les suppressions sont envoyées quel que soit l'auteur)
+     * @param lastEventId Long id du dernier événement reçu par le client (reprise), null pour un nouvel abonnement
+     */
+    public void subscribe(SseEventSink sink, Sse sse, Integer menuId, String author, Long lastEventId) {
+        Subscriber subscriber = new Subscriber(sink, sse, menuId, author, bufferSize);
+        try {
+            poller.execute(() -> register(subscriber, lastEventId));
+        } catch (RejectedExecutionException e) {
+            sink.close();
+        }
+    }
+
+    /**
+     * Méthode qui enregistre un abonné, après lui avoir renvoyé les événements manqués s'il reprend un flux
+     * (exécutée sur le thread de lecture du journal : aucun événement n'est perdu ni envoyé deux fois)
+     * @param subscriber Subscriber abonné
+     * @param lastEventId Long id du dernier événement reçu par le client, null pour un nouvel abonnement
+     */
+    private void register(Subscriber subscriber, Long lastEventId) {
+        try {
+            if (lastSeq < 0) {
+                lastSeq = menuRepo.getLastChange();
+            }
+            if (lastEventId != null && lastEventId < lastSeq) {
+                List<MenuChangeDTO> missed = menuRepo.getChanges(lastEventId, maxReplay + 1);
+                missed.removeIf(change -> change.getSeq() > lastSeq);
+                long first = menuRepo.getFirstChange();
+                if (missed.size() > maxReplay || (first > 0 && lastEventId < first - 1)) {
+                    // trop d'événements manqués, ou supprimés du journal : le client doit se resynchroniser
+                    subscriber.queue.offer(subscriber.sse.newEventBuilder()
+                            .name(RESET_EVENT).id(String.valueOf(lastSeq)).data(String.valueOf(lastSeq)).build());
+                } else {
+                    for (OutboundSseEvent event : toEvents(missed, Collections.singletonList(subscriber)).get(subscriber)) {
+                        subscriber.queue.offer(event);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage());
+            subscriber.sink.close();
+            return;
+        }
+        subscribers.add(subscriber);
+        drain(subscriber);
+    }
+
+    /**
+     * Méthode qui lit les nouvelles entrées du journal et les place dans les files des abonnés concernés
+     * (exécutée sur le thread de lecture du journal)
+     */
+    private void poll() {
+        pollRequested.set(false);
+        subscribers.removeIf(subscriber -> subscriber.sink.isClosed());
+        try {
+            if ((subscribers.isEmpty() && listeners.isEmpty()) || lastSeq < 0) {
+                lastSeq = menuRepo.getLastChange();
+                return;
+            }
+
+            List<MenuChangeDTO> changes;
+            do {
+                changes = menuRepo.getChanges(lastSeq, bufferSize);
+                if (changes.isEmpty()) {
+                    return;
+                }
+                for (Consumer<List<MenuChangeDTO>> listener : listeners) {
+                    listener.accept(changes);
+                }
+                if (!subscribers.isEmpty()) {
+                    Map<Subscriber, List<OutboundSseEvent>> eventsBySubscriber = toEvents(changes, subscribers);
+                    for (Map.Entry<Subscriber, List<OutboundSseEvent>> entry : eventsBySubscriber.entrySet()) {
+                        publish(entry.getKey(), entry.getValue());
+                    }
+                }
+                lastSeq = changes.get(changes.size() - 1).getSeq();
+            } while (changes.size() >= bufferSize);
+        } catch (RuntimeException e) {
+            // base indisponible : le journal sera relu à la prochaine relecture
+            System.err.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Méthode qui construit les événements de chaque abonné à partir d'entrées du journal
+     * @param changes List<MenuChangeDTO> entrées du journal, dans l'ordre
+     * @param targets List<Subscriber> abonnés destinataires
+     * @return Map<Subscriber, List<OutboundSseEvent>> événements correspondant aux filtres de chaque abonné
+     */
+    private Map<Subscriber, List<OutboundSseEvent>> toEvents(List<MenuChangeDTO> changes, List<Subscriber> targets) {
+        // état actuel des menus modifiés, lu une seule fois pour tous les abonnés
+        Set<Integer> upsertIds = new LinkedHashSet<>();
+        for (MenuChangeDTO change : changes) {
+            if (MenuChangeDTO.UPSERT.equals(change.getType())) {
+                upsertIds.add(change.getId());
+            }
+        }
+        Map<Integer, Menu> menusById = upsertIds.isEmpty() ? Collections.emptyMap()
+                : menuRepo.getMenus(upsertIds, EVENT_PROJECTION);
+
+        Map<Subscriber, List<OutboundSseEvent>> eventsBySubscriber = new LinkedHashMap<>();
+        for (Subscriber subscriber : targets) {
+            eventsBySubscriber.put(subscriber, new ArrayList<>());
+        }
+        for (MenuChangeDTO change : changes) {
+            Menu menu = menusById.get(change.getId());
+            MenuChangeDTO event = new MenuChangeDTO(change.getSeq(), change.getId(),
+                    menu == null ? MenuChangeDTO.DELETE : MenuChangeDTO.UPSERT);
+            event.setMenu(menu);
+            String data = jsonb.toJson(event);
+
+            for (Subscriber subscriber : targets) {
+                if (subscriber.accepts(event.getId(), menu)) {
+                    eventsBySubscriber.get(subscriber).add(subscriber.sse.newEventBuilder()
+                            .name(event.getType())
+                            .id(String.valueOf(event.getSeq()))
+                            .data(data)
+                            .build());
+                }
+            }
+        }
+        return eventsBySubscriber;
+    }
+
+    /**
+     * Méthode qui place des événements dans la file d'un abonné ; un abonné dont la file est pleine est déconnecté
+     * @param subscriber Subscriber abonné
+     * @param events List<OutboundSseEvent> événements à envoyer
+     */
+    private void publish(Subscriber subscriber, List<OutboundSseEvent> events) {
+        for (OutboundSseEvent event : events) {
+            if (!subscriber.queue.offer(event)) {
+                evictions.increment();
+                remove(subscriber);
+                return;
+            }
+        }
+        if (!events.isEmpty()) {
+            drain(subscriber);
+        }
+    }
+
+    /**
+     * Méthode qui envoie les événements en attente d'un abonné (un seul envoi à la fois par abonné)
+     * @param subscriber Subscriber abonné
+     */
+    private void drain(Subscriber subscriber) {
+        if (subscriber.queue.isEmpty() || !subscriber.sending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            dispatcher.execute(() -> {
+                try {
+                    OutboundSseEvent event;
+                    while ((event = subscriber.queue.poll()) != null) {
+                        subscriber.sink.send(event).toCompletableFuture().get(sendTimeoutMillis, TimeUnit.MILLISECONDS);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    remove(subscriber);
+                } catch (ExecutionException | TimeoutException | RuntimeException e) {
+                    // client déconnecté ou trop lent
+                    remove(subscriber);
+                } finally {
+                    subscriber.sending.set(false);
+                }
+                // un événement a pu être ajouté pendant la fin de l'envoi
+                if (!subscriber.sink.isClosed()) {
+                    drain(subscriber);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            subscriber.sending.set(false);
+            remove(subscriber);
+        }
+    }
+
+    /**
+     * Méthode qui déconnecte un abonné
+     * @param subscriber Subscriber abonné
+     */
+    private void remove(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        subscriber.queue.clear();
+        subscriber.sink.close();
+    }
+
+    /**
+     * Méthode qui retourne le nombre d'abonnés connectés
+     * @return int nombre d'abonnés
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Méthode qui retourne le nombre d'abonnés déconnectés parce qu'ils étaient trop lents
+     * @return long nombre d'abonnés déconnectés
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Méthode qui arrête la diffusion et déconnecte tous les abonnés
+     */
+    public void close() {
+        poller.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            remove(subscriber);
+        }
+        dispatcher.shutdownNow();
+        menuRepo.close();
+        try {
+            jsonb.close();
+        } catch (Exception e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Abonné au flux d'événements, avec ses filtres et sa file d'attente bornée
+     */
+    private static class Subscriber {
+        private final SseEventSink sink;
+        private final Sse sse;
+        private final Integer menuId;
+        private final String author;
+        private final BlockingQueue<OutboundSseEvent> queue;
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        Subscriber(SseEventSink sink, Sse sse, Integer menuId, String author, int bufferSize) {
+            this.sink = sink;
+            this.sse = sse;
+            this.menuId = menuId;
+            this.author = author;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        /**
+         * Méthode qui indique si une modification correspond aux filtres de l'abonné
+         * @param id int id du menu modifié
+         * @param menu Menu état actuel du menu, null s'il a été supprimé
+         * @return boolean true si l'événement doit être envoyé
+         */
+        boolean accepts(int id, Menu menu) {
+            if (menuId != null && menuId != id) {
+                return false;
+            }
+            return author == null || menu == null || author.equals(menu.getAuthor());
+        }
+    }
+}
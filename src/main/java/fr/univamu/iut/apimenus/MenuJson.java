@@ -0,0 +1,89 @@
+package fr.univamu.iut.apimenus;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * JSON déjà sérialisé (octets UTF-8) d'un menu ou d'une liste de menus, accompagné de l'indication
+ * qu'un des menus est dégradé (plats incomplets car l'api plats & utilisateurs était indisponible) :
+ * la réponse n'a pas à être relue pour le savoir
+ */
+public class MenuJson {
+
+    private final byte[] bytes;
+    private final boolean degraded;
+
+    /**
+     * Empreinte du JSON, calculée à la première demande (un JSON gardé en cache n'est haché qu'une fois)
+     */
+    private volatile String digest;
+
+    /**
+     * Constructeur du JSON
+     * @param bytes byte[] JSON en octets UTF-8
+     * @param degraded boolean true si un des menus est dégradé
+     */
+    public MenuJson(byte[] bytes, boolean degraded) {
+        this.bytes = bytes;
+        this.degraded = degraded;
+    }
+
+    /**
+     * Méthode qui construit le JSON à partir d'une chaîne de caractères
+     * @param json String JSON, éventuellement null
+     * @param degraded boolean true si un des menus est dégradé
+     * @return MenuJson JSON en octets UTF-8, null si json est null
+     */
+    public static MenuJson of(String json, boolean degraded) {
+        return json == null ? null : new MenuJson(json.getBytes(StandardCharsets.UTF_8), degraded);
+    }
+
+    /**
+     * Méthode qui retourne le JSON
+     * @return byte[] JSON en octets UTF-8
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Méthode qui indique si un des menus est dégradé : une telle réponse ne doit pas être mise en cache
+     * @return boolean true si un des menus est dégradé
+     */
+    public boolean isDegraded() {
+        return degraded;
+    }
+
+    /**
+     * Méthode qui retourne une empreinte du JSON (début du SHA-256 en hexadécimal), utilisée dans l'ETag
+     * des réponses qui contiennent des plats : elle change avec le nom, la description ou le prix d'un plat
+     * @return String empreinte du JSON
+     */
+    public String getDigest() {
+        String result = digest;
+        if (result == null) {
+            try {
+                byte[] hash = MessageDigest.getInstance("SHA-256").digest(bytes);
+                StringBuilder hex = new StringBuilder();
+                for (int i = 0; i < 12; ++i) {
+                    hex.append(String.format("%02x", hash[i]));
+                }
+                result = hex.toString();
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException(e);
+            }
+            digest = result;
+        }
+        return result;
+    }
+
+    /**
+     * Méthode qui retourne le JSON sous forme de chaîne de caractères
+     * @return String JSON
+     */
+    @Override
+    public String toString() {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
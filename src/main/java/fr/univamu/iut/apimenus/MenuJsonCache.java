@@ -0,0 +1,124 @@
+package fr.univamu.iut.apimenus;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache du JSON déjà sérialisé (octets UTF-8) de chaque menu, gardé avec l'indication que le menu est dégradé.
+ * Une entrée est retirée dès que le menu est modifié, et expire au bout d'une durée limitée
+ * pour suivre les changements des plats dans l'api plats & utilisateurs.
+ */
+public class MenuJsonCache {
+
+    /**
+     * Entrée du cache : le JSON du menu et sa date d'expiration
+     */
+    private static final class Entry {
+        private final MenuJson json;
+        private final long expiresAt;
+
+        private Entry(MenuJson json, long expiresAt) {
+            this.json = json;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Compteur incrémenté à chaque invalidation : un JSON calculé pendant une modification n'est pas gardé
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final boolean enabled;
+    private final int maxSize;
+    private final long ttlMillis;
+
+    /**
+     * Constructeur du cache, l'activation, la taille et la durée de vie sont lues dans apimenus.properties
+     */
+    public MenuJsonCache() {
+        this(ApiConfig.getBoolean("apimenus.menus.json-cache.enabled", true),
+                ApiConfig.getInt("apimenus.menus.json-cache.max-size", 1000),
+                ApiConfig.getLong("apimenus.menus.json-cache.ttl-seconds", 60) * 1000);
+    }
+
+    /**
+     * Constructeur du cache
+     * @param enabled boolean false pour ne rien garder en cache
+     * @param maxSize int nombre maximum de menus en cache
+     * @param ttlMillis long durée de vie d'une entrée
+     */
+    public MenuJsonCache(boolean enabled, int maxSize, long ttlMillis) {
+        this.enabled = enabled;
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Méthode qui retourne le JSON d'un menu depuis le cache, ou le calcule et le garde en cache
+     * (sauf s'il est dégradé)
+     * @param id_menu int id du menu
+     * @param loader Supplier<MenuJson> calcul du JSON du menu (retourne null si le menu n'existe pas)
+     * @return MenuJson JSON du menu, null si le menu n'existe pas
+     */
+    public MenuJson get(int id_menu, Supplier<MenuJson> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        Entry entry = entries.get(id_menu);
+        if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+            return entry.json;
+        }
+
+        long invalidationsBefore = invalidations.get();
+        MenuJson json = loader.get();
+        // le JSON d'un menu dégradé (plats incomplets) n'est pas gardé, sans toucher aux autres chargements
+        if (json != null && !json.isDegraded() && invalidations.get() == invalidationsBefore) {
+            if (entries.size() >= maxSize) {
+                evict();
+            }
+            entries.put(id_menu, new Entry(json, System.currentTimeMillis() + ttlMillis));
+            // une invalidation a pu avoir lieu juste avant l'ajout
+            if (invalidations.get() != invalidationsBefore) {
+                entries.remove(id_menu);
+            }
+        }
+        return json;
+    }
+
+    /**
+     * Méthode qui retire un menu du cache (à appeler après chaque modification du menu)
+     * @param id_menu int id du menu
+     */
+    public void invalidate(int id_menu) {
+        invalidations.incrementAndGet();
+        entries.remove(id_menu);
+    }
+
+    /**
+     * Méthode qui vide le cache
+     */
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * Méthode qui libère de la place : les entrées expirées sont retirées,
+     * puis une entrée quelconque si le cache est encore plein
+     */
+    private void evict() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+        Iterator<Integer> iterator = entries.keySet().iterator();
+        while (entries.size() >= maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package fr.univamu.iut.apimenus;
+
+import java.util.*;
+
+/**
+ * Classe représentant les informations d'un menu demandées par le client :
+ * champs à lire et à renvoyer (paramètre fields) et plats à récupérer ou non (paramètre expand=plats).
+ * Un menu lu sans ses plats ne fait aucun appel à l'api plats & utilisateurs.
+ */
+public class MenuProjection {
+
+    /**
+     * Champs d'un menu pouvant être demandés, associés à leur colonne sql (dans l'ordre de la réponse JSON)
+     */
+    private static final Map<String, String> COLUMNS_BY_FIELD = new LinkedHashMap<>();
+
+    static {
+        COLUMNS_BY_FIELD.put("id", "id_menu");
+        COLUMNS_BY_FIELD.put("author", "author");
+        COLUMNS_BY_FIELD.put("title", "title");
+        COLUMNS_BY_FIELD.put("description", "description");
+        COLUMNS_BY_FIELD.put("price", "price");
+        COLUMNS_BY_FIELD.put("creationDate", "creationDate");
+        COLUMNS_BY_FIELD.put("version", "version");
+    }
+
+    /**
+     * Champ JSON de la liste des plats : le demander dans fields revient à passer expand=plats
+     */
+    public static final String PLATS_FIELD = "listPlat";
+
+    /**
+     * Projection complète : tous les champs et les plats (comportement par défaut des endpoints)
+     */
+    public static final MenuProjection ALL = new MenuProjection(COLUMNS_BY_FIELD.keySet(), true);
+
+    private final Set<String> fields;
+    private final boolean expandPlats;
+
+    /**
+     * Constructeur de la projection
+     * @param fields Collection<String> champs demandés (l'id est toujours inclus)
+     * @param expandPlats boolean true pour récupérer les plats des menus
+     * @throws IllegalArgumentException si un champ est inconnu
+     */
+    public MenuProjection(Collection<String> fields, boolean expandPlats) {
+        Set<String> requested = new HashSet<>(fields);
+        for (String field : requested) {
+            if (!COLUMNS_BY_FIELD.containsKey(field)) {
+                throw new IllegalArgumentException("Champ inconnu : " + field);
+            }
+        }
+
+        // les champs sont rangés dans l'ordre de la réponse JSON
+        this.fields = new LinkedHashSet<>();
+        this.fields.add("id");
+        for (String field : COLUMNS_BY_FIELD.keySet()) {
+            if (requested.contains(field)) {
+                this.fields.add(field);
+            }
+        }
+        this.expandPlats = expandPlats;
+    }
+
+    /**
+     * Méthode qui construit une projection à partir des paramètres de requête
+     * @param fields String liste de champs séparés par des virgules (null pour tous les champs)
+     * @param expand String "plats" pour récupérer les plats (null ou vide sinon)
+     * @return MenuProjection la projection demandée
+     * @throws IllegalArgumentException si un champ ou une expansion est inconnu
+     */
+    public static MenuProjection parse(String fields, String expand) {
+        boolean expandPlats = false;
+        if (expand != null && !expand.isBlank()) {
+            for (String value : expand.split(",")) {
+                if (!value.trim().equals("plats")) {
+                    throw new IllegalArgumentException("Expansion inconnue : " + value.trim());
+                }
+                expandPlats = true;
+            }
+        }
+
+        if (fields == null || fields.isBlank()) {
+            return new MenuProjection(COLUMNS_BY_FIELD.keySet(), expandPlats);
+        }
+
+        List<String> requested = new ArrayList<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.equals(PLATS_FIELD)) {
+                expandPlats = true;
+            } else if (!name.isEmpty()) {
+                requested.add(name);
+            }
+        }
+        return new MenuProjection(requested, expandPlats);
+    }
+
+    /**
+     * Méthode qui retourne les champs demandés, dans l'ordre de la réponse JSON
+     * @return Set<String> champs demandés (contient toujours id)
+     */
+    public Set<String> getFields() {
+        return Collections.unmodifiableSet(fields);
+    }
+
+    /**
+     * Méthode qui indique si un champ est demandé
+     * @param field String nom du champ
+     * @return boolean true si le champ est demandé
+     */
+    public boolean includes(String field) {
+        return fields.contains(field);
+    }
+
+    /**
+     * Méthode qui indique si les plats des menus doivent être récupérés
+     * @return boolean true si les plats sont demandés
+     */
+    public boolean isExpandPlats() {
+        return expandPlats;
+    }
+
+    /**
+     * Méthode qui construit la liste des colonnes sql à lire
+     * @param alias String alias de la table Menu dans la requête (vide si aucun)
+     * @param extraColumns String... colonnes nécessaires en plus des champs demandés (p.ex. la colonne de tri)
+     * @return String colonnes séparées par des virgules
+     */
+    public String toColumns(String alias, String... extraColumns) {
+        Set<String> columns = new LinkedHashSet<>();
+        for (String field : fields) {
+            columns.add(COLUMNS_BY_FIELD.get(field));
+        }
+        columns.addAll(Arrays.asList(extraColumns));
+
+        String prefix = alias.isEmpty() ? "" : alias + ".";
+        StringJoiner joiner = new StringJoiner(", ");
+        for (String column : columns) {
+            joiner.add(prefix + column);
+        }
+        return joiner.toString();
+    }
+}
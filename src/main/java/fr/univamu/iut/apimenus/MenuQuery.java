@@ -0,0 +1,249 @@
+package fr.univamu.iut.apimenus;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+
+/**
+ * Classe représentant une requête paginée sur la liste des menus :
+ * taille de page, curseur, tri et filtres (auteur, prix, date de création)
+ */
+public class MenuQuery {
+
+    /**
+     * Colonnes sur lesquelles la liste des menus peut être triée
+     */
+    public enum Sort {
+        ID("id_menu"),
+        PRICE("price"),
+        DATE("creationDate"),
+        TITLE("title");
+
+        private final String column;
+
+        Sort(String column) {
+            this.column = column;
+        }
+
+        /**
+         * Méthode qui retourne la colonne sql associée au tri
+         * @return String nom de la colonne
+         */
+        public String getColumn() {
+            return column;
+        }
+    }
+
+    private int limit = 20;
+    private Sort sort = Sort.ID;
+    private boolean descending;
+    private String author;
+    private Float minPrice;
+    private Float maxPrice;
+    private Timestamp createdAfter;
+    private Timestamp createdBefore;
+
+    /**
+     * Position après laquelle la page commence (null pour la première page)
+     */
+    private String afterValue;
+    private int afterId;
+
+    /**
+     * Constructeur par défaut (première page de 20 menus triés par id)
+     */
+    public MenuQuery() {
+    }
+
+    /**
+     * Méthode qui retourne le nombre maximum de menus de la page
+     * @return int taille de la page
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Méthode qui définit le nombre maximum de menus de la page
+     * @param limit int taille de la page
+     */
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Méthode qui retourne le tri de la liste
+     * @return Sort colonne de tri
+     */
+    public Sort getSort() {
+        return sort;
+    }
+
+    /**
+     * Méthode qui définit le tri de la liste
+     * @param sort Sort colonne de tri
+     */
+    public void setSort(Sort sort) {
+        this.sort = sort;
+    }
+
+    /**
+     * Méthode qui indique si le tri est décroissant
+     * @return boolean true si décroissant
+     */
+    public boolean isDescending() {
+        return descending;
+    }
+
+    /**
+     * Méthode qui définit le sens du tri
+     * @param descending boolean true pour un tri décroissant
+     */
+    public void setDescending(boolean descending) {
+        this.descending = descending;
+    }
+
+    /**
+     * Méthode qui retourne le filtre sur l'auteur
+     * @return String auteur recherché, null si pas de filtre
+     */
+    public String getAuthor() {
+        return author;
+    }
+
+    /**
+     * Méthode qui définit le filtre sur l'auteur
+     * @param author String auteur recherché
+     */
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    /**
+     * Méthode qui retourne le prix minimum
+     * @return Float prix minimum, null si pas de filtre
+     */
+    public Float getMinPrice() {
+        return minPrice;
+    }
+
+    /**
+     * Méthode qui définit le prix minimum
+     * @param minPrice Float prix minimum
+     */
+    public void setMinPrice(Float minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    /**
+     * Méthode qui retourne le prix maximum
+     * @return Float prix maximum, null si pas de filtre
+     */
+    public Float getMaxPrice() {
+        return maxPrice;
+    }
+
+    /**
+     * Méthode qui définit le prix maximum
+     * @param maxPrice Float prix maximum
+     */
+    public void setMaxPrice(Float maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    /**
+     * Méthode qui retourne la date de création minimum (incluse)
+     * @return Timestamp date minimum, null si pas de filtre
+     */
+    public Timestamp getCreatedAfter() {
+        return createdAfter;
+    }
+
+    /**
+     * Méthode qui définit la date de création minimum (incluse)
+     * @param createdAfter Timestamp date minimum
+     */
+    public void setCreatedAfter(Timestamp createdAfter) {
+        this.createdAfter = createdAfter;
+    }
+
+    /**
+     * Méthode qui retourne la date de création maximum (exclue)
+     * @return Timestamp date maximum, null si pas de filtre
+     */
+    public Timestamp getCreatedBefore() {
+        return createdBefore;
+    }
+
+    /**
+     * Méthode qui définit la date de création maximum (exclue)
+     * @param createdBefore Timestamp date maximum
+     */
+    public void setCreatedBefore(Timestamp createdBefore) {
+        this.createdBefore = createdBefore;
+    }
+
+    /**
+     * Méthode qui retourne la valeur de tri du dernier menu de la page précédente
+     * @return String valeur de tri, null pour la première page
+     */
+    public String getAfterValue() {
+        return afterValue;
+    }
+
+    /**
+     * Méthode qui retourne l'id du dernier menu de la page précédente
+     * @return int id du menu
+     */
+    public int getAfterId() {
+        return afterId;
+    }
+
+    /**
+     * Méthode qui positionne la requête après un menu donné
+     * @param afterValue String valeur de tri du dernier menu de la page précédente
+     * @param afterId int id du dernier menu de la page précédente
+     */
+    public void setAfter(String afterValue, int afterId) {
+        this.afterValue = afterValue;
+        this.afterId = afterId;
+    }
+
+    /**
+     * Méthode qui construit le curseur opaque désignant la position après un menu
+     * @param menu Menu dernier menu de la page
+     * @return String curseur encodé en base64
+     */
+    public String encodeCursor(Menu menu) {
+        String value;
+        switch (sort) {
+            case PRICE:
+                value = String.valueOf(menu.getPrice());
+                break;
+            case DATE:
+                value = menu.getCreationDate() == null ? "" : String.valueOf(menu.getCreationDate().getTime());
+                break;
+            case TITLE:
+                value = menu.getTitle() == null ? "" : menu.getTitle();
+                break;
+            default:
+                value = String.valueOf(menu.getId());
+        }
+        String raw = sort.name() + "|" + menu.getId() + "|" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Méthode qui positionne la requête à partir d'un curseur construit par encodeCursor
+     * @param cursor String curseur encodé en base64
+     * @throws IllegalArgumentException si le curseur est invalide ou ne correspond pas au tri demandé
+     */
+    public void decodeCursor(String cursor) {
+        String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        String[] parts = raw.split("\\|", 3);
+        if (parts.length != 3 || !parts[0].equals(sort.name())) {
+            throw new IllegalArgumentException("Curseur invalide pour ce tri");
+        }
+        setAfter(parts[2], Integer.parseInt(parts[1]));
+    }
+}
@@ -1,9 +1,16 @@
 package fr.univamu.iut.apimenus;
 
+import fr.univamu.iut.apimenus.dto.MenuChangeDTO;
+import fr.univamu.iut.apimenus.dto.MenuCreationRequest;
+import fr.univamu.iut.apimenus.dto.MenuPageDTO;
 import fr.univamu.iut.apimenus.dto.MenuPlatDTO;
+import fr.univamu.iut.apimenus.dto.PriceReconcileReportDTO;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Interface d'accès aux données des menus
@@ -23,12 +30,80 @@ public interface MenuRepositoryInterface {
      */
     Menu getMenu(int id_menu);
 
+    /**
+     * Méthode qui retourne un objet Menu limité aux champs d'une projection ;
+     * ses plats ne sont récupérés que si la projection les demande
+     *
+     * @param id_menu int id du menu
+     * @param projection MenuProjection champs à lire et plats à récupérer ou non
+     * @return Objet Menu
+     */
+    Menu getMenu(int id_menu, MenuProjection projection);
+
+    /**
+     * Méthode qui retourne plusieurs menus à partir de leurs id, limités aux champs d'une projection ;
+     * les plats communs à plusieurs menus ne sont récupérés qu'une fois
+     *
+     * @param ids Collection<Integer> id des menus
+     * @param projection MenuProjection champs à lire et plats à récupérer ou non
+     * @return Map<Integer, Menu> menus trouvés, indexés par leur id (les id introuvables sont absents)
+     */
+    Map<Integer, Menu> getMenus(Collection<Integer> ids, MenuProjection projection);
+
+    /**
+     * Méthode qui retourne la version d'un menu, incrémentée à chaque modification
+     * @param id_menu int id du menu
+     * @return Long version du menu, null si le menu n'existe pas
+     */
+    Long getMenuVersion(int id_menu);
+
+    /**
+     * Méthode qui retourne une version de l'ensemble des menus, modifiée par toute écriture
+     * @return String version de la liste des menus
+     */
+    String getMenusVersion();
+
+    /**
+     * Méthode qui indique si les plats renvoyés avec les menus ne changent qu'avec la version des menus
+     * (sinon un ETag construit à partir des versions ne couvre pas les plats)
+     * @return boolean true si la version d'un menu change quand un de ses plats change
+     */
+    boolean isPlatDataVersioned();
+
     /**
      * Méthode qui retourne une ArrayList de tous les objets Menu
      * @return ArrayList d'objet Menu
      */
     ArrayList<Menu> getAllMenu();
 
+    /**
+     * Méthode qui retourne tous les menus limités aux champs d'une projection
+     * @param projection MenuProjection champs à lire et plats à récupérer ou non
+     * @return ArrayList d'objet Menu
+     */
+    ArrayList<Menu> getAllMenu(MenuProjection projection);
+
+    /**
+     * Méthode qui retourne une page de menus, filtrée et triée, à partir d'un curseur
+     * @param query MenuQuery taille de page, curseur, tri et filtres
+     * @return MenuPageDTO les menus de la page et le curseur de la page suivante
+     */
+    MenuPageDTO getMenuPage(MenuQuery query);
+
+    /**
+     * Méthode qui retourne une page de menus limités aux champs d'une projection
+     * @param query MenuQuery taille de page, curseur, tri et filtres
+     * @param projection MenuProjection champs à lire et plats à récupérer ou non
+     * @return MenuPageDTO les menus de la page et le curseur de la page suivante
+     */
+    MenuPageDTO getMenuPage(MenuQuery query, MenuProjection projection);
+
+    /**
+     * Méthode qui parcourt tous les menus un par un, sans les charger tous en mémoire
+     * @param consumer Consumer<Menu> traitement appliqué à chaque menu
+     */
+    void streamAllMenu(Consumer<Menu> consumer);
+
     /**
      * Méthode qui met à jours tous les attributs d'un objet Menu dont l'id est passé en paramètre
      *
@@ -50,6 +125,15 @@ public interface MenuRepositoryInterface {
      */
     boolean createMenu(String author, String title, String description, List<Integer> listPlat);
 
+    /**
+     * Méthode qui permet de créer plusieurs menus avec leurs plats en une seule transaction (import en masse)
+     *
+     * @param menus      List<MenuCreationRequest> menus à créer
+     * @param platPrices Map<Integer, Float> prix des plats déjà connus, complétée avec les prix récupérés
+     * @return List<Integer> id de chaque menu créé, dans l'ordre de menus (null si un de ses plats est introuvable)
+     */
+    List<Integer> createMenus(List<MenuCreationRequest> menus, Map<Integer, Float> platPrices);
+
     /**
      * Méthode qui permet de supprimer un menu en passant l'id en paramètre
      *
@@ -69,7 +153,8 @@ public interface MenuRepositoryInterface {
      * Méthode qui permet d'associer un plat à un menu
      * @param id_menu id du menu
      * @param id_plat id du plat à associer
-     * @return true si l'association s'est bien déroulée, false si non
+     * @return true si l'association s'est bien déroulée, false si le menu n'existe pas
+     * @throws PlatNotFoundException si le plat est introuvable
      */
     boolean addPlatToMenu(int id_menu, int id_plat);
 
@@ -85,7 +170,8 @@ public interface MenuRepositoryInterface {
      * Méthode qui permet de supprimer un plat d'un menu
      * @param id_menu int id du menu
      * @param id_plat int id du plat
-     * @return true si la suppression s'est bien déroulée, false si non
+     * @return true si la suppression s'est bien déroulée, false si le menu n'existe pas
+     * @throws PlatNotFoundException si le plat est introuvable
      */
     boolean removePlatFromMenu(int id_menu, int id_plat);
 
@@ -95,4 +181,68 @@ public interface MenuRepositoryInterface {
      * @return true si la suppression s'est bien déroulée, false si non
      */
     boolean removeAllPlatsFromMenu(int id_menu);
-}
\ No newline at end of file
+
+    /**
+     * Méthode qui répercute le changement de prix d'un plat sur tous les menus qui le contiennent
+     * @param id_plat int id du plat
+     * @param oldPrice Float ancien prix du plat, null pour utiliser le prix en cache ou dans la copie locale
+     * @param newPrice float nouveau prix du plat
+     * @return List<Integer> id des menus modifiés, null si l'ancien prix est inconnu
+     */
+    List<Integer> repricePlat(int id_plat, Float oldPrice, float newPrice);
+
+    /**
+     * Méthode qui vérifie le prix d'un lot de menus (dans l'ordre des id, à partir d'une position)
+     * et corrige ceux dont le prix s'écarte de la somme des prix actuels de leurs plats
+     * @param afterId int id du dernier menu vérifié (0 pour commencer au début)
+     * @param limit int nombre de menus du lot
+     * @param tolerance float écart toléré entre le prix enregistré et le prix recalculé
+     * @param report PriceReconcileReportDTO rapport complété avec les menus vérifiés, corrigés et ignorés
+     * @return int id du dernier menu du lot, 0 s'il n'y a plus de menu à vérifier
+     */
+    int reconcilePrices(int afterId, int limit, float tolerance, PriceReconcileReportDTO report);
+
+    /**
+     * Méthode qui rafraîchit un lot de plats de la copie locale des plats auprès de l'api plats
+     * (plats sans copie, puis copies plus anciennes que maxAgeSeconds)
+     * @param limit int nombre maximum de plats rafraîchis
+     * @param maxAgeSeconds long âge (secondes) au-delà duquel une copie est rafraîchie
+     * @return int nombre de plats rafraîchis, inférieur à limit s'il ne reste plus de plat à rafraîchir
+     */
+    int syncPlatSnapshots(int limit, long maxAgeSeconds);
+
+    /**
+     * Méthode qui supprime de la copie locale les plats qui ne font plus partie d'aucun menu
+     * @return int nombre de copies supprimées
+     */
+    int prunePlatSnapshots();
+
+    /**
+     * Méthode qui retourne les entrées du journal des modifications des menus après une position donnée
+     * (chaque création, modification, association de plat ou suppression ajoute une entrée)
+     * @param since long position (seq) de la dernière modification déjà connue
+     * @param limit int nombre maximum d'entrées retournées
+     * @return List<MenuChangeDTO> entrées du journal, dans l'ordre des modifications
+     */
+    List<MenuChangeDTO> getChanges(long since, int limit);
+
+    /**
+     * Méthode qui retourne la position de la dernière modification du journal
+     * @return long seq de la dernière modification, 0 si le journal est vide
+     */
+    long getLastChange();
+
+    /**
+     * Méthode qui retourne la position de la plus ancienne modification encore gardée dans le journal :
+     * un client dont le jeton est antérieur a manqué des modifications supprimées et doit se resynchroniser
+     * @return long seq de la plus ancienne modification gardée, 0 si le journal est vide
+     */
+    long getFirstChange();
+
+    /**
+     * Méthode qui supprime les modifications les plus anciennes du journal
+     * @param retained long nombre de positions (seq) gardées avant la dernière modification
+     * @return int nombre d'entrées supprimées
+     */
+    int pruneChanges(long retained);
+}
@@ -1,18 +1,24 @@
 package fr.univamu.iut.apimenus;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import fr.univamu.iut.apimenus.dto.MenuChangeDTO;
+import fr.univamu.iut.apimenus.dto.MenuCreationRequest;
+import fr.univamu.iut.apimenus.dto.MenuPageDTO;
 import fr.univamu.iut.apimenus.dto.MenuPlatDTO;
 import fr.univamu.iut.apimenus.dto.MenuUpdatePriceDTO;
 import fr.univamu.iut.apimenus.dto.PlatDTO;
-import jakarta.ws.rs.client.Client;
-import jakarta.ws.rs.client.ClientBuilder;
-import jakarta.ws.rs.client.WebTarget;
-import jakarta.ws.rs.core.MediaType;
-import jakarta.ws.rs.core.Response;
+import fr.univamu.iut.apimenus.dto.PriceReconcileReportDTO;
 
 import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import javax.sql.DataSource;
 
 /**
  * Classe qui permet d'exécuter les requêtes sql
@@ -20,14 +26,75 @@ import java.util.List;
 public class MenuRepositoryMariadb implements MenuRepositoryInterface, Closeable {
 
     /**
-     * Accès à la base de données (session)
+     * Accès à la base de données (pool de connexions).
+     * Chaque méthode emprunte une connexion au pool et la rend à la fin de la requête.
      */
-    protected Connection dbConnection;
+    protected DataSource dataSource;
 
-    private String apiPlatUrl = "http://localhost:8080/APII-1.0-SNAPSHOT/api/";
+    /**
+     * true si le pool a été créé par ce dépôt et doit être fermé avec lui
+     */
+    private final boolean ownsDataSource;
+
+    /**
+     * Jointure qui ajoute les id des plats aux menus (alias m), une ligne par association
+     */
+    private static final String PLATS_JOIN = " LEFT JOIN Plat_menu pm ON pm.id_menu = m.id_menu";
+
+    /**
+     * Jointure qui ajoute aux plats (alias pm) leur copie locale, rafraîchie par la synchronisation des plats
+     */
+    private static final String SNAPSHOT_JOIN = " LEFT JOIN Plat_snapshot ps ON ps.id_plat = pm.id_plat";
 
     /**
-     * Constructeur de la classe
+     * Colonnes lues dans la copie locale des plats (alias ps)
+     */
+    private static final String SNAPSHOT_COLUMNS = ", ps.name AS plat_name, ps.description AS plat_description, "
+            + "ps.price AS plat_price, ps.found AS plat_found, ps.synced_at AS plat_synced_at";
+
+    /**
+     * Nombre maximum de lignes insérées par une requête INSERT de plusieurs lignes
+     */
+    private static final int MAX_ROWS_PER_INSERT = 500;
+
+    /**
+     * Nombre maximum de lignes supprimées par une requête DELETE du journal des modifications
+     */
+    private static final int MAX_ROWS_PER_DELETE = 10000;
+
+    /**
+     * Client de l'api plats & utilisateurs
+     */
+    protected PlatApiClient platApi;
+
+    /**
+     * Cache des plats, utilisé pour toutes les lectures de plats
+     */
+    protected PlatCache platCache;
+
+    /**
+     * true si le client de l'api plats a été créé par ce dépôt et doit être fermé avec lui
+     */
+    private final boolean ownsPlatApi;
+
+    /**
+     * true si les plats des menus sont lus dans la copie locale Plat_snapshot (apimenus.plats.snapshot.enabled)
+     */
+    protected final boolean platSnapshots = ApiConfig.getBoolean("apimenus.plats.snapshot.enabled", true);
+
+    /**
+     * Âge maximum (ms) d'une copie servie avec les menus (apimenus.plats.snapshot.max-serve-age-seconds, 0 sans limite) :
+     * une copie plus ancienne n'est servie que si l'api plats est indisponible
+     */
+    protected final long snapshotMaxServeMillis = ApiConfig.getLong("apimenus.plats.snapshot.max-serve-age-seconds", 3600) * 1000;
+
+    /**
+     * Index en mémoire des associations de Plat_menu, tenu à jour par ce dépôt (null si aucun)
+     */
+    protected PlatMenuIndex platMenuIndex;
+
+    /**
+     * Constructeur de la classe, le dépôt crée et possède son propre pool de connexions
      *
      * @param infoConnection chaîne de caractères avec les informations de connexion
      *                       (p.ex. jdbc:mariadb://mysql-[compte].alwaysdata.net/[compte]_library_db
@@ -36,7 +103,78 @@ public class MenuRepositoryMariadb implements MenuRepositoryInterface, Closeable
      */
     public MenuRepositoryMariadb(String infoConnection, String user, String pwd) throws java.sql.SQLException, java.lang.ClassNotFoundException {
         Class.forName("org.mariadb.jdbc.Driver");
-        dbConnection = DriverManager.getConnection(infoConnection, user, pwd);
+        this.dataSource = createDataSource(infoConnection, user, pwd);
+        this.ownsDataSource = true;
+        this.platApi = new PlatApiClient(ApiConfig.getString("apimenus.plats.url", "http://localhost:8080/APII-1.0-SNAPSHOT/api/"));
+        this.platCache = new PlatCache(platApi);
+        this.ownsPlatApi = true;
+    }
+
+    /**
+     * Constructeur de la classe à partir d'un pool de connexions, d'un client de l'api plats
+     * et d'un cache des plats partagés (ils ne sont pas fermés par le dépôt)
+     *
+     * @param dataSource DataSource pool de connexions à la base de données
+     * @param platApi PlatApiClient client de l'api plats & utilisateurs
+     * @param platCache PlatCache cache des plats
+     */
+    public MenuRepositoryMariadb(DataSource dataSource, PlatApiClient platApi, PlatCache platCache) {
+        this(dataSource, platApi, platCache, null);
+    }
+
+    /**
+     * Constructeur de la classe à partir d'un pool de connexions, d'un client de l'api plats,
+     * d'un cache des plats et d'un index des associations partagés (ils ne sont pas fermés par le dépôt).
+     * Les plats d'un menu sont lus dans l'index dès qu'il est chargé, et chaque modification des associations l'y reporte.
+     *
+     * @param dataSource DataSource pool de connexions à la base de données
+     * @param platApi PlatApiClient client de l'api plats & utilisateurs
+     * @param platCache PlatCache cache des plats
+     * @param platMenuIndex PlatMenuIndex index des associations de Plat_menu (null si aucun)
+     */
+    public MenuRepositoryMariadb(DataSource dataSource, PlatApiClient platApi, PlatCache platCache, PlatMenuIndex platMenuIndex) {
+        this.dataSource = dataSource;
+        this.ownsDataSource = false;
+        this.platApi = platApi;
+        this.platCache = platCache;
+        this.ownsPlatApi = false;
+        this.platMenuIndex = platMenuIndex;
+    }
+
+    /**
+     * Méthode qui crée le pool de connexions à la base de données.
+     * La taille du pool, la validation des connexions, l'éviction des connexions inactives
+     * et la détection des fuites sont configurées dans apimenus.properties.
+     * Une connexion coupée est retirée du pool et remplacée automatiquement.
+     *
+     * @param infoConnection chaîne de caractères avec les informations de connexion
+     * @param user           chaîne de caractères contenant l'identifiant de connexion à la base de données
+     * @param pwd            chaîne de caractères contenant le mot de passe à utiliser
+     * @return HikariDataSource le pool de connexions
+     */
+    public static HikariDataSource createDataSource(String infoConnection, String user, String pwd) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("apimenus-db");
+        config.setDriverClassName("org.mariadb.jdbc.Driver");
+        config.setJdbcUrl(infoConnection);
+        config.setUsername(user);
+        config.setPassword(pwd);
+        config.setMinimumIdle(ApiConfig.getInt("apimenus.db.pool.min-idle", 2));
+        config.setMaximumPoolSize(ApiConfig.getInt("apimenus.db.pool.max-size", 10));
+        // validation de la connexion au moment de l'emprunt
+        config.setValidationTimeout(ApiConfig.getLong("apimenus.db.pool.validation-timeout-ms", 3000));
+        config.setConnectionTestQuery(ApiConfig.getString("apimenus.db.pool.test-query", "SELECT 1"));
+        config.setKeepaliveTime(ApiConfig.getLong("apimenus.db.pool.keepalive-ms", 120000));
+        // éviction des connexions inactives ou trop anciennes
+        config.setIdleTimeout(ApiConfig.getLong("apimenus.db.pool.idle-timeout-ms", 300000));
+        config.setMaxLifetime(ApiConfig.getLong("apimenus.db.pool.max-lifetime-ms", 1200000));
+        // temps d'attente maximum d'une connexion libre
+        config.setConnectionTimeout(ApiConfig.getLong("apimenus.db.pool.connection-timeout-ms", 10000));
+        // une connexion empruntée plus longtemps que ce délai est signalée comme une fuite
+        config.setLeakDetectionThreshold(ApiConfig.getLong("apimenus.db.pool.leak-detection-ms", 30000));
+        // le pool démarre même si la base est momentanément indisponible, il se reconnectera
+        config.setInitializationFailTimeout(-1);
+        return new HikariDataSource(config);
     }
 
     /**
@@ -44,440 +182,1902 @@ public class MenuRepositoryMariadb implements MenuRepositoryInterface, Closeable
      */
     @Override
     public void close() {
-        try {
-            dbConnection.close();
+        if (ownsPlatApi) {
+            platCache.close();
+            platApi.close();
+        }
+        if (ownsDataSource && dataSource instanceof Closeable) {
+            try {
+                ((Closeable) dataSource).close();
+            } catch (IOException e) {
+                System.err.println(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Méthode permettant de récupérer un menu grâce à son id
+     * @param id int id du menu
+     * @return Menu menu trouvé, si non une exception sql
+     * @throws RuntimeException si il y a une erreur côté sql
+     */
+    @Override
+    public Menu getMenu(int id) {
+        return getMenu(id, MenuProjection.ALL);
+    }
+
+    /**
+     * Méthode permettant de récupérer un menu grâce à son id, en ne lisant que les colonnes demandées.
+     * L'api plats & utilisateurs n'est appelée que si les plats sont demandés.
+     * @param id int id du menu
+     * @param projection MenuProjection champs à lire et plats à récupérer ou non
+     * @return Menu menu trouvé, null s'il n'existe pas
+     * @throws RuntimeException si il y a une erreur côté sql
+     */
+    @Override
+    public Menu getMenu(int id, MenuProjection projection) {
+        Map<Integer, Menu> menusById = new LinkedHashMap<>();
+        Map<Integer, List<Integer>> platIdsByMenu = new HashMap<>();
+        PlatSnapshots snapshots = new PlatSnapshots();
+
+        String query = selectMenus(projection) + " WHERE m.id_menu=?";
+
+        // construction et exécution d'une requête préparée
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            ps.setInt(1, id);
+
+            // exécution de la requête : une ligne par plat du menu (ou une seule ligne si le menu n'a pas de plat)
+            ResultSet result = ps.executeQuery();
+            readMenusWithPlatIds(result, menusById, platIdsByMenu, snapshots);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+
+        // récupération des plats du menu (si la référence du menu est valide)
+        if (projection.isExpandPlats()) {
+            attachPlats(menusById.values(), platIdsByMenu, snapshots);
+        }
+        return menusById.get(id);
+    }
+
+    /**
+     * Méthode permettant de récupérer plusieurs menus grâce à leurs id, avec une seule requête
+     * (WHERE id_menu IN (...) et jointure sur Plat_menu) ;
+     * chaque plat distinct des menus trouvés n'est demandé qu'une fois au cache des plats.
+     * @param ids Collection<Integer> id des menus
+     * @param projection MenuProjection champs à lire et plats à récupérer ou non
+     * @return Map<Integer, Menu> menus trouvés, indexés par leur id, dans l'ordre des id
+     * @throws RuntimeException si il y a une erreur côté sql
+     */
+    @Override
+    public Map<Integer, Menu> getMenus(Collection<Integer> ids, MenuProjection projection) {
+        Map<Integer, Menu> menusById = new LinkedHashMap<>();
+        Map<Integer, List<Integer>> platIdsByMenu = new HashMap<>();
+        PlatSnapshots snapshots = new PlatSnapshots();
+        Set<Integer> distinctIds = new LinkedHashSet<>(ids);
+        if (distinctIds.isEmpty()) {
+            return menusById;
+        }
+
+        StringJoiner placeholders = new StringJoiner(",", "(", ")");
+        for (int i = 0; i < distinctIds.size(); ++i) {
+            placeholders.add("?");
+        }
+        String query = selectMenus(projection) + " WHERE m.id_menu IN " + placeholders + " ORDER BY m.id_menu";
+
+        // construction et exécution d'une requête préparée
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            int index = 1;
+            for (Integer id : distinctIds) {
+                ps.setInt(index++, id);
+            }
+            ResultSet result = ps.executeQuery();
+            readMenusWithPlatIds(result, menusById, platIdsByMenu, snapshots);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+
+        if (projection.isExpandPlats()) {
+            attachPlats(menusById.values(), platIdsByMenu, snapshots);
+        }
+        return menusById;
+    }
+
+    /**
+     * Méthode qui construit la requête de lecture des menus (alias m) limitée aux colonnes d'une projection,
+     * avec la jointure sur Plat_menu (et sur la copie locale des plats) si les plats sont demandés
+     * @param projection MenuProjection champs à lire et plats à récupérer ou non
+     * @return String requête sans clause WHERE ni ORDER BY
+     */
+    protected String selectMenus(MenuProjection projection) {
+        if (projection.isExpandPlats()) {
+            return "SELECT " + projection.toColumns("m") + platColumns() + " FROM Menu m" + platJoins();
+        }
+        return "SELECT " + projection.toColumns("m") + " FROM Menu m";
+    }
+
+    /**
+     * Méthode qui retourne les colonnes des plats à ajouter à une requête de lecture des menus
+     * @return String id du plat, suivi des colonnes de sa copie locale si elle est utilisée
+     */
+    protected String platColumns() {
+        return platSnapshots ? ", pm.id_plat" + SNAPSHOT_COLUMNS : ", pm.id_plat";
+    }
+
+    /**
+     * Méthode qui retourne les jointures des plats à ajouter à une requête de lecture des menus (alias m)
+     * @return String jointure sur Plat_menu, suivie de la jointure sur la copie locale si elle est utilisée
+     */
+    protected String platJoins() {
+        return platSnapshots ? PLATS_JOIN + SNAPSHOT_JOIN : PLATS_JOIN;
+    }
+
+    /**
+     * Méthode qui lit les lignes d'une requête basée sur une projection (voir selectMenus).
+     * Chaque menu n'est créé qu'une fois, les id de ses plats sont rangés dans l'ordre de Plat_menu.
+     * Seules les colonnes présentes dans le résultat sont lues.
+     * @param result ResultSet résultat de la requête (trié par menu)
+     * @param menusById Map<Integer, Menu> map complétée avec les menus lus, dans l'ordre du résultat
+     * @param platIdsByMenu Map<Integer, List<Integer>> map complétée avec les id des plats de chaque menu
+     * @throws SQLException si il y a une erreur côté sql
+     */
+    protected void readMenusWithPlatIds(ResultSet result, Map<Integer, Menu> menusById,
+                                        Map<Integer, List<Integer>> platIdsByMenu) throws SQLException {
+        readMenusWithPlatIds(result, menusById, platIdsByMenu, null);
+    }
+
+    /**
+     * Méthode qui lit les lignes d'une requête basée sur une projection, avec la copie locale des plats
+     * @param result ResultSet résultat de la requête (trié par menu)
+     * @param menusById Map<Integer, Menu> map complétée avec les menus lus, dans l'ordre du résultat
+     * @param platIdsByMenu Map<Integer, List<Integer>> map complétée avec les id des plats de chaque menu
+     * @param snapshots PlatSnapshots complété avec les plats lus dans la copie locale (null pour les ignorer)
+     * @throws SQLException si il y a une erreur côté sql
+     */
+    protected void readMenusWithPlatIds(ResultSet result, Map<Integer, Menu> menusById,
+                                        Map<Integer, List<Integer>> platIdsByMenu, PlatSnapshots snapshots) throws SQLException {
+        Set<String> columns = columnsOf(result);
+        while (result.next()) {
+            readMenuRow(result, columns, menusById, platIdsByMenu, snapshots);
+        }
+    }
+
+    /**
+     * Méthode qui retourne le nom des colonnes d'un résultat, en minuscules
+     * @param result ResultSet résultat d'une requête
+     * @return Set<String> noms des colonnes
+     * @throws SQLException si il y a une erreur côté sql
+     */
+    protected static Set<String> columnsOf(ResultSet result) throws SQLException {
+        ResultSetMetaData metaData = result.getMetaData();
+        Set<String> columns = new HashSet<>();
+        for (int i = 1; i <= metaData.getColumnCount(); ++i) {
+            columns.add(metaData.getColumnLabel(i).toLowerCase(Locale.ROOT));
+        }
+        return columns;
+    }
+
+    /**
+     * Méthode qui lit la ligne courante d'une requête basée sur une projection
+     * @param result ResultSet résultat positionné sur la ligne à lire
+     * @param columns Set<String> noms des colonnes du résultat, en minuscules (voir columnsOf)
+     * @param menusById Map<Integer, Menu> map complétée avec le menu de la ligne s'il n'y est pas encore
+     * @param platIdsByMenu Map<Integer, List<Integer>> map complétée avec l'id du plat de la ligne
+     * @param snapshots PlatSnapshots complété avec la copie locale du plat de la ligne (null pour l'ignorer)
+     * @throws SQLException si il y a une erreur côté sql
+     */
+    protected void readMenuRow(ResultSet result, Set<String> columns, Map<Integer, Menu> menusById,
+                               Map<Integer, List<Integer>> platIdsByMenu, PlatSnapshots snapshots) throws SQLException {
+        int id = result.getInt("id_menu");
+        Menu menu = menusById.get(id);
+        if (menu == null) {
+            // création et initialisation de l'objet Menu avec les colonnes lues
+            menu = new Menu();
+            menu.setId(id);
+            if (columns.contains("author")) {
+                menu.setAuthor(result.getString("author"));
+            }
+            if (columns.contains("title")) {
+                menu.setTitle(result.getString("title"));
+            }
+            if (columns.contains("description")) {
+                menu.setDescription(result.getString("description"));
+            }
+            if (columns.contains("price")) {
+                menu.setPrice(result.getFloat("price"));
+            }
+            if (columns.contains("creationdate")) {
+                menu.setCreationDate(result.getTimestamp("creationDate"));
+            }
+            if (columns.contains("version")) {
+                menu.setVersion(result.getLong("version"));
+            }
+            menusById.put(id, menu);
+            platIdsByMenu.put(id, new ArrayList<>());
+        }
+
+        // id_plat est null quand le menu n'a aucun plat (LEFT JOIN)
+        if (columns.contains("id_plat")) {
+            int idPlat = result.getInt("id_plat");
+            if (!result.wasNull()) {
+                platIdsByMenu.get(id).add(idPlat);
+
+                // plat_synced_at est null quand le plat n'a pas encore été copié (LEFT JOIN)
+                Timestamp syncedAt = snapshots != null && columns.contains("plat_synced_at")
+                        ? result.getTimestamp("plat_synced_at") : null;
+                if (syncedAt != null && !snapshots.syncedAtById.containsKey(idPlat)) {
+                    snapshots.syncedAtById.put(idPlat, syncedAt);
+                    if (snapshotMaxServeMillis > 0 && syncedAt.getTime() < System.currentTimeMillis() - snapshotMaxServeMillis) {
+                        snapshots.staleIds.add(idPlat);
+                    }
+                    if (result.getBoolean("plat_found")) {
+                        PlatDTO platDTO = new PlatDTO();
+                        platDTO.setId(idPlat);
+                        platDTO.setName(result.getString("plat_name"));
+                        platDTO.setDescription(result.getString("plat_description"));
+                        platDTO.setPrice(result.getFloat("plat_price"));
+                        snapshots.platsById.put(idPlat, platDTO);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Plats lus dans la copie locale Plat_snapshot en même temps que les menus
+     */
+    protected static class PlatSnapshots {
+
+        /**
+         * Copies des plats, indexées par leur id (les plats que l'api plats ne connaît plus en sont absents)
+         */
+        protected final Map<Integer, PlatDTO> platsById = new HashMap<>();
+
+        /**
+         * Date de la copie de chaque plat lu, y compris les plats que l'api plats ne connaît plus
+         */
+        protected final Map<Integer, Timestamp> syncedAtById = new HashMap<>();
+
+        /**
+         * Plats dont la copie est plus ancienne que apimenus.plats.snapshot.max-serve-age-seconds
+         */
+        protected final Set<Integer> staleIds = new HashSet<>();
+    }
+
+    /**
+     * Méthode qui associe leurs plats à plusieurs menus.
+     * Chaque plat distinct n'est demandé qu'une seule fois au cache des plats,
+     * puis partagé entre tous les menus qui le contiennent.
+     * Si l'api plats est indisponible, les menus sont renvoyés avec les plats en cache
+     * et marqués comme dégradés.
+     * @param menus Collection<Menu> menus à compléter
+     * @param platIdsByMenu Map<Integer, List<Integer>> id des plats de chaque menu
+     */
+    protected void attachPlats(Collection<Menu> menus, Map<Integer, List<Integer>> platIdsByMenu) {
+        attachPlats(menus, platIdsByMenu, null);
+    }
+
+    /**
+     * Méthode qui associe leurs plats à plusieurs menus, en priorité à partir de la copie locale des plats
+     * lue avec les menus : seuls les plats pas encore copiés, ou dont la copie est trop ancienne pour être servie,
+     * sont demandés au cache des plats. Une copie trop ancienne n'est gardée que si l'api plats est indisponible
+     * (le menu est alors dégradé). Chaque menu reçoit la date de la plus ancienne copie servie de ses plats.
+     * @param menus Collection<Menu> menus à compléter
+     * @param platIdsByMenu Map<Integer, List<Integer>> id des plats de chaque menu
+     * @param snapshots PlatSnapshots plats lus dans la copie locale (null si elle n'est pas utilisée)
+     */
+    protected void attachPlats(Collection<Menu> menus, Map<Integer, List<Integer>> platIdsByMenu, PlatSnapshots snapshots) {
+        Set<Integer> allPlatIds = new LinkedHashSet<>();
+        for (List<Integer> listPlatId : platIdsByMenu.values()) {
+            allPlatIds.addAll(listPlatId);
+        }
+
+        Map<Integer, PlatDTO> platsById = new HashMap<>();
+        Set<Integer> servedCopyIds = new HashSet<>();
+        if (snapshots != null) {
+            platsById.putAll(snapshots.platsById);
+            servedCopyIds.addAll(snapshots.syncedAtById.keySet());
+            servedCopyIds.removeAll(snapshots.staleIds);
+            allPlatIds.removeAll(servedCopyIds);
+        }
+
+        Set<Integer> unavailableIds = new HashSet<>();
+        if (!allPlatIds.isEmpty()) {
+            // les plats relus remplacent les copies trop anciennes ; celles des plats indisponibles restent servies
+            Map<Integer, PlatDTO> fetched = platCache.getAll(allPlatIds, unavailableIds);
+            platsById.putAll(fetched);
+            if (snapshots != null) {
+                for (Integer idPlat : snapshots.staleIds) {
+                    if (fetched.containsKey(idPlat)) {
+                        continue;
+                    }
+                    if (unavailableIds.contains(idPlat)) {
+                        servedCopyIds.add(idPlat);
+                    } else {
+                        // l'api plats ne connaît plus le plat
+                        platsById.remove(idPlat);
+                    }
+                }
+            }
+        }
+        for (Menu menu : menus) {
+            List<Integer> listPlatId = platIdsByMenu.getOrDefault(menu.getId(), Collections.emptyList());
+            menu.setListPlat(toPlatList(listPlatId, platsById));
+            menu.setDegraded(!unavailableIds.isEmpty() && !Collections.disjoint(listPlatId, unavailableIds));
+
+            Timestamp platsSyncedAt = null;
+            if (snapshots != null) {
+                for (Integer idPlat : listPlatId) {
+                    Timestamp syncedAt = servedCopyIds.contains(idPlat) ? snapshots.syncedAtById.get(idPlat) : null;
+                    if (syncedAt != null && (platsSyncedAt == null || syncedAt.before(platsSyncedAt))) {
+                        platsSyncedAt = syncedAt;
+                    }
+                }
+            }
+            menu.setPlatsSyncedAt(platsSyncedAt);
+        }
+    }
+
+    /**
+     * Méthode qui permet de récupérer les plats d'un menu à partir de l'api plats & utilisateurs
+     * (en passant par le cache des plats).
+     * Les plats sont récupérés à travers des DTO, dans l'ordre de la table Plat_menu.
+     * @param id_menu id du menu
+     * @return ArrayList<DTO> ArrayList contenant tous les plats
+     */
+    public ArrayList<PlatDTO> fetchPlatDTOFromApi(int id_menu) {
+        String getAllPlatQuery = "SELECT id_plat FROM Plat_menu where id_menu=?";
+        List<Integer> listPlatId = new ArrayList<>();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(getAllPlatQuery)) {
+            ps.setInt(1, id_menu);
+            ResultSet result = ps.executeQuery();
+            while (result.next()){
+                listPlatId.add(result.getInt("id_plat"));
+            }
+        } catch(SQLException e){
+            System.out.println(e.getMessage());
+        }
+
+        return toPlatList(listPlatId, platCache.getAll(listPlatId));
+    }
+
+    /**
+     * Méthode qui construit la liste des plats d'un menu dans l'ordre de la table Plat_menu.
+     * Les plats que l'api plats & utilisateurs n'a pas renvoyés sont ignorés.
+     * @param listPlatId List<Integer> id des plats du menu, dans l'ordre
+     * @param platsById Map<Integer, PlatDTO> plats récupérés, indexés par leur id
+     * @return ArrayList<PlatDTO> liste des plats du menu
+     */
+    protected ArrayList<PlatDTO> toPlatList(List<Integer> listPlatId, Map<Integer, PlatDTO> platsById) {
+        ArrayList<PlatDTO> listPlat = new ArrayList<>(listPlatId.size());
+        for (Integer idPlat : listPlatId) {
+            PlatDTO platDTO = platsById.get(idPlat);
+            if (platDTO != null) {
+                listPlat.add(platDTO);
+            }
+        }
+        return listPlat;
+    }
+
+    /**
+     * Méthode permettant de récupérer tous les menus de la base de données.
+     * Les menus et leurs id de plats sont lus avec une seule requête,
+     * puis chaque plat distinct est récupéré une seule fois.
+     * @return ArrayList<Menu> une arraylist contenant tous les menus trouvés
+     * @throws RuntimeException si il y a une erreur côté sql
+     */
+    @Override
+    public ArrayList<Menu> getAllMenu() {
+        return getAllMenu(MenuProjection.ALL);
+    }
+
+    /**
+     * Méthode permettant de récupérer tous les menus en ne lisant que les colonnes demandées.
+     * L'api plats & utilisateurs n'est appelée que si les plats sont demandés.
+     * @param projection MenuProjection champs à lire et plats à récupérer ou non
+     * @return ArrayList<Menu> une arraylist contenant tous les menus trouvés
+     * @throws RuntimeException si il y a une erreur côté sql
+     */
+    @Override
+    public ArrayList<Menu> getAllMenu(MenuProjection projection) {
+        Map<Integer, Menu> menusById = new LinkedHashMap<>();
+        Map<Integer, List<Integer>> platIdsByMenu = new HashMap<>();
+        PlatSnapshots snapshots = new PlatSnapshots();
+
+        String query = selectMenus(projection) + " ORDER BY m.id_menu";
+
+        // construction et exécution d'une requête préparée
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            // exécution de la requête
+            ResultSet result = ps.executeQuery();
+            readMenusWithPlatIds(result, menusById, platIdsByMenu, snapshots);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+
+        if (projection.isExpandPlats()) {
+            attachPlats(menusById.values(), platIdsByMenu, snapshots);
+        }
+        return new ArrayList<>(menusById.values());
+    }
+
+    /**
+     * Méthode permettant de parcourir tous les menus sans les charger tous en mémoire.
+     * Les menus sont lus par paquets dans l'ordre des id (keyset : id_menu > dernier id transmis) ;
+     * la connexion est rendue au pool après chaque paquet, avant de compléter les menus avec leurs plats
+     * et de les transmettre un par un au consommateur : un client ou une api plats lents ne la gardent pas.
+     * @param consumer Consumer<Menu> traitement appliqué à chaque menu, dans l'ordre des id
+     * @throws RuntimeException si il y a une erreur côté sql
+     */
+    @Override
+    public void streamAllMenu(Consumer<Menu> consumer) {
+        String query = selectMenus(MenuProjection.ALL) + " WHERE m.id_menu IN (SELECT id_menu FROM "
+                + "(SELECT id_menu FROM Menu WHERE id_menu > ? ORDER BY id_menu LIMIT ?) batch) ORDER BY m.id_menu";
+        int chunkSize = Math.max(1, ApiConfig.getInt("apimenus.menus.stream.chunk-size", 50));
+
+        Map<Integer, Menu> menusById = new LinkedHashMap<>();
+        Map<Integer, List<Integer>> platIdsByMenu = new HashMap<>();
+        PlatSnapshots snapshots = new PlatSnapshots();
+        int afterId = 0;
+        int nbMenus;
+
+        do {
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(query)) {
+                ps.setInt(1, afterId);
+                ps.setInt(2, chunkSize);
+                ResultSet result = ps.executeQuery();
+                readMenusWithPlatIds(result, menusById, platIdsByMenu, snapshots);
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+
+            nbMenus = menusById.size();
+            for (Integer id : menusById.keySet()) {
+                afterId = id;
+            }
+            emitMenus(menusById, platIdsByMenu, snapshots, consumer);
+        } while (nbMenus == chunkSize);
+    }
+
+    /**
+     * Méthode qui complète un paquet de menus avec leurs plats, les transmet au consommateur puis vide le paquet
+     * @param menusById Map<Integer, Menu> paquet de menus
+     * @param platIdsByMenu Map<Integer, List<Integer>> id des plats de chaque menu du paquet
+     * @param snapshots PlatSnapshots copies des plats du paquet
+     * @param consumer Consumer<Menu> traitement appliqué à chaque menu
+     */
+    private void emitMenus(Map<Integer, Menu> menusById, Map<Integer, List<Integer>> platIdsByMenu,
+                           PlatSnapshots snapshots, Consumer<Menu> consumer) {
+        attachPlats(menusById.values(), platIdsByMenu, snapshots);
+        for (Menu menu : menusById.values()) {
+            consumer.accept(menu);
+        }
+        menusById.clear();
+        platIdsByMenu.clear();
+        snapshots.platsById.clear();
+        snapshots.syncedAtById.clear();
+        snapshots.staleIds.clear();
+    }
+
+    /**
+     * Méthode permettant de récupérer une page de menus (pagination par curseur).
+     * Les filtres, le tri et la position de départ sont appliqués en sql :
+     * seuls les menus de la page sont lus et complétés avec leurs plats.
+     * @param query MenuQuery taille de page, curseur, tri et filtres
+     * @return MenuPageDTO les menus de la page et le curseur de la page suivante
+     * @throws RuntimeException si il y a une erreur côté sql
+     */
+    @Override
+    public MenuPageDTO getMenuPage(MenuQuery query) {
+        return getMenuPage(query, MenuProjection.ALL);
+    }
+
+    /**
+     * Méthode permettant de récupérer une page de menus en ne lisant que les colonnes demandées
+     * (plus la colonne de tri, nécessaire au curseur de la page suivante).
+     * L'api plats & utilisateurs n'est appelée que si les plats sont demandés.
+     * @param query MenuQuery taille de page, curseur, tri et filtres
+     * @param projection MenuProjection champs à lire et plats à récupérer ou non
+     * @return MenuPageDTO les menus de la page et le curseur de la page suivante
+     * @throws RuntimeException si il y a une erreur côté sql
+     */
+    @Override
+    public MenuPageDTO getMenuPage(MenuQuery query, MenuProjection projection) {
+        MenuQuery.Sort sort = query.getSort();
+        String direction = query.isDescending() ? " DESC" : " ASC";
+        String comparator = query.isDescending() ? " < ?" : " > ?";
+        List<Object> params = new ArrayList<>();
+
+        // filtres
+        StringBuilder where = new StringBuilder(" WHERE 1=1");
+        if (query.getAuthor() != null) {
+            where.append(" AND author = ?");
+            params.add(query.getAuthor());
+        }
+        if (query.getMinPrice() != null) {
+            where.append(" AND price >= ?");
+            params.add(query.getMinPrice());
+        }
+        if (query.getMaxPrice() != null) {
+            where.append(" AND price <= ?");
+            params.add(query.getMaxPrice());
+        }
+        if (query.getCreatedAfter() != null) {
+            where.append(" AND creationDate >= ?");
+            params.add(query.getCreatedAfter());
+        }
+        if (query.getCreatedBefore() != null) {
+            where.append(" AND creationDate < ?");
+            params.add(query.getCreatedBefore());
+        }
+
+        // position après le dernier menu de la page précédente (id_menu départage les égalités) ;
+        // la valeur de tri est relue dans la ligne de ce menu, la valeur du curseur (un prix FLOAT converti
+        // en texte ne redonne pas la valeur enregistrée) ne sert que si le menu a été supprimé entre-temps
+        if (query.getAfterValue() != null) {
+            if (sort == MenuQuery.Sort.ID) {
+                where.append(" AND id_menu").append(comparator);
+            } else {
+                String afterValue = "COALESCE((SELECT " + sort.getColumn() + " FROM Menu WHERE id_menu = ?), ?)";
+                where.append(" AND (").append(sort.getColumn()).append(comparator.replace("?", afterValue))
+                        .append(" OR (").append(sort.getColumn()).append(" = ").append(afterValue)
+                        .append(" AND id_menu").append(comparator).append("))");
+                Object cursorValue = toSortValue(sort, query.getAfterValue());
+                for (int i = 0; i < 2; ++i) {
+                    params.add(query.getAfterId());
+                    params.add(cursorValue);
+                }
+            }
+            params.add(query.getAfterId());
+        }
+
+        String innerOrder = sort == MenuQuery.Sort.ID ? " ORDER BY id_menu" + direction
+                : " ORDER BY " + sort.getColumn() + direction + ", id_menu" + direction;
+        String outerOrder = sort == MenuQuery.Sort.ID ? " ORDER BY m.id_menu" + direction
+                : " ORDER BY m." + sort.getColumn() + direction + ", m.id_menu" + direction;
+
+        // un menu de plus que la taille de page est lu pour savoir s'il existe une page suivante ;
+        // la page est d'abord sélectionnée dans une sous-requête, puis jointe à Plat_menu si les plats sont demandés
+        String pageQuery = "SELECT " + projection.toColumns("", sort.getColumn()) + " FROM Menu"
+                + where + innerOrder + " LIMIT ?";
+        params.add(query.getLimit() + 1);
+        String sql = "SELECT " + projection.toColumns("m", sort.getColumn())
+                + (projection.isExpandPlats() ? platColumns() + " FROM (" + pageQuery + ") m" + platJoins() : " FROM (" + pageQuery + ") m")
+                + outerOrder;
+
+        Map<Integer, Menu> menusById = new LinkedHashMap<>();
+        Map<Integer, List<Integer>> platIdsByMenu = new HashMap<>();
+        PlatSnapshots snapshots = new PlatSnapshots();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.size(); ++i) {
+                ps.setObject(i + 1, params.get(i));
+            }
+            ResultSet result = ps.executeQuery();
+            readMenusWithPlatIds(result, menusById, platIdsByMenu, snapshots);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+
+        List<Menu> items = new ArrayList<>(menusById.values());
+        MenuPageDTO page = new MenuPageDTO();
+        page.setLimit(query.getLimit());
+        page.setHasMore(items.size() > query.getLimit());
+        if (page.isHasMore()) {
+            items = new ArrayList<>(items.subList(0, query.getLimit()));
+            page.setNext(query.encodeCursor(items.get(items.size() - 1)));
+        }
+
+        if (projection.isExpandPlats()) {
+            attachPlats(items, platIdsByMenu, snapshots);
+        }
+        page.setItems(items);
+        return page;
+    }
+
+    /**
+     * Méthode qui convertit la valeur de tri d'un curseur dans le type de la colonne
+     * @param sort MenuQuery.Sort colonne de tri
+     * @param value String valeur lue dans le curseur
+     * @return Object valeur à passer à la requête préparée
+     */
+    private Object toSortValue(MenuQuery.Sort sort, String value) {
+        switch (sort) {
+            case PRICE:
+                return Float.parseFloat(value);
+            case DATE:
+                return new Timestamp(Long.parseLong(value));
+            case TITLE:
+                return value;
+            default:
+                return Integer.parseInt(value);
+        }
+    }
+
+    /**
+     * Méthode permettant de récupérer la version d'un menu sans le lire entièrement
+     * @param id_menu int id du menu
+     * @return Long version du menu, null si le menu n'existe pas
+     * @throws RuntimeException si il y a une erreur côté sql
+     */
+    @Override
+    public Long getMenuVersion(int id_menu) {
+        String query = "SELECT version FROM Menu WHERE id_menu=?";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            ps.setInt(1, id_menu);
+            ResultSet result = ps.executeQuery();
+            return result.next() ? result.getLong("version") : null;
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Méthode permettant de récupérer une version de l'ensemble des menus : la position de la dernière
+     * modification du journal Menu_change (lecture de la clé primaire, sans parcourir les menus).
+     * Toute création, modification ou suppression de menu, et tout changement d'un plat de la copie locale,
+     * y ajoute une entrée.
+     * @return String version de la liste des menus
+     * @throws RuntimeException si il y a une erreur côté sql
+     */
+    @Override
+    public String getMenusVersion() {
+        return String.valueOf(getLastChange());
+    }
+
+    /**
+     * Méthode qui indique si les plats renvoyés avec les menus ne changent qu'avec la version des menus :
+     * c'est le cas quand ils sont lus dans la copie locale, dont la synchronisation incrémente la version
+     * des menus d'un plat modifié
+     * @return boolean true si la copie locale des plats est utilisée
+     */
+    @Override
+    public boolean isPlatDataVersioned() {
+        return platSnapshots;
+    }
+
+    /**
+     * Méthode qui applique les évolutions du schéma décrites dans db/schema.sql.
+     * Les instructions sont idempotentes : une instruction en erreur est signalée puis ignorée.
+     * @param dataSource DataSource pool de connexions à la base de données
+     */
+    public static void applySchema(DataSource dataSource) {
+        String script;
+        try (InputStream in = MenuRepositoryMariadb.class.getClassLoader().getResourceAsStream("db/schema.sql")) {
+            if (in == null) {
+                return;
+            }
+            script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            return;
+        }
+
+        try (Connection conn = dataSource.getConnection();
+             Statement statement = conn.createStatement()) {
+            for (String instruction : script.replaceAll("(?m)^--.*$", "").split(";")) {
+                if (instruction.isBlank()) {
+                    continue;
+                }
+                try {
+                    statement.execute(instruction.trim());
+                } catch (SQLException e) {
+                    System.err.println("Évolution du schéma ignorée : " + e.getMessage());
+                }
+            }
         } catch (SQLException e) {
             System.err.println(e.getMessage());
         }
     }
 
     /**
-     * Méthode permettant de récupérer un menu grâce à son id
-     * @param id int id du menu
-     * @return Menu menu trouvé, si non une exception sql
+     * Méthode permettant de mettre à jours un menu existant
+     * @param id          id de l'objet Menu à mettre à jours
+     * @param title       String nouveau titre
+     * @param description String nouvelle description
+     * @param price       float nouveau prix
+     * @return true si la mise à jours a été faite, false si non
+     * @throws RuntimeException si il y a une erreur côté sql
+     */
+    @Override
+    public boolean updateMenu(int id, String author, String title, String description, float price) {
+        String query = "UPDATE Menu SET author=?, title=?, description=?, price=?, version = version + 1 where id_menu=?";
+
+        // la modification et son entrée dans le journal sont écrites dans une même transaction
+        return inTransaction(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(query)) {
+                // Définition des paramètres de la requête SQL
+                ps.setString(1, author);
+                ps.setString(2, title);
+                ps.setString(3, description);
+                ps.setFloat(4, price);
+                ps.setInt(5, id);
+
+                // exécution de la requête
+                if (ps.executeUpdate() == 0) {
+                    return false;
+                }
+            }
+            recordChanges(conn, Collections.singletonList(id), MenuChangeDTO.UPSERT);
+            return true;
+        });
+    }
+
+    /**
+     * Méthode permettant de créer un menu avec ses plats.
+     * Les prix des plats sont récupérés en une fois, puis le menu (avec son prix total)
+     * et toutes ses associations sont insérés dans une même transaction.
+     * @param title       String titre du menu à créer
+     * @param description String description du menu à créer
+     * @param listPlat    List<Integer> list de plats à associer (peut être vide)
+     * @return true si la création s'est bien déroulée, false si non
+     * @throws RuntimeException si il y a une erreur côté sql
+     */
+    @Override
+    public boolean createMenu(String author, String title, String description, List<Integer> listPlat) {
+        String query = "INSERT INTO Menu (author, title, description, price) VALUES (?, ?, ?, ?)";
+        List<Integer> listPlatId = listPlat == null ? Collections.emptyList() : listPlat;
+
+        // récupération des prix de tous les plats (avant d'ouvrir la transaction)
+        Float totalPrice = sumPlatPrices(listPlatId);
+        if (totalPrice == null) {
+            return false;
+        }
+
+        int[] createdIdMenu = new int[1];
+        boolean created = inTransaction(conn -> {
+            int nbRowModified;
+
+            // construction et exécution d'une requête préparée
+            try (PreparedStatement ps = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+                // Définition des paramètres de la requête SQL
+                ps.setString(1, author);
+                ps.setString(2, title);
+                ps.setString(3, description);
+                ps.setFloat(4, totalPrice);
+
+                // exécution de la requête
+                nbRowModified = ps.executeUpdate();
+
+                try (ResultSet rs = ps.getGeneratedKeys()) {
+                    if(rs.next()){
+                        createdIdMenu[0] = rs.getInt(1);
+                    }
+                }
+            }
+
+            insertPlatsIntoMenu(conn, createdIdMenu[0], listPlatId);
+            recordChanges(conn, Collections.singletonList(createdIdMenu[0]), MenuChangeDTO.UPSERT);
+            return (nbRowModified != 0);
+        });
+
+        // les associations validées sont reportées dans l'index
+        if (created && platMenuIndex != null) {
+            platMenuIndex.addPlats(createdIdMenu[0], toIntArray(listPlatId));
+        }
+        return created;
+    }
+
+    /**
+     * Méthode permettant de créer plusieurs menus avec leurs plats dans une même transaction (import en masse).
+     * Seuls les prix des plats absents de platPrices sont demandés, en une fois, à l'api plats ;
+     * les menus sont insérés par lot (executeBatch) et leurs associations par requêtes INSERT de plusieurs lignes.
+     * @param menus List<MenuCreationRequest> menus à créer
+     * @param platPrices Map<Integer, Float> prix des plats déjà connus, complétée avec les prix récupérés
+     * @return List<Integer> id de chaque menu créé, dans l'ordre de menus (null si un de ses plats est introuvable)
+     * @throws RuntimeException si il y a une erreur côté sql (aucun menu du lot n'est alors créé)
+     */
+    @Override
+    public List<Integer> createMenus(List<MenuCreationRequest> menus, Map<Integer, Float> platPrices) {
+        String query = "INSERT INTO Menu (author, title, description, price) VALUES (?, ?, ?, ?)";
+
+        // récupération des prix des plats pas encore connus (avant d'ouvrir la transaction)
+        Set<Integer> unknownIds = new LinkedHashSet<>();
+        for (MenuCreationRequest menu : menus) {
+            for (Integer idPlat : platIdsOf(menu)) {
+                if (!platPrices.containsKey(idPlat)) {
+                    unknownIds.add(idPlat);
+                }
+            }
+        }
+        if (!unknownIds.isEmpty()) {
+            for (PlatDTO platDTO : platApi.fetchPlats(new ArrayList<>(unknownIds)).values()) {
+                platPrices.put(platDTO.getId(), platDTO.getPrice());
+                platCache.put(platDTO);
+            }
+        }
+
+        // prix total de chaque menu ; un menu dont un plat est introuvable n'est pas créé
+        List<Integer> accepted = new ArrayList<>();
+        List<Float> totalPrices = new ArrayList<>();
+        for (int i = 0; i < menus.size(); ++i) {
+            Float totalPrice = 0f;
+            for (Integer idPlat : platIdsOf(menus.get(i))) {
+                Float price = platPrices.get(idPlat);
+                if (price == null) {
+                    totalPrice = null;
+                    break;
+                }
+                totalPrice += price;
+            }
+            if (totalPrice != null) {
+                accepted.add(i);
+                totalPrices.add(totalPrice);
+            }
+        }
+
+        List<Integer> createdIds = new ArrayList<>(Collections.nCopies(menus.size(), (Integer) null));
+        if (accepted.isEmpty()) {
+            return createdIds;
+        }
+
+        inTransaction(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+                for (int k = 0; k < accepted.size(); ++k) {
+                    MenuCreationRequest menu = menus.get(accepted.get(k));
+                    ps.setString(1, menu.getAuthor());
+                    ps.setString(2, menu.getTitle());
+                    ps.setString(3, menu.getDescription());
+                    ps.setFloat(4, totalPrices.get(k));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                // une clé générée par menu inséré, dans l'ordre du lot
+                try (ResultSet rs = ps.getGeneratedKeys()) {
+                    int k = 0;
+                    while (rs.next() && k < accepted.size()) {
+                        createdIds.set(accepted.get(k++), rs.getInt(1));
+                    }
+                    if (k != accepted.size()) {
+                        throw new SQLException("Clés générées manquantes : " + k + " sur " + accepted.size());
+                    }
+                }
+            }
+
+            // associations de tous les menus du lot
+            List<int[]> rows = new ArrayList<>();
+            List<Integer> insertedIds = new ArrayList<>(accepted.size());
+            for (Integer index : accepted) {
+                insertedIds.add(createdIds.get(index));
+                for (Integer idPlat : platIdsOf(menus.get(index))) {
+                    rows.add(new int[]{createdIds.get(index), idPlat});
+                }
+            }
+            insertPlatMenuRows(conn, rows);
+            recordChanges(conn, insertedIds, MenuChangeDTO.UPSERT);
+            return createdIds;
+        });
+
+        if (platMenuIndex != null) {
+            for (Integer index : accepted) {
+                platMenuIndex.addPlats(createdIds.get(index), toIntArray(platIdsOf(menus.get(index))));
+            }
+        }
+        return createdIds;
+    }
+
+    /**
+     * Méthode qui retourne les id des plats d'un menu à créer
+     * @param menu MenuCreationRequest menu à créer
+     * @return List<Integer> id des plats (liste vide si aucun)
+     */
+    private static List<Integer> platIdsOf(MenuCreationRequest menu) {
+        return menu.getListPlat() == null ? Collections.emptyList() : menu.getListPlat();
+    }
+
+    /**
+     * Méthode permettant de supprimer un menu de la base de données
+     * @param id int référence du menu à supprimer
+     * @return true si la suppression s'est bien déroulée, false si non
+     * @throws RuntimeException si il y a une erreur côté sql
+     */
+    @Override
+    public boolean deleteMenu(int id) {
+        String query = "DELETE FROM Menu WHERE id_menu=?";
+
+        // la suppression et son entrée dans le journal sont écrites dans une même transaction
+        boolean deleted = inTransaction(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(query)) {
+                // Définition du paramètre de la requête SQL
+                ps.setInt(1, id);
+
+                // exécution de la requête
+                if (ps.executeUpdate() == 0) {
+                    return false;
+                }
+            }
+            recordChanges(conn, Collections.singletonList(id), MenuChangeDTO.DELETE);
+            return true;
+        });
+
+        if (deleted && platMenuIndex != null) {
+            platMenuIndex.removeMenu(id);
+        }
+        return deleted;
+    }
+
+    /**
+     * Méthode permettant de récupérer tous les plats associés à un menu
+     * (dans l'index des associations s'il est chargé, sans requête sql)
+     * @param id_menu int id du menu
+     * @return true si l'opération s'est bien passée, false si non
+     * @throws RuntimeException si il y a une erreur côté sql
+     */
+    @Override
+    public ArrayList<MenuPlatDTO> getAllPlatFromMenu(int id_menu) {
+        ArrayList<MenuPlatDTO> listPlats;
+
+        if (platMenuIndex != null && platMenuIndex.isLoaded()) {
+            int[] platIds = platMenuIndex.getPlatIds(id_menu);
+            listPlats = new ArrayList<>(platIds.length);
+            for (int idPlat : platIds) {
+                MenuPlatDTO courant = new MenuPlatDTO();
+                courant.setId_menu(id_menu);
+                courant.setId_plat(idPlat);
+                listPlats.add(courant);
+            }
+            return listPlats;
+        }
+
+        String query = "SELECT * FROM Plat_menu where id_menu=?";
+
+        // construction et exécution d'une requête préparée
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            // Définition du paramètre de la requête SQL
+            ps.setInt(1, id_menu);
+
+
+            // exécution de la requête
+            ResultSet result = ps.executeQuery();
+
+            listPlats = new ArrayList<>();
+
+            // récupération du premier (et seul) tuple résultat
+            while (result.next()) {
+                int id = result.getInt("id_menu");
+                int id_plat = result.getInt("id_plat");
+
+                // Création du DTO courant
+                MenuPlatDTO courant = new MenuPlatDTO();
+                courant.setId_menu(id);
+                courant.setId_plat(id_plat);
+
+                listPlats.add(courant);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        return listPlats;
+    }
+
+    /**
+     * Méthode qui permet d'associer un plat à un menu.
+     * L'association et la mise à jour du prix du menu sont faites dans une même transaction,
+     * le prix étant augmenté directement en base (price = price + ?).
+     * @param id_menu int id du menu
+     * @param id_plat int id du plat à associer
+     * @return true si l'association s'est effectuée, false si le menu n'existe pas (ou n'a pas ce plat)
+     * @throws PlatNotFoundException si l'api plats ne connaît pas le plat
+     * @throws PlatApiUnavailableException si l'api plats est indisponible
+     * @throws RuntimeException si il y a une erreur côté sql
+     */
+    @Override
+    public boolean addPlatToMenu(int id_menu, int id_plat) {
+        String queryAddPlat = "INSERT INTO Plat_menu (id_menu, id_plat) VALUES (?, ?)";
+        String queryUpdatePrice = "UPDATE Menu SET price = price + ?, version = version + 1 WHERE id_menu=?";
+
+        // récupération du prix du plat auprès de l'api plats & utilisateurs (avant d'ouvrir la transaction)
+        MenuUpdatePriceDTO parsedPlatPrice = platApi.fetchPlatPrice(id_plat);
+        if (parsedPlatPrice == null) {
+            throw new PlatNotFoundException(id_plat);
+        }
+
+        boolean added = inTransaction(conn -> {
+            try (PreparedStatement psAddPlat = conn.prepareStatement(queryAddPlat);
+                 PreparedStatement psUpdatePrice = conn.prepareStatement(queryUpdatePrice)) {
+                // exécution de la requête qui associe le plat au menu
+                psAddPlat.setInt(1, id_menu);
+                psAddPlat.setInt(2, id_plat);
+                if (psAddPlat.executeUpdate() == 0) {
+                    return false;
+                }
+
+                // le prix n'est modifié que si l'association a bien été créée
+                psUpdatePrice.setFloat(1, parsedPlatPrice.getPrice());
+                psUpdatePrice.setInt(2, id_menu);
+                if (psUpdatePrice.executeUpdate() == 0) {
+                    conn.rollback();
+                    return false;
+                }
+            }
+            recordChanges(conn, Collections.singletonList(id_menu), MenuChangeDTO.UPSERT);
+            return true;
+        });
+
+        // l'association validée est reportée dans l'index
+        if (added && platMenuIndex != null) {
+            platMenuIndex.addPlats(id_menu, new int[]{id_plat});
+        }
+        return added;
+    }
+
+    /**
+     * Méthode permettant d'associers plusieurs plats à un menu.
+     * Les prix des plats sont récupérés en une fois, puis toutes les associations
+     * et la somme des prix sont écrites dans une même transaction.
+     * @param id_menu int id du menu
+     * @param listPlatId List<Integer> liste des id à associer au menu
+     * @return true si les associations se sont bien déroulées, false si non
+     * @throws RuntimeException si il y a une erreur côté sql
+     */
+    @Override
+    public boolean addAllPlatToMenu(int id_menu, List<Integer> listPlatId) {
+        String queryUpdatePrice = "UPDATE Menu SET price = price + ?, version = version + 1 WHERE id_menu=?";
+
+        if (listPlatId == null || listPlatId.isEmpty()) {
+            return true;
+        }
+
+        // récupération des prix de tous les plats (avant d'ouvrir la transaction)
+        Float totalPrice = sumPlatPrices(listPlatId);
+        if (totalPrice == null) {
+            return false;
+        }
+
+        boolean added = inTransaction(conn -> {
+            insertPlatsIntoMenu(conn, id_menu, listPlatId);
+
+            try (PreparedStatement psUpdatePrice = conn.prepareStatement(queryUpdatePrice)) {
+                psUpdatePrice.setFloat(1, totalPrice);
+                psUpdatePrice.setInt(2, id_menu);
+                if (psUpdatePrice.executeUpdate() == 0) {
+                    // le menu n'existe pas : aucune association n'est gardée
+                    conn.rollback();
+                    return false;
+                }
+            }
+            recordChanges(conn, Collections.singletonList(id_menu), MenuChangeDTO.UPSERT);
+            return true;
+        });
+
+        if (added && platMenuIndex != null) {
+            platMenuIndex.addPlats(id_menu, toIntArray(listPlatId));
+        }
+        return added;
+    }
+
+    /**
+     * Méthode qui calcule la somme des prix de plusieurs plats, récupérés en une fois auprès de l'api plats.
+     * Un plat présent plusieurs fois dans la liste est compté plusieurs fois.
+     * @param listPlatId List<Integer> id des plats
+     * @return Float somme des prix, null si un des plats n'a pas pu être récupéré
+     */
+    protected Float sumPlatPrices(List<Integer> listPlatId) {
+        if (listPlatId.isEmpty()) {
+            return 0f;
+        }
+
+        Map<Integer, PlatDTO> platsById = platApi.fetchPlats(listPlatId);
+        double totalPrice = 0;
+        for (Integer idPlat : listPlatId) {
+            PlatDTO platDTO = platsById.get(idPlat);
+            if (platDTO == null) {
+                return null;
+            }
+            totalPrice += platDTO.getPrice();
+        }
+        // les plats lus à l'instant rafraîchissent le cache
+        for (PlatDTO platDTO : platsById.values()) {
+            platCache.put(platDTO);
+        }
+        return (float) totalPrice;
+    }
+
+    /**
+     * Méthode qui insère les associations d'un menu avec plusieurs plats,
+     * par requêtes INSERT de plusieurs lignes
+     * @param conn Connection connexion (dans une transaction)
+     * @param id_menu int id du menu
+     * @param listPlatId List<Integer> id des plats à associer
+     * @return int nombre d'associations insérées
+     * @throws SQLException si il y a une erreur côté sql
+     */
+    protected int insertPlatsIntoMenu(Connection conn, int id_menu, List<Integer> listPlatId) throws SQLException {
+        List<int[]> rows = new ArrayList<>(listPlatId.size());
+        for (Integer idPlat : listPlatId) {
+            rows.add(new int[]{id_menu, idPlat});
+        }
+        return insertPlatMenuRows(conn, rows);
+    }
+
+    /**
+     * Méthode qui insère des associations menu-plat, éventuellement de plusieurs menus,
+     * par requêtes INSERT de plusieurs lignes
+     * @param conn Connection connexion (dans une transaction)
+     * @param rows List<int[]> associations à insérer : {id_menu, id_plat}
+     * @return int nombre d'associations insérées
+     * @throws SQLException si il y a une erreur côté sql
+     */
+    protected int insertPlatMenuRows(Connection conn, List<int[]> rows) throws SQLException {
+        int nbRowModified = 0;
+        for (int from = 0; from < rows.size(); from += MAX_ROWS_PER_INSERT) {
+            List<int[]> chunk = rows.subList(from, Math.min(from + MAX_ROWS_PER_INSERT, rows.size()));
+
+            StringBuilder query = new StringBuilder("INSERT INTO Plat_menu (id_menu, id_plat) VALUES ");
+            for (int i = 0; i < chunk.size(); ++i) {
+                query.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+            }
+
+            try (PreparedStatement ps = conn.prepareStatement(query.toString())) {
+                int index = 1;
+                for (int[] row : chunk) {
+                    ps.setInt(index++, row[0]);
+                    ps.setInt(index++, row[1]);
+                }
+                nbRowModified += ps.executeUpdate();
+            }
+        }
+        return nbRowModified;
+    }
+
+    /**
+     * Méthode qui répercute le changement de prix d'un plat sur tous les menus qui le contiennent.
+     * Les prix des menus sont modifiés par une seule requête ensembliste (UPDATE joint à Plat_menu) :
+     * chaque menu est augmenté de la différence de prix multipliée par le nombre de fois où il contient le plat.
+     * Le plat est retiré du cache des plats et sa copie locale prend le nouveau prix.
+     * Les menus modifiés sont lus dans l'index des associations quand il est chargé (relus dans Plat_menu
+     * si leur nombre ne correspond pas à celui des menus repricés).
+     * @param id_plat int id du plat
+     * @param oldPrice Float ancien prix du plat, null pour utiliser le prix en cache ou dans la copie locale
+     * @param newPrice float nouveau prix du plat
+     * @return List<Integer> id des menus modifiés, null si l'ancien prix est inconnu
      * @throws RuntimeException si il y a une erreur côté sql
      */
     @Override
-    public Menu getMenu(int id) {
+    public List<Integer> repricePlat(int id_plat, Float oldPrice, float newPrice) {
+        String queryMenus = "SELECT DISTINCT id_menu FROM Plat_menu WHERE id_plat=?";
+        String queryReprice = "UPDATE Menu m JOIN (SELECT id_menu, COUNT(*) AS nb FROM Plat_menu WHERE id_plat=? GROUP BY id_menu) pm "
+                + "ON pm.id_menu = m.id_menu SET m.price = m.price + ? * pm.nb, m.version = m.version + 1";
+        String querySnapshot = "UPDATE Plat_snapshot SET price=? WHERE id_plat=? AND found";
+
+        if (oldPrice == null) {
+            PlatDTO cached = platCache.peek(id_plat);
+            oldPrice = cached != null ? Float.valueOf(cached.getPrice()) : getSnapshotPrice(id_plat);
+            if (oldPrice == null) {
+                return null;
+            }
+        }
+        float delta = newPrice - oldPrice;
+        platCache.invalidate(id_plat);
+        if (delta == 0) {
+            return Collections.emptyList();
+        }
 
-        Menu selectedMenu = null;
+        return inTransaction(conn -> {
+            if (platSnapshots) {
+                try (PreparedStatement ps = conn.prepareStatement(querySnapshot)) {
+                    ps.setFloat(1, newPrice);
+                    ps.setInt(2, id_plat);
+                    ps.executeUpdate();
+                }
+            }
 
-        String query = "SELECT * FROM Menu WHERE id_menu=?";
+            List<Integer> menuIds = getMenuIdsOfPlats(conn, Collections.singletonList(id_plat));
+            int nbMenus;
+            try (PreparedStatement ps = conn.prepareStatement(queryReprice)) {
+                ps.setInt(1, id_plat);
+                ps.setFloat(2, delta);
+                nbMenus = ps.executeUpdate();
+            }
+            if (nbMenus != menuIds.size()) {
+                // l'index n'a pas encore reçu une association faite par une autre instance : les menus sont relus
+                menuIds = new ArrayList<>();
+                try (PreparedStatement ps = conn.prepareStatement(queryMenus)) {
+                    ps.setInt(1, id_plat);
+                    ResultSet result = ps.executeQuery();
+                    while (result.next()) {
+                        menuIds.add(result.getInt("id_menu"));
+                    }
+                }
+            }
+            if (!menuIds.isEmpty()) {
+                recordChanges(conn, menuIds, MenuChangeDTO.UPSERT);
+            }
+            return menuIds;
+        });
+    }
 
-        // construction et exécution d'une requête préparée
-        try (PreparedStatement ps = dbConnection.prepareStatement(query)) {
-            ps.setString(1, String.valueOf(id));
+    /**
+     * Méthode qui récupère le prix d'un plat dans sa copie locale
+     * @param id_plat int id du plat
+     * @return Float prix copié, null si le plat n'a pas de copie (ou si la copie locale n'est pas utilisée)
+     * @throws RuntimeException si il y a une erreur côté sql
+     */
+    protected Float getSnapshotPrice(int id_plat) {
+        if (!platSnapshots) {
+            return null;
+        }
+        String query = "SELECT price FROM Plat_snapshot WHERE id_plat=? AND found";
 
-            // exécution de la requête
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            ps.setInt(1, id_plat);
             ResultSet result = ps.executeQuery();
+            return result.next() ? result.getFloat("price") : null;
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-            // récupération du premier (et seul) tuple résultat
-            // (si la référence du menu est valide)
-            if (result.next()) {
-                /* Récupération des attributs dans les variables appropriées*/
-                String author = result.getString("author");
-                String title = result.getString("title");
-                String description = result.getString("description");
-                float price = result.getFloat("price");
-                Timestamp creationDate = result.getTimestamp("creationDate");
-
-                // création et initialisation de l'objet Menu avec les variables
-                selectedMenu = new Menu(id, author, title, description, price, creationDate);
-                ArrayList<PlatDTO> listPlat = fetchPlatDTOFromApi(selectedMenu.id);
-                selectedMenu.setListPlat(listPlat);
+    /**
+     * Méthode qui rafraîchit un lot de plats de la copie locale Plat_snapshot auprès de l'api plats :
+     * d'abord les plats des menus qui n'ont pas encore de copie, puis les copies plus anciennes que maxAgeSeconds
+     * (les plus anciennes en premier). Les plats du lot sont demandés en une fois à l'api plats ;
+     * un plat qu'elle ne connaît plus est gardé avec found = 0 pour ne plus être demandé à chaque lecture.
+     * Les menus qui contiennent un plat dont la copie a changé (ou vient d'être créée) changent de version
+     * et sont ajoutés au journal des modifications, dans la même transaction, pour que leur JSON
+     * soit oublié des caches et que leur ETag change.
+     * @param limit int nombre maximum de plats rafraîchis
+     * @param maxAgeSeconds long âge (secondes) au-delà duquel une copie est rafraîchie
+     * @return int nombre de plats rafraîchis, inférieur à limit s'il ne reste plus de plat à rafraîchir
+     * @throws RuntimeException si il y a une erreur côté sql
+     * @throws PlatApiUnavailableException si l'api plats est indisponible
+     */
+    @Override
+    public int syncPlatSnapshots(int limit, long maxAgeSeconds) {
+        String query = "SELECT pm.id_plat, MIN(ps.synced_at) AS synced_at FROM Plat_menu pm"
+                + " LEFT JOIN Plat_snapshot ps ON ps.id_plat = pm.id_plat"
+                + " WHERE ps.id_plat IS NULL OR ps.synced_at < ? GROUP BY pm.id_plat ORDER BY synced_at LIMIT ?";
+        String queryUpsert = "INSERT INTO Plat_snapshot (id_plat, name, description, price, found, synced_at) "
+                + "VALUES (?, ?, ?, ?, ?, CURRENT_TIMESTAMP) ON DUPLICATE KEY UPDATE name = VALUES(name), "
+                + "description = VALUES(description), price = VALUES(price), found = VALUES(found), synced_at = VALUES(synced_at)";
+
+        // plats sans copie (synced_at null, en premier) ou dont la copie est trop ancienne
+        List<Integer> platIds = new ArrayList<>();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            ps.setTimestamp(1, new Timestamp(System.currentTimeMillis() - maxAgeSeconds * 1000));
+            ps.setInt(2, limit);
+            ResultSet result = ps.executeQuery();
+            while (result.next()) {
+                platIds.add(result.getInt("id_plat"));
             }
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
-        return selectedMenu;
+        if (platIds.isEmpty()) {
+            return 0;
+        }
+
+        // les plats que l'api plats n'a pas pu renvoyer (erreur) ne sont pas modifiés
+        Set<Integer> notFoundIds = ConcurrentHashMap.newKeySet();
+        Map<Integer, PlatDTO> platsById = platApi.fetchPlats(platIds, notFoundIds);
+        for (PlatDTO platDTO : platsById.values()) {
+            platCache.put(platDTO);
+        }
+        if (platsById.isEmpty() && notFoundIds.isEmpty()) {
+            return 0;
+        }
+
+        List<Integer> syncedIds = new ArrayList<>(platsById.keySet());
+        syncedIds.addAll(notFoundIds);
+        inTransaction(conn -> {
+            // copies avant rafraîchissement, pour ne signaler que les plats qui ont vraiment changé ;
+            // un plat copié pour la première fois était lu dans l'api plats : il est signalé aussi
+            Map<Integer, String> previous = readSnapshotStates(conn, syncedIds);
+
+            List<Integer> changedIds = new ArrayList<>();
+            try (PreparedStatement ps = conn.prepareStatement(queryUpsert)) {
+                for (PlatDTO platDTO : platsById.values()) {
+                    ps.setInt(1, platDTO.getId());
+                    ps.setString(2, platDTO.getName());
+                    ps.setString(3, platDTO.getDescription());
+                    ps.setFloat(4, platDTO.getPrice());
+                    ps.setBoolean(5, true);
+                    ps.addBatch();
+                    String state = snapshotState(platDTO.getName(), platDTO.getDescription(), platDTO.getPrice(), true);
+                    if (!state.equals(previous.get(platDTO.getId()))) {
+                        changedIds.add(platDTO.getId());
+                    }
+                }
+                for (Integer idPlat : notFoundIds) {
+                    ps.setInt(1, idPlat);
+                    ps.setNull(2, Types.VARCHAR);
+                    ps.setNull(3, Types.VARCHAR);
+                    ps.setFloat(4, 0);
+                    ps.setBoolean(5, false);
+                    ps.addBatch();
+                    if (!snapshotState(null, null, 0, false).equals(previous.get(idPlat))) {
+                        changedIds.add(idPlat);
+                    }
+                }
+                ps.executeBatch();
+            }
+
+            // les menus qui affichent un plat modifié changent de version (leur ETag suit leurs plats)
+            // et sont signalés : leur JSON est oublié par toutes les instances
+            if (!changedIds.isEmpty()) {
+                List<Integer> menuIds = getMenuIdsOfPlats(conn, changedIds);
+                if (!menuIds.isEmpty()) {
+                    incrementVersions(conn, menuIds);
+                    recordChanges(conn, menuIds, MenuChangeDTO.UPSERT);
+                }
+            }
+            return null;
+        });
+        return platsById.size() + notFoundIds.size();
     }
 
     /**
-     * Méthode qui permet de récupérer les plats d'un menu à partir de l'api plats & utilisateurs.
-     * Les plats sont récupérés à travers des DTO.
-     * @param id_menu id du menu
-     * @return ArrayList<DTO> ArrayList contenant tous les plats
+     * Méthode qui incrémente la version de plusieurs menus (par paquets de MAX_ROWS_PER_INSERT id)
+     * @param conn Connection connexion (dans une transaction)
+     * @param ids List<Integer> id des menus
+     * @throws SQLException si il y a une erreur côté sql
      */
-    public ArrayList<PlatDTO> fetchPlatDTOFromApi(int id_menu) {
-        String getAllPlatQuery = "SELECT id_plat FROM Plat_menu where id_menu=?";
-        ArrayList<PlatDTO> listMenuPlatDTO = new ArrayList<>();
-        int nbRowModified;
-        try(PreparedStatement ps = dbConnection.prepareStatement(getAllPlatQuery)) {
-            ps.setInt(1, id_menu);
-            ResultSet listPlatId = ps.executeQuery();
-
-            // Création du client
-            Client client = ClientBuilder.newClient();
-            WebTarget apiPlatResource  = client.target(apiPlatUrl);
-
-            /*
-            * Tant que il y a des id de plats,
-            * On va récupérer les informations sur ces plats
-            * grâce à l'api plats & utilisateurs et on va
-            * stocker ces informations sur un DTO
-            */
-            while (listPlatId.next()){
-                int idPlat = listPlatId.getInt("id_plat");
-                WebTarget apiPlatEndpoint = apiPlatResource.path("plats/" + idPlat);
-                Response response = apiPlatEndpoint.request(MediaType.APPLICATION_JSON).get();
-                if (response.getStatus() == Response.Status.OK.getStatusCode()) {
-                    PlatDTO platDTO = response.readEntity(PlatDTO.class);
-                    listMenuPlatDTO.add(platDTO);
+    protected void incrementVersions(Connection conn, List<Integer> ids) throws SQLException {
+        for (int from = 0; from < ids.size(); from += MAX_ROWS_PER_INSERT) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + MAX_ROWS_PER_INSERT, ids.size()));
+
+            StringJoiner placeholders = new StringJoiner(",", "(", ")");
+            for (int i = 0; i < chunk.size(); ++i) {
+                placeholders.add("?");
+            }
+            try (PreparedStatement ps = conn.prepareStatement("UPDATE Menu SET version = version + 1 WHERE id_menu IN " + placeholders)) {
+                int index = 1;
+                for (Integer id : chunk) {
+                    ps.setInt(index++, id);
                 }
+                ps.executeUpdate();
             }
-            client.close();
-        } catch(SQLException e){
-            System.out.println(e.getMessage());
         }
-
-        return listMenuPlatDTO;
     }
 
     /**
-     * Méthode permettant de récupérer tous les menus de la base de données
-     * @return ArrayList<Menu> une arraylist contenant tous les menus trouvés
-     * @throws RuntimeException si il y a une erreur côté sql
+     * Méthode qui lit l'état des copies locales d'un lot de plats (verrouillées jusqu'à la fin de la transaction)
+     * @param conn Connection connexion (dans une transaction)
+     * @param platIds List<Integer> id des plats
+     * @return Map<Integer, String> état de chaque copie existante (voir snapshotState), par id de plat
+     * @throws SQLException si il y a une erreur côté sql
      */
-    @Override
-    public ArrayList<Menu> getAllMenu() {
-        ArrayList<Menu> listMenu;
-
-        String query = "SELECT * FROM Menu";
+    protected Map<Integer, String> readSnapshotStates(Connection conn, List<Integer> platIds) throws SQLException {
+        StringJoiner placeholders = new StringJoiner(",", "(", ")");
+        for (int i = 0; i < platIds.size(); ++i) {
+            placeholders.add("?");
+        }
+        String query = "SELECT id_plat, name, description, price, found FROM Plat_snapshot WHERE id_plat IN "
+                + placeholders + " FOR UPDATE";
 
-        // construction et exécution d'une requête préparée
-        try (PreparedStatement ps = dbConnection.prepareStatement(query)) {
-            // exécution de la requête
+        Map<Integer, String> states = new HashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement(query)) {
+            for (int i = 0; i < platIds.size(); ++i) {
+                ps.setInt(i + 1, platIds.get(i));
+            }
             ResultSet result = ps.executeQuery();
+            while (result.next()) {
+                boolean found = result.getBoolean("found");
+                states.put(result.getInt("id_plat"), snapshotState(found ? result.getString("name") : null,
+                        found ? result.getString("description") : null, found ? result.getFloat("price") : 0, found));
+            }
+        }
+        return states;
+    }
 
-            listMenu = new ArrayList<>();
+    /**
+     * Méthode qui résume ce qu'une copie locale affiche d'un plat, pour comparer deux copies
+     * @param name String nom du plat
+     * @param description String description du plat
+     * @param price float prix du plat
+     * @param found boolean false si l'api plats ne connaît plus le plat
+     * @return String état de la copie
+     */
+    private static String snapshotState(String name, String description, float price, boolean found) {
+        return found + "|" + price + "|" + name + "|" + description;
+    }
 
-            // récupération du premier (et seul) tuple résultat
-            while (result.next()) {
-                int id = result.getInt("id_menu");
-                String author = result.getString("author");
-                String title = result.getString("title");
-                String description = result.getString("description");
-                float price = result.getFloat("price");
-                Timestamp creationDate = result.getTimestamp("creationDate");
+    /**
+     * Méthode qui retourne les menus qui contiennent au moins un des plats : lus dans l'index des associations
+     * quand il est chargé, sinon dans Plat_menu
+     * @param conn Connection connexion
+     * @param platIds List<Integer> id des plats
+     * @return List<Integer> id des menus, sans doublon
+     * @throws SQLException si il y a une erreur côté sql
+     */
+    protected List<Integer> getMenuIdsOfPlats(Connection conn, List<Integer> platIds) throws SQLException {
+        Set<Integer> menuIds = new LinkedHashSet<>();
+        if (platMenuIndex != null && platMenuIndex.isLoaded()) {
+            for (Integer idPlat : platIds) {
+                for (int idMenu : platMenuIndex.getMenuIds(idPlat)) {
+                    menuIds.add(idMenu);
+                }
+            }
+            return new ArrayList<>(menuIds);
+        }
 
-                // création du menu courant
-                Menu currentMenu = new Menu(id, author, title, description, price, creationDate);
-                currentMenu.setListPlat(fetchPlatDTOFromApi(id));
-                listMenu.add(currentMenu);
+        StringJoiner placeholders = new StringJoiner(",", "(", ")");
+        for (int i = 0; i < platIds.size(); ++i) {
+            placeholders.add("?");
+        }
+        String query = "SELECT DISTINCT id_menu FROM Plat_menu WHERE id_plat IN " + placeholders;
+        try (PreparedStatement ps = conn.prepareStatement(query)) {
+            for (int i = 0; i < platIds.size(); ++i) {
+                ps.setInt(i + 1, platIds.get(i));
+            }
+            ResultSet result = ps.executeQuery();
+            while (result.next()) {
+                menuIds.add(result.getInt("id_menu"));
             }
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
         }
-        return listMenu;
+        return new ArrayList<>(menuIds);
     }
 
     /**
-     * Méthode permettant de mettre à jours un menu existant
-     * @param id          id de l'objet Menu à mettre à jours
-     * @param title       String nouveau titre
-     * @param description String nouvelle description
-     * @param price       float nouveau prix
-     * @return true si la mise à jours a été faite, false si non
+     * Méthode qui supprime de la copie locale les plats qui ne font plus partie d'aucun menu
+     * @return int nombre de copies supprimées
      * @throws RuntimeException si il y a une erreur côté sql
      */
     @Override
-    public boolean updateMenu(int id, String author, String title, String description, float price) {
-        String query = "UPDATE Menu SET author=?, title=?, description=?, price=?  where id_menu=?";
-        int nbRowModified;
-
-        // construction et exécution d'une requête préparée
-        try (PreparedStatement ps = dbConnection.prepareStatement(query)) {
-            // Définition des paramètres de la requête SQL
-            ps.setString(1, author);
-            ps.setString(2, title);
-            ps.setString(3, description);
-            ps.setFloat(4, price);
-            ps.setInt(5, id);
+    public int prunePlatSnapshots() {
+        String query = "DELETE ps FROM Plat_snapshot ps LEFT JOIN Plat_menu pm ON pm.id_plat = ps.id_plat WHERE pm.id_plat IS NULL";
 
-            // exécution de la requête
-            nbRowModified = ps.executeUpdate();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            return ps.executeUpdate();
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
-
-        return (nbRowModified != 0);
     }
 
     /**
-     * Méthode permettant de créer un menu
-     * @param title       String titre du menu à créer
-     * @param description String description du menu à créer
-     * @return true si la création s'est bien déroulée, false si non
+     * Méthode qui vérifie le prix d'un lot de menus, lus dans l'ordre des id à partir d'une position (keyset),
+     * et corrige ceux dont le prix enregistré s'écarte de la somme des prix actuels de leurs plats.
+     * Les prix des plats du lot sont demandés en une fois à l'api plats ; un menu n'est corrigé
+     * que s'il n'a pas été modifié depuis sa lecture (même version).
+     * @param afterId int id du dernier menu vérifié (0 pour commencer au début)
+     * @param limit int nombre de menus du lot
+     * @param tolerance float écart toléré entre le prix enregistré et le prix recalculé
+     * @param report PriceReconcileReportDTO rapport complété avec les menus vérifiés, corrigés et ignorés
+     * @return int id du dernier menu du lot, 0 s'il n'y a plus de menu à vérifier
      * @throws RuntimeException si il y a une erreur côté sql
+     * @throws PlatApiUnavailableException si l'api plats est indisponible
      */
     @Override
-    public boolean createMenu(String author, String title, String description, List<Integer> listPlat) {
-        String query = "INSERT INTO Menu (author, title, description, price) VALUES (?, ?, ?, 0)";
-        int createdIdMenu = 0;
-        int nbRowModified;
-
-        // construction et exécution d'une requête préparée
-        try (PreparedStatement ps = dbConnection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
-            // Définition des paramètres de la requête SQL
-            ps.setString(1, author);
-            ps.setString(2, title);
-            ps.setString(3, description);
+    public int reconcilePrices(int afterId, int limit, float tolerance, PriceReconcileReportDTO report) {
+        String query = "SELECT m.id_menu, m.price, m.version, pm.id_plat "
+                + "FROM (SELECT id_menu, price, version FROM Menu WHERE id_menu > ? ORDER BY id_menu LIMIT ?) m"
+                + PLATS_JOIN + " ORDER BY m.id_menu";
+        // le menu n'est corrigé que s'il n'a pas été modifié depuis sa lecture (même version)
+        String queryFix = "UPDATE Menu SET price = ?, version = version + 1 WHERE id_menu = ? AND version = ?";
+
+        Map<Integer, Menu> menusById = new LinkedHashMap<>();
+        Map<Integer, List<Integer>> platIdsByMenu = new HashMap<>();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            ps.setInt(1, afterId);
+            ps.setInt(2, limit);
+            ResultSet result = ps.executeQuery();
+            readMenusWithPlatIds(result, menusById, platIdsByMenu);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        if (menusById.isEmpty()) {
+            return 0;
+        }
 
-            // exécution de la requête
-            nbRowModified = ps.executeUpdate();
+        // prix actuels de tous les plats du lot, demandés en une fois
+        Set<Integer> allPlatIds = new LinkedHashSet<>();
+        for (List<Integer> listPlatId : platIdsByMenu.values()) {
+            allPlatIds.addAll(listPlatId);
+        }
+        Map<Integer, PlatDTO> platsById = allPlatIds.isEmpty() ? Collections.emptyMap()
+                : platApi.fetchPlats(new ArrayList<>(allPlatIds));
+        for (PlatDTO platDTO : platsById.values()) {
+            platCache.put(platDTO);
+        }
 
-            try (ResultSet rs = ps.getGeneratedKeys()) {
-                if(rs.next()){
-                    createdIdMenu = rs.getInt(1);
+        // menus dont le prix enregistré s'écarte du prix recalculé
+        List<Menu> drifted = new ArrayList<>();
+        List<Float> expectedPrices = new ArrayList<>();
+        for (Menu menu : menusById.values()) {
+            report.setChecked(report.getChecked() + 1);
+            double expected = 0;
+            boolean complete = true;
+            for (Integer idPlat : platIdsByMenu.get(menu.getId())) {
+                PlatDTO platDTO = platsById.get(idPlat);
+                if (platDTO == null) {
+                    complete = false;
+                    break;
                 }
+                expected += platDTO.getPrice();
+            }
+            if (!complete) {
+                report.setSkipped(report.getSkipped() + 1);
+            } else if (Math.abs(menu.getPrice() - expected) > tolerance) {
+                drifted.add(menu);
+                expectedPrices.add((float) expected);
             }
+        }
 
-            if(listPlat.size() > 1) {
-                for (Integer integer : listPlat) {
-                    addPlatToMenu(createdIdMenu, integer);
+        if (!drifted.isEmpty()) {
+            inTransaction(conn -> {
+                int[] counts;
+                try (PreparedStatement ps = conn.prepareStatement(queryFix)) {
+                    for (int i = 0; i < drifted.size(); ++i) {
+                        ps.setFloat(1, expectedPrices.get(i));
+                        ps.setInt(2, drifted.get(i).getId());
+                        ps.setLong(3, drifted.get(i).getVersion());
+                        ps.addBatch();
+                    }
+                    counts = ps.executeBatch();
                 }
-            } else {
-                addPlatToMenu(createdIdMenu, listPlat.get(0));
-            }
 
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
+                List<Integer> fixedIds = new ArrayList<>();
+                for (int i = 0; i < drifted.size(); ++i) {
+                    if (counts[i] == 0) {
+                        // menu modifié depuis sa lecture : il sera vérifié au prochain passage
+                        report.setSkipped(report.getSkipped() + 1);
+                        continue;
+                    }
+                    double drift = Math.abs(drifted.get(i).getPrice() - expectedPrices.get(i));
+                    fixedIds.add(drifted.get(i).getId());
+                    report.setFixed(report.getFixed() + 1);
+                    report.setTotalDrift(report.getTotalDrift() + drift);
+                    report.setMaxDrift(Math.max(report.getMaxDrift(), drift));
+                }
+                recordChanges(conn, fixedIds, MenuChangeDTO.UPSERT);
+                return fixedIds.size();
+            });
         }
 
-        return (nbRowModified != 0);
+        int lastId = 0;
+        for (Integer id : menusById.keySet()) {
+            lastId = id;
+        }
+        return menusById.size() < limit ? 0 : lastId;
     }
 
     /**
-     * Méthode permettant de supprimer un menu de la base de données
-     * @param id int référence du menu à supprimer
-     * @return true si la suppression s'est bien déroulée, false si non
+     * Méthode qui permet de dissocier un plat d'un menu.
+     * La suppression et la mise à jour du prix du menu sont faites dans une même transaction,
+     * le prix n'étant diminué que si une association a réellement été supprimée.
+     * @param id_menu int id du menu cible
+     * @param id_plat int id du plat à dissocier
+     * @return true si la disassociation s'est bien déroulée, false si le menu n'existe pas (ou n'a pas ce plat)
+     * @throws PlatNotFoundException si l'api plats ne connaît pas le plat
+     * @throws PlatApiUnavailableException si l'api plats est indisponible
      * @throws RuntimeException si il y a une erreur côté sql
      */
     @Override
-    public boolean deleteMenu(int id) {
-        String query = "DELETE FROM Menu WHERE id_menu=?";
-        int nbRowModified;
-
-        // construction et exécution d'une requête préparée
-        try (PreparedStatement ps = dbConnection.prepareStatement(query)) {
-            // Définition du paramètre de la requête SQL
-            ps.setInt(1, id);
+    public boolean removePlatFromMenu(int id_menu, int id_plat) {
+        String query = "DELETE FROM Plat_menu WHERE id_menu=? AND id_plat=?";
+        String queryUpdatePrice = "UPDATE Menu SET price = price - ?, version = version + 1 WHERE id_menu=?";
 
-            // exécution de la requête
-            nbRowModified = ps.executeUpdate();
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
+        // récupération du prix du plat auprès de l'api plats & utilisateurs (avant d'ouvrir la transaction)
+        MenuUpdatePriceDTO parsedPlatPrice = platApi.fetchPlatPrice(id_plat);
+        if (parsedPlatPrice == null) {
+            throw new PlatNotFoundException(id_plat);
         }
 
-        return (nbRowModified != 0);
+        boolean removed = inTransaction(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(query);
+                 PreparedStatement psUpdatePrice = conn.prepareStatement(queryUpdatePrice)) {
+                // exécution de la requête qui dissocie le plat du menu
+                ps.setInt(1, id_menu);
+                ps.setInt(2, id_plat);
+                int nbRowModified = ps.executeUpdate();
+                if (nbRowModified == 0) {
+                    return false;
+                }
+
+                // le prix est diminué une fois par association supprimée
+                psUpdatePrice.setFloat(1, parsedPlatPrice.getPrice() * nbRowModified);
+                psUpdatePrice.setInt(2, id_menu);
+                psUpdatePrice.executeUpdate();
+            }
+            recordChanges(conn, Collections.singletonList(id_menu), MenuChangeDTO.UPSERT);
+            return true;
+        });
+
+        if (removed && platMenuIndex != null) {
+            platMenuIndex.removePlat(id_menu, id_plat);
+        }
+        return removed;
     }
 
     /**
-     * Méthode permettant de récupérer tous les plats associés à un menu
-     * @param id_menu int id du menu
-     * @return true si l'opération s'est bien passée, false si non
+     * Méthode qui permet de dissocier tous les plats associés à un menu
+     * @param id_menu int id du menu cible
+     * @return true si l'opération s'est bien déroulée, false si non
      * @throws RuntimeException si il y a une erreur côté sql
      */
     @Override
-    public ArrayList<MenuPlatDTO> getAllPlatFromMenu(int id_menu) {
-        ArrayList<MenuPlatDTO> listPlats;
-
-        String query = "SELECT * FROM Plat_menu where id_menu=?";
-
-        // construction et exécution d'une requête préparée
-        try (PreparedStatement ps = dbConnection.prepareStatement(query)) {
-            // Définition du paramètre de la requête SQL
-            ps.setInt(1, id_menu);
+    public boolean removeAllPlatsFromMenu(int id_menu) {
+        String query = "DELETE FROM Plat_menu WHERE id_menu=?";
+        String queryUpdatePrice = "UPDATE Menu SET price=0, version = version + 1 where id_menu=?";
+
+        // la dissociation, le prix et l'entrée dans le journal sont écrits dans une même transaction
+        boolean removed = inTransaction(conn -> {
+            int nbRowModified;
+            int nbRowModified2;
+            try (PreparedStatement ps = conn.prepareStatement(query);
+                 PreparedStatement psUpdatPrice = conn.prepareStatement(queryUpdatePrice)) {
+                ps.setInt(1, id_menu);
+
+                // exécution de la requête
+                nbRowModified = ps.executeUpdate();
+
+                psUpdatPrice.setInt(1, id_menu);
+                // exécution de la requête qui réinitialise le prix
+                nbRowModified2 = psUpdatPrice.executeUpdate();
+            }
+            if (nbRowModified2 != 0) {
+                recordChanges(conn, Collections.singletonList(id_menu), MenuChangeDTO.UPSERT);
+            }
+            return (nbRowModified != 0 && nbRowModified2 != 0);
+        });
 
+        // les associations sont supprimées même si le menu n'existe pas
+        if (platMenuIndex != null) {
+            platMenuIndex.removeMenu(id_menu);
+        }
+        return removed;
+    }
 
-            // exécution de la requête
+    /**
+     * Méthode qui charge l'index des associations en une seule lecture de la table Plat_menu
+     * (sans effet si le dépôt n'a pas d'index)
+     * @throws RuntimeException si il y a une erreur côté sql
+     */
+    public void loadPlatMenuIndex() {
+        if (platMenuIndex == null) {
+            return;
+        }
+        String query = "SELECT id_menu, id_plat FROM Plat_menu";
+        int fetchSize = Math.max(1, ApiConfig.getInt("apimenus.menus.stream.fetch-size", 100));
+
+        int[] menuIds = new int[1024];
+        int[] platIds = new int[1024];
+        int count = 0;
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(fetchSize);
             ResultSet result = ps.executeQuery();
-
-            listPlats = new ArrayList<>();
-
-            // récupération du premier (et seul) tuple résultat
             while (result.next()) {
-                int id = result.getInt("id_menu");
-                int id_plat = result.getInt("id_plat");
-
-                // Création du DTO courant
-                MenuPlatDTO courant = new MenuPlatDTO();
-                courant.setId_menu(id);
-                courant.setId_plat(id_plat);
-
-                listPlats.add(courant);
+                if (count == menuIds.length) {
+                    menuIds = Arrays.copyOf(menuIds, count * 2);
+                    platIds = Arrays.copyOf(platIds, count * 2);
+                }
+                menuIds[count] = result.getInt("id_menu");
+                platIds[count] = result.getInt("id_plat");
+                ++count;
             }
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
-        return listPlats;
+        platMenuIndex.load(menuIds, platIds, count);
     }
 
     /**
-     * Méthode qui permet d'associer un plat à un menu
-     * @param id_menu int id du menu
-     * @param id_plat int id du plat à associer
-     * @return true si l'association s'est effectuée, false si non
+     * Méthode qui relit dans Plat_menu les associations de menus modifiés, pour les reporter dans l'index
+     * (modifications faites par une autre instance de l'api ; sans effet si le dépôt n'a pas d'index)
+     * @param menuIds Collection<Integer> id des menus modifiés
      * @throws RuntimeException si il y a une erreur côté sql
      */
-    @Override
-    public boolean addPlatToMenu(int id_menu, int id_plat) {
-        String queryInitialPrice = "SELECT price FROM Menu where id_menu=?";
-        String queryAddPlat = "INSERT INTO Plat_menu (id_menu, id_plat) VALUES (?, ?)";
-        String queryUpdatePrice = "UPDATE Menu SET price=?  where id_menu=?";
-
-        int nbRowModified;
-        int nbRowModified2;
-
-        // création d'un client
-        Client client = ClientBuilder.newClient();
-        // définition de l'adresse de la ressource
-        WebTarget apiPlatResource  = client.target(apiPlatUrl);
-        // définition du point d'accès
-        WebTarget apiPlatEndpoint = apiPlatResource.path("plats/price/" + id_plat);
-        // envoi de la requête et récupération de la réponse
-        Response response = apiPlatEndpoint.request(MediaType.APPLICATION_JSON).get();
-        // transformation de la réponse en un DTO utilisable dans le code
-        MenuUpdatePriceDTO parsedPlatPrice = response.readEntity(MenuUpdatePriceDTO.class);
-        float parsedMenuPrice = 0;
-        client.close();
+    public void refreshPlatMenuIndex(Collection<Integer> menuIds) {
+        Set<Integer> distinctIds = new LinkedHashSet<>(menuIds);
+        if (platMenuIndex == null || !platMenuIndex.isLoaded() || distinctIds.isEmpty()) {
+            return;
+        }
 
-        // construction et exécution d'une requête préparée
-        try (PreparedStatement psAddPlat = dbConnection.prepareStatement(queryAddPlat);
-            PreparedStatement psInitialPrice = dbConnection.prepareStatement(queryInitialPrice);
-            PreparedStatement psUpdatePrice = dbConnection.prepareStatement(queryUpdatePrice)) {
-            // Définition des paramètres de la requête SQL
-            psAddPlat.setInt(1, id_menu);
-            psAddPlat.setInt(2, id_plat);
-
-            // exécution de la requête qui associe le plat au menu
-            nbRowModified = psAddPlat.executeUpdate();
-
-            psInitialPrice.setInt(1, id_menu);
-            // exécution de la requête qui récupère le prix initial du menu
-            ResultSet rs = psInitialPrice.executeQuery();
-            if(rs.next()){
-                parsedMenuPrice = rs.getFloat("price");
-            }
-
-            // Définition des paramètres de la requête SQL avec le nouveau prix
-            psUpdatePrice.setFloat(1, parsedMenuPrice + parsedPlatPrice.getPrice());
-            psUpdatePrice.setInt(2, id_menu);
-            // exécution de la requête qui récupère le prix initial du menu
-            nbRowModified2 = psUpdatePrice.executeUpdate();
+        StringJoiner placeholders = new StringJoiner(",", "(", ")");
+        for (int i = 0; i < distinctIds.size(); ++i) {
+            placeholders.add("?");
+        }
+        String query = "SELECT id_menu, id_plat FROM Plat_menu WHERE id_menu IN " + placeholders;
+
+        Map<Integer, List<Integer>> platIdsByMenu = new HashMap<>();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            int index = 1;
+            for (Integer id : distinctIds) {
+                ps.setInt(index++, id);
+                platIdsByMenu.put(id, new ArrayList<>());
+            }
+            ResultSet result = ps.executeQuery();
+            while (result.next()) {
+                platIdsByMenu.get(result.getInt("id_menu")).add(result.getInt("id_plat"));
+            }
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
 
-        return (nbRowModified != 0 && nbRowModified2 != 0);
+        for (Map.Entry<Integer, List<Integer>> entry : platIdsByMenu.entrySet()) {
+            platMenuIndex.replaceMenu(entry.getKey(), toIntArray(entry.getValue()));
+        }
     }
 
     /**
-     * Méthode permettant d'associers plusieurs plats à un menu
-     * @param id_menu int id du menu
-     * @param listPlatId List<Integer> liste des id à associer au menu
-     * @return true si les associations se sont bien déroulées, false si non
-     * @throws RuntimeException si il y a une erreur côté sql
+     * Méthode qui convertit une liste d'id en tableau d'int
+     * @param ids List<Integer> id
+     * @return int[] id, dans l'ordre de la liste
      */
-    @Override
-    public boolean addAllPlatToMenu(int id_menu, List<Integer> listPlatId) {
-        String query = "INSERT INTO Plat_menu (id_menu, id_plat) VALUES (?, ?)";
+    private static int[] toIntArray(List<Integer> ids) {
+        int[] array = new int[ids.size()];
+        for (int i = 0; i < array.length; ++i) {
+            array[i] = ids.get(i);
+        }
+        return array;
+    }
 
-        int nbRowModified = 0;
-        for(int i = 0; i < listPlatId.size(); ++i){
-            if(!addPlatToMenu(id_menu, listPlatId.get(i))){
-                return false;
+    /**
+     * Méthode qui ajoute au journal Menu_change une entrée par menu modifié,
+     * dans la transaction de la modification (par requêtes INSERT de plusieurs lignes)
+     * @param conn Connection connexion (dans une transaction)
+     * @param ids List<Integer> id des menus modifiés
+     * @param changeType String MenuChangeDTO.UPSERT ou MenuChangeDTO.DELETE
+     * @throws SQLException si il y a une erreur côté sql
+     */
+    protected void recordChanges(Connection conn, List<Integer> ids, String changeType) throws SQLException {
+        for (int from = 0; from < ids.size(); from += MAX_ROWS_PER_INSERT) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + MAX_ROWS_PER_INSERT, ids.size()));
+
+            StringBuilder query = new StringBuilder("INSERT INTO Menu_change (id_menu, change_type) VALUES ");
+            for (int i = 0; i < chunk.size(); ++i) {
+                query.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+            }
+
+            try (PreparedStatement ps = conn.prepareStatement(query.toString())) {
+                int index = 1;
+                for (Integer id : chunk) {
+                    ps.setInt(index++, id);
+                    ps.setString(index++, changeType);
+                }
+                ps.executeUpdate();
             }
         }
-        return true;
     }
 
     /**
-     * Méthode qui permet de dissocier un plat d'un menu
-     * @param id_menu int id du menu cible
-     * @param id_plat int id du plat à dissocier
-     * @return true si la disassociation s'est bien déroulée, false si non
+     * Méthode permettant de lire le journal des modifications des menus après une position donnée
+     * @param since long position (seq) de la dernière modification déjà connue
+     * @param limit int nombre maximum d'entrées lues
+     * @return List<MenuChangeDTO> entrées du journal (seq, id, type), dans l'ordre des modifications
      * @throws RuntimeException si il y a une erreur côté sql
      */
     @Override
-    public boolean removePlatFromMenu(int id_menu, int id_plat) {
-        String query = "DELETE FROM Plat_menu WHERE id_menu=? AND id_plat=?";
-        String queryInitialPrice = "SELECT price FROM Menu where id_menu=?";
-        String queryUpdatePrice = "UPDATE Menu SET price=?  where id_menu=?";
-
-        int nbRowModified;
-        int nbRowModified2;
-
-        // création d'un client
-        Client client = ClientBuilder.newClient();
-        // définition de l'adresse de la ressource
-        WebTarget apiPlatResource  = client.target(apiPlatUrl);
-        // définition du point d'accès
-        WebTarget apiPlatEndpoint = apiPlatResource.path("plats/price/" + id_plat);
-        // envoi de la requête et récupération de la réponse
-        Response response = apiPlatEndpoint.request(MediaType.APPLICATION_JSON).get();
-        // Transférer les informations récupérées dans un DTO
-        MenuUpdatePriceDTO parsedPlatPrice = response.readEntity(MenuUpdatePriceDTO.class);
-        float parsedMenuPrice = 0;
-        client.close();
+    public List<MenuChangeDTO> getChanges(long since, int limit) {
+        String query = "SELECT seq, id_menu, change_type FROM Menu_change WHERE seq > ? ORDER BY seq LIMIT ?";
+        List<MenuChangeDTO> changes = new ArrayList<>();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            ps.setLong(1, since);
+            ps.setInt(2, limit);
+            ResultSet result = ps.executeQuery();
+            while (result.next()) {
+                changes.add(new MenuChangeDTO(result.getLong("seq"), result.getInt("id_menu"), result.getString("change_type")));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        return changes;
+    }
 
-        // construction et exécution d'une requête préparée
-        try (PreparedStatement ps = dbConnection.prepareStatement(query);
-        PreparedStatement psInitialPrice = dbConnection.prepareStatement(queryInitialPrice);
-        PreparedStatement psUpdatePrice = dbConnection.prepareStatement(queryUpdatePrice)) {
-            // Définition des paramètres de la requête SQL
-            ps.setInt(1, id_menu);
-            ps.setInt(2, id_plat);
+    /**
+     * Méthode permettant de récupérer la position de la dernière modification du journal
+     * @return long seq de la dernière modification, 0 si le journal est vide
+     * @throws RuntimeException si il y a une erreur côté sql
+     */
+    @Override
+    public long getLastChange() {
+        String query = "SELECT COALESCE(MAX(seq), 0) AS last FROM Menu_change";
 
-            // exécution de la requête
-            nbRowModified = ps.executeUpdate();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            ResultSet result = ps.executeQuery();
+            result.next();
+            return result.getLong("last");
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-            psInitialPrice.setInt(1, id_menu);
-            // exécution de la requête qui récupère le prix initial du menu
-            ResultSet rs = psInitialPrice.executeQuery();
-            if(rs.next()){
-                parsedMenuPrice = rs.getFloat("price");
-            }
+    /**
+     * Méthode permettant de récupérer la position de la plus ancienne modification gardée dans le journal
+     * @return long seq de la plus ancienne modification gardée, 0 si le journal est vide
+     * @throws RuntimeException si il y a une erreur côté sql
+     */
+    @Override
+    public long getFirstChange() {
+        String query = "SELECT COALESCE(MIN(seq), 0) AS first FROM Menu_change";
 
-            psUpdatePrice.setFloat(1, parsedMenuPrice - parsedPlatPrice.getPrice());
-            psUpdatePrice.setInt(2, id_menu);
-            // exécution de la requête qui récupère le prix initial du menu
-            nbRowModified2 = psUpdatePrice.executeUpdate();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            ResultSet result = ps.executeQuery();
+            result.next();
+            return result.getLong("first");
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
-
-        return (nbRowModified != 0);
     }
 
     /**
-     * Méthode qui permet de dissocier tous les plats associés à un menu
-     * @param id_menu int id du menu cible
-     * @return true si l'opération s'est bien déroulée, false si non
+     * Méthode qui supprime les modifications les plus anciennes du journal Menu_change, par paquets
+     * de MAX_ROWS_PER_DELETE lignes (chaque paquet est une transaction courte)
+     * @param retained long nombre de positions (seq) gardées avant la dernière modification
+     * @return int nombre d'entrées supprimées
      * @throws RuntimeException si il y a une erreur côté sql
      */
     @Override
-    public boolean removeAllPlatsFromMenu(int id_menu) {
-        String query = "DELETE FROM Plat_menu WHERE id_menu=?";
-        String queryUpdatePrice = "UPDATE Menu SET price=0  where id_menu=?";
-        int nbRowModified;
-        int nbRowModified2;
-
-        // construction et exécution d'une requête préparée
-        try (PreparedStatement ps = dbConnection.prepareStatement(query);
-        PreparedStatement psUpdatPrice = dbConnection.prepareStatement(queryUpdatePrice)) {
-            ps.setInt(1, id_menu);
+    public int pruneChanges(long retained) {
+        long before = getLastChange() - Math.max(1, retained);
+        if (before <= 0) {
+            return 0;
+        }
+        String query = "DELETE FROM Menu_change WHERE seq <= ? ORDER BY seq LIMIT " + MAX_ROWS_PER_DELETE;
+
+        int nbDeleted = 0;
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            ps.setLong(1, before);
+            int deleted;
+            do {
+                deleted = ps.executeUpdate();
+                nbDeleted += deleted;
+            } while (deleted == MAX_ROWS_PER_DELETE);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        return nbDeleted;
+    }
 
-            // exécution de la requête
-            nbRowModified = ps.executeUpdate();
+    /**
+     * Interface représentant un traitement exécuté dans une transaction
+     * @param <T> type du résultat du traitement
+     */
+    @FunctionalInterface
+    protected interface SqlTransaction<T> {
+        /**
+         * Méthode qui exécute le traitement
+         * @param conn Connection connexion dont l'auto-commit est désactivé
+         * @return T résultat du traitement
+         * @throws SQLException si il y a une erreur côté sql
+         */
+        T execute(Connection conn) throws SQLException;
+    }
 
-            psUpdatPrice.setInt(1, id_menu);
-            // exécution de la requête qui réinitialise le prix
-            nbRowModified2 = psUpdatPrice.executeUpdate();
+    /**
+     * Méthode qui exécute un traitement dans une transaction : la transaction est validée
+     * si le traitement se termine normalement, annulée s'il lève une exception
+     * @param work SqlTransaction traitement à exécuter
+     * @param <T> type du résultat du traitement
+     * @return T résultat du traitement
+     * @throws RuntimeException si il y a une erreur côté sql
+     */
+    protected <T> T inTransaction(SqlTransaction<T> work) {
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                T result = work.execute(conn);
+                conn.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
-
-        return (nbRowModified != 0 && nbRowModified2 != 0);
     }
 }
\ No newline at end of file
@@ -0,0 +1,1023 @@
+package fr.univamu.iut.apimenus;
+
+import fr.univamu.iut.apimenus.dto.MenuChangeDTO;
+import fr.univamu.iut.apimenus.dto.MenuCreationRequest;
+import fr.univamu.iut.apimenus.dto.MenuPageDTO;
+import fr.univamu.iut.apimenus.dto.MenuPlatDTO;
+import fr.univamu.iut.apimenus.dto.PlatDTO;
+import fr.univamu.iut.apimenus.dto.PriceReconcileReportDTO;
+
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Dépôt des menus en mémoire, sans base de données (apimenus.repository=memory) :
+ * référence pour les tests de charge de MenuService et MenuResource, et mode de déploiement en lecture seule.
+ * Les menus sont rangés par id (int) dans des tableaux de références atomiques, sans verrou :
+ * chaque menu est un état non modifiable remplacé en une seule opération (compareAndSet),
+ * si bien qu'un prix et les plats qui le composent changent toujours ensemble.
+ * Les plats sont lus dans une PlatSource.
+ */
+public class MenuRepositoryMemory implements MenuRepositoryInterface {
+
+    /**
+     * Nombre de bits de l'id donnant la position d'un menu dans son bloc (blocs de 1024 menus)
+     */
+    private static final int CHUNK_BITS = 10;
+
+    /**
+     * Nombre de menus par bloc
+     */
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    /**
+     * Blocs de menus indexés par id >> CHUNK_BITS ; remplacé par un répertoire plus grand quand les id augmentent
+     */
+    private volatile AtomicReferenceArray<AtomicReferenceArray<MenuState>> directory = new AtomicReferenceArray<>(16);
+
+    /**
+     * Verrou des seules allocations de blocs (les lectures et modifications de menus n'en prennent pas)
+     */
+    private Object growLock = new Object();
+
+    /**
+     * Dernier id de menu attribué
+     */
+    private AtomicInteger lastId = new AtomicInteger();
+
+    /**
+     * Source des plats (prix des menus et plats renvoyés)
+     */
+    private PlatSource platSource;
+
+    /**
+     * Journal des modifications, indexé par position (seq) ; les entrées les plus anciennes sont oubliées
+     */
+    private ConcurrentSkipListMap<Long, MenuChangeDTO> changes = new ConcurrentSkipListMap<>();
+
+    /**
+     * Position de la dernière modification du journal (écrite sous le verrou du journal)
+     */
+    private volatile long lastSeq;
+
+    /**
+     * Nombre d'entrées gardées dans le journal
+     */
+    private int maxChanges;
+
+    /**
+     * Constructeur réservé au conteneur CDI (création du proxy du bean)
+     */
+    protected MenuRepositoryMemory() {
+    }
+
+    /**
+     * Constructeur du dépôt, vide au départ
+     * @param platSource PlatSource source des plats
+     */
+    public MenuRepositoryMemory(PlatSource platSource) {
+        this.platSource = platSource;
+        this.maxChanges = Math.max(1, ApiConfig.getInt("apimenus.repository.memory.max-changes", 100000));
+    }
+
+    /**
+     * Méthode qui ferme le dépôt : sans effet, les menus restent en mémoire pour les autres utilisateurs du dépôt
+     */
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Méthode permettant de récupérer un menu grâce à son id
+     * @param id_menu int id du menu
+     * @return Menu menu trouvé avec ses plats, null s'il n'existe pas
+     */
+    @Override
+    public Menu getMenu(int id_menu) {
+        return getMenu(id_menu, MenuProjection.ALL);
+    }
+
+    /**
+     * Méthode permettant de récupérer un menu grâce à son id (les plats ne sont demandés que s'ils sont projetés)
+     * @param id_menu int id du menu
+     * @param projection MenuProjection champs à renvoyer et plats à récupérer ou non
+     * @return Menu menu trouvé, null s'il n'existe pas
+     */
+    @Override
+    public Menu getMenu(int id_menu, MenuProjection projection) {
+        MenuState state = read(id_menu);
+        if (state == null) {
+            return null;
+        }
+        Map<Integer, MenuState> statesById = Collections.singletonMap(id_menu, state);
+        return toMenus(statesById, projection).get(0);
+    }
+
+    /**
+     * Méthode permettant de récupérer plusieurs menus grâce à leurs id
+     * @param ids Collection<Integer> id des menus
+     * @param projection MenuProjection champs à renvoyer et plats à récupérer ou non
+     * @return Map<Integer, Menu> menus trouvés, indexés par leur id, dans l'ordre des id
+     */
+    @Override
+    public Map<Integer, Menu> getMenus(Collection<Integer> ids, MenuProjection projection) {
+        Map<Integer, MenuState> statesById = new TreeMap<>();
+        for (Integer id : ids) {
+            MenuState state = read(id);
+            if (state != null) {
+                statesById.put(id, state);
+            }
+        }
+
+        Map<Integer, Menu> menusById = new LinkedHashMap<>();
+        for (Menu menu : toMenus(statesById, projection)) {
+            menusById.put(menu.getId(), menu);
+        }
+        return menusById;
+    }
+
+    /**
+     * Méthode permettant de récupérer la version d'un menu
+     * @param id_menu int id du menu
+     * @return Long version du menu, null si le menu n'existe pas
+     */
+    @Override
+    public Long getMenuVersion(int id_menu) {
+        MenuState state = read(id_menu);
+        return state == null ? null : state.version;
+    }
+
+    /**
+     * Méthode permettant de récupérer une version de l'ensemble des menus :
+     * la position de la dernière modification du journal, changée par toute écriture
+     * @return String version de la liste des menus
+     */
+    @Override
+    public String getMenusVersion() {
+        return String.valueOf(lastSeq);
+    }
+
+    /**
+     * Méthode qui indique si les plats renvoyés avec les menus ne changent qu'avec la version des menus :
+     * ce n'est pas le cas, ils sont lus à chaque lecture dans la source des plats
+     * @return boolean false
+     */
+    @Override
+    public boolean isPlatDataVersioned() {
+        return false;
+    }
+
+    /**
+     * Méthode permettant de récupérer tous les menus avec leurs plats
+     * @return ArrayList<Menu> tous les menus, dans l'ordre des id
+     */
+    @Override
+    public ArrayList<Menu> getAllMenu() {
+        return getAllMenu(MenuProjection.ALL);
+    }
+
+    /**
+     * Méthode permettant de récupérer tous les menus
+     * @param projection MenuProjection champs à renvoyer et plats à récupérer ou non
+     * @return ArrayList<Menu> tous les menus, dans l'ordre des id
+     */
+    @Override
+    public ArrayList<Menu> getAllMenu(MenuProjection projection) {
+        Map<Integer, MenuState> statesById = new LinkedHashMap<>();
+        int maxId = lastId.get();
+        for (int id = 1; id <= maxId; ++id) {
+            MenuState state = read(id);
+            if (state != null) {
+                statesById.put(id, state);
+            }
+        }
+        return new ArrayList<>(toMenus(statesById, projection));
+    }
+
+    /**
+     * Méthode permettant de récupérer une page de menus
+     * @param query MenuQuery taille de page, curseur, tri et filtres
+     * @return MenuPageDTO les menus de la page et le curseur de la page suivante
+     */
+    @Override
+    public MenuPageDTO getMenuPage(MenuQuery query) {
+        return getMenuPage(query, MenuProjection.ALL);
+    }
+
+    /**
+     * Méthode permettant de récupérer une page de menus.
+     * Triée par id, la page est lue directement dans l'ordre des id et la lecture s'arrête dès qu'elle est pleine ;
+     * pour les autres tris, les menus filtrés sont triés avant d'être découpés.
+     * @param query MenuQuery taille de page, curseur, tri et filtres
+     * @param projection MenuProjection champs à renvoyer et plats à récupérer ou non
+     * @return MenuPageDTO les menus de la page et le curseur de la page suivante
+     */
+    @Override
+    public MenuPageDTO getMenuPage(MenuQuery query, MenuProjection projection) {
+        MenuQuery.Sort sort = query.getSort();
+        int wanted = query.getLimit() + 1;
+        Map<Integer, MenuState> statesById = new LinkedHashMap<>();
+
+        if (sort == MenuQuery.Sort.ID) {
+            int maxId = lastId.get();
+            int afterId = query.getAfterValue() == null ? (query.isDescending() ? maxId + 1 : 0) : query.getAfterId();
+            int step = query.isDescending() ? -1 : 1;
+            for (int id = afterId + step; id >= 1 && id <= maxId && statesById.size() < wanted; id += step) {
+                MenuState state = read(id);
+                if (state != null && matches(state, query)) {
+                    statesById.put(id, state);
+                }
+            }
+        } else {
+            Comparator<Map.Entry<Integer, MenuState>> order = comparator(sort);
+            if (query.isDescending()) {
+                order = order.reversed();
+            }
+            Map.Entry<Integer, MenuState> after = query.getAfterValue() == null ? null
+                    : new AbstractMap.SimpleEntry<>(query.getAfterId(), cursorState(sort, query.getAfterValue()));
+
+            List<Map.Entry<Integer, MenuState>> entries = new ArrayList<>();
+            int maxId = lastId.get();
+            for (int id = 1; id <= maxId; ++id) {
+                MenuState state = read(id);
+                if (state != null && matches(state, query)) {
+                    Map.Entry<Integer, MenuState> entry = new AbstractMap.SimpleEntry<>(id, state);
+                    if (after == null || order.compare(entry, after) > 0) {
+                        entries.add(entry);
+                    }
+                }
+            }
+            entries.sort(order);
+            for (Map.Entry<Integer, MenuState> entry : entries.subList(0, Math.min(wanted, entries.size()))) {
+                statesById.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        List<Menu> items = toMenus(statesById, withoutPlats(projection));
+        MenuPageDTO page = new MenuPageDTO();
+        page.setLimit(query.getLimit());
+        page.setHasMore(items.size() > query.getLimit());
+        if (page.isHasMore()) {
+            items = new ArrayList<>(items.subList(0, query.getLimit()));
+            page.setNext(query.encodeCursor(items.get(items.size() - 1)));
+        }
+
+        if (projection.isExpandPlats()) {
+            attachPlats(items);
+        }
+        page.setItems(items);
+        return page;
+    }
+
+    /**
+     * Méthode permettant de parcourir tous les menus, complétés avec leurs plats par paquets
+     * @param consumer Consumer<Menu> traitement appliqué à chaque menu, dans l'ordre des id
+     */
+    @Override
+    public void streamAllMenu(Consumer<Menu> consumer) {
+        int chunkSize = Math.max(1, ApiConfig.getInt("apimenus.menus.stream.chunk-size", 50));
+        Map<Integer, MenuState> statesById = new LinkedHashMap<>();
+        int maxId = lastId.get();
+        for (int id = 1; id <= maxId; ++id) {
+            MenuState state = read(id);
+            if (state != null) {
+                statesById.put(id, state);
+            }
+            if (statesById.size() >= chunkSize || (id == maxId && !statesById.isEmpty())) {
+                for (Menu menu : toMenus(statesById, MenuProjection.ALL)) {
+                    consumer.accept(menu);
+                }
+                statesById.clear();
+            }
+        }
+    }
+
+    /**
+     * Méthode permettant de mettre à jour un menu existant
+     * @param id_menu int id du menu
+     * @param author String nouvel auteur
+     * @param title String nouveau titre
+     * @param description String nouvelle description
+     * @param price float nouveau prix
+     * @return boolean true si le menu existe
+     */
+    @Override
+    public boolean updateMenu(int id_menu, String author, String title, String description, float price) {
+        MenuState updated = update(id_menu, state ->
+                new MenuState(author, title, description, price, state.creationDate, state.version + 1, state.platIds));
+        if (updated == null) {
+            return false;
+        }
+        recordChanges(Collections.singletonList(id_menu), MenuChangeDTO.UPSERT);
+        return true;
+    }
+
+    /**
+     * Méthode permettant de créer un menu avec ses plats, au prix total de ses plats
+     * @param author String auteur du menu
+     * @param title String titre du menu
+     * @param description String description du menu
+     * @param listPlat List<Integer> plats à associer (peut être vide)
+     * @return boolean true si le menu a été créé, false si un des plats est introuvable
+     */
+    @Override
+    public boolean createMenu(String author, String title, String description, List<Integer> listPlat) {
+        List<Integer> listPlatId = listPlat == null ? Collections.emptyList() : listPlat;
+        Float totalPrice = sumPlatPrices(listPlatId);
+        if (totalPrice == null) {
+            return false;
+        }
+
+        int id = insert(new MenuState(author, title, description, totalPrice,
+                new Timestamp(System.currentTimeMillis()), 1, toIntArray(listPlatId)));
+        recordChanges(Collections.singletonList(id), MenuChangeDTO.UPSERT);
+        return true;
+    }
+
+    /**
+     * Méthode permettant de créer plusieurs menus (import en masse) ;
+     * seuls les prix des plats absents de platPrices sont demandés, en une fois, à la source des plats
+     * @param menus List<MenuCreationRequest> menus à créer
+     * @param platPrices Map<Integer, Float> prix des plats déjà connus, complétée avec les prix récupérés
+     * @return List<Integer> id de chaque menu créé, dans l'ordre de menus (null si un de ses plats est introuvable)
+     */
+    @Override
+    public List<Integer> createMenus(List<MenuCreationRequest> menus, Map<Integer, Float> platPrices) {
+        Set<Integer> unknownIds = new LinkedHashSet<>();
+        for (MenuCreationRequest menu : menus) {
+            for (Integer idPlat : platIdsOf(menu)) {
+                if (!platPrices.containsKey(idPlat)) {
+                    unknownIds.add(idPlat);
+                }
+            }
+        }
+        if (!unknownIds.isEmpty()) {
+            for (PlatDTO platDTO : platSource.getPlats(unknownIds).values()) {
+                platPrices.put(platDTO.getId(), platDTO.getPrice());
+            }
+        }
+
+        List<Integer> createdIds = new ArrayList<>(Collections.nCopies(menus.size(), (Integer) null));
+        List<Integer> insertedIds = new ArrayList<>();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (int i = 0; i < menus.size(); ++i) {
+            MenuCreationRequest menu = menus.get(i);
+            double totalPrice = 0;
+            boolean complete = true;
+            for (Integer idPlat : platIdsOf(menu)) {
+                Float price = platPrices.get(idPlat);
+                if (price == null) {
+                    complete = false;
+                    break;
+                }
+                totalPrice += price;
+            }
+            if (complete) {
+                int id = insert(new MenuState(menu.getAuthor(), menu.getTitle(), menu.getDescription(), (float) totalPrice,
+                        now, 1, toIntArray(platIdsOf(menu))));
+                createdIds.set(i, id);
+                insertedIds.add(id);
+            }
+        }
+        recordChanges(insertedIds, MenuChangeDTO.UPSERT);
+        return createdIds;
+    }
+
+    /**
+     * Méthode permettant de supprimer un menu
+     * @param id_menu int id du menu
+     * @return boolean true si le menu existait
+     */
+    @Override
+    public boolean deleteMenu(int id_menu) {
+        AtomicReferenceArray<MenuState> chunk = chunkOf(id_menu, false);
+        if (chunk == null || chunk.getAndSet(id_menu & (CHUNK_SIZE - 1), null) == null) {
+            return false;
+        }
+        recordChanges(Collections.singletonList(id_menu), MenuChangeDTO.DELETE);
+        return true;
+    }
+
+    /**
+     * Méthode permettant de récupérer les associations d'un menu avec ses plats
+     * @param id_menu int id du menu
+     * @return ArrayList<MenuPlatDTO> associations, dans l'ordre (vide si le menu n'existe pas)
+     */
+    @Override
+    public ArrayList<MenuPlatDTO> getAllPlatFromMenu(int id_menu) {
+        MenuState state = read(id_menu);
+        int[] platIds = state == null ? new int[0] : state.platIds;
+        ArrayList<MenuPlatDTO> listPlats = new ArrayList<>(platIds.length);
+        for (int idPlat : platIds) {
+            MenuPlatDTO courant = new MenuPlatDTO();
+            courant.setId_menu(id_menu);
+            courant.setId_plat(idPlat);
+            listPlats.add(courant);
+        }
+        return listPlats;
+    }
+
+    /**
+     * Méthode qui associe un plat à un menu et augmente son prix du prix du plat, en une seule opération
+     * @param id_menu int id du menu
+     * @param id_plat int id du plat
+     * @return boolean true si l'association a été faite, false si le menu est introuvable
+     * @throws PlatNotFoundException si le plat est introuvable
+     */
+    @Override
+    public boolean addPlatToMenu(int id_menu, int id_plat) {
+        if (platSource.getPlats(Collections.singletonList(id_plat)).isEmpty()) {
+            throw new PlatNotFoundException(id_plat);
+        }
+        return addAllPlatToMenu(id_menu, Collections.singletonList(id_plat));
+    }
+
+    /**
+     * Méthode qui associe plusieurs plats à un menu et augmente son prix de leur somme, en une seule opération
+     * @param id_menu int id du menu
+     * @param listPlatId List<Integer> id des plats
+     * @return boolean true si les associations ont été faites, false si le menu ou un des plats est introuvable
+     */
+    @Override
+    public boolean addAllPlatToMenu(int id_menu, List<Integer> listPlatId) {
+        if (listPlatId == null || listPlatId.isEmpty()) {
+            return true;
+        }
+        Float totalPrice = sumPlatPrices(listPlatId);
+        if (totalPrice == null) {
+            return false;
+        }
+
+        int[] added = toIntArray(listPlatId);
+        MenuState updated = update(id_menu, state -> {
+            int[] platIds = Arrays.copyOf(state.platIds, state.platIds.length + added.length);
+            System.arraycopy(added, 0, platIds, state.platIds.length, added.length);
+            return state.withPlats(state.price + totalPrice, platIds);
+        });
+        if (updated == null) {
+            return false;
+        }
+        recordChanges(Collections.singletonList(id_menu), MenuChangeDTO.UPSERT);
+        return true;
+    }
+
+    /**
+     * Méthode qui dissocie un plat d'un menu (toutes ses associations) et diminue le prix d'autant, en une seule opération
+     * @param id_menu int id du menu
+     * @param id_plat int id du plat
+     * @return boolean true si au moins une association a été supprimée
+     * @throws PlatNotFoundException si le plat est introuvable
+     */
+    @Override
+    public boolean removePlatFromMenu(int id_menu, int id_plat) {
+        Float price = sumPlatPrices(Collections.singletonList(id_plat));
+        if (price == null) {
+            throw new PlatNotFoundException(id_plat);
+        }
+
+        MenuState updated = update(id_menu, state -> {
+            int[] platIds = new int[state.platIds.length];
+            int kept = 0;
+            for (int idPlat : state.platIds) {
+                if (idPlat != id_plat) {
+                    platIds[kept++] = idPlat;
+                }
+            }
+            int removed = state.platIds.length - kept;
+            return removed == 0 ? null : state.withPlats(state.price - price * removed, Arrays.copyOf(platIds, kept));
+        });
+        if (updated == null) {
+            return false;
+        }
+        recordChanges(Collections.singletonList(id_menu), MenuChangeDTO.UPSERT);
+        return true;
+    }
+
+    /**
+     * Méthode qui dissocie tous les plats d'un menu et remet son prix à 0
+     * @param id_menu int id du menu
+     * @return boolean true si le menu avait au moins un plat
+     */
+    @Override
+    public boolean removeAllPlatsFromMenu(int id_menu) {
+        boolean[] hadPlats = new boolean[1];
+        MenuState updated = update(id_menu, state -> {
+            hadPlats[0] = state.platIds.length != 0;
+            return state.withPlats(0, new int[0]);
+        });
+        if (updated == null) {
+            return false;
+        }
+        recordChanges(Collections.singletonList(id_menu), MenuChangeDTO.UPSERT);
+        return hadPlats[0];
+    }
+
+    /**
+     * Méthode qui répercute le changement de prix d'un plat sur tous les menus qui le contiennent
+     * (chaque menu est modifié en une seule opération, de la différence multipliée par le nombre de fois où il contient le plat)
+     * @param id_plat int id du plat
+     * @param oldPrice Float ancien prix du plat (la source des plats ne donne que le prix actuel)
+     * @param newPrice float nouveau prix du plat
+     * @return List<Integer> id des menus modifiés, null si l'ancien prix est inconnu
+     */
+    @Override
+    public List<Integer> repricePlat(int id_plat, Float oldPrice, float newPrice) {
+        if (oldPrice == null) {
+            return null;
+        }
+        float delta = newPrice - oldPrice;
+        List<Integer> menuIds = new ArrayList<>();
+        if (delta == 0) {
+            return menuIds;
+        }
+
+        int maxId = lastId.get();
+        for (int id = 1; id <= maxId; ++id) {
+            MenuState updated = update(id, state -> {
+                int count = 0;
+                for (int idPlat : state.platIds) {
+                    if (idPlat == id_plat) {
+                        ++count;
+                    }
+                }
+                return count == 0 ? null : state.withPlats(state.price + delta * count, state.platIds);
+            });
+            if (updated != null) {
+                menuIds.add(id);
+            }
+        }
+        recordChanges(menuIds, MenuChangeDTO.UPSERT);
+        return menuIds;
+    }
+
+    /**
+     * Méthode qui vérifie le prix d'un lot de menus, dans l'ordre des id à partir d'une position,
+     * et corrige ceux dont le prix s'écarte de la somme des prix actuels de leurs plats
+     * (un menu n'est corrigé que s'il n'a pas changé depuis sa lecture)
+     * @param afterId int id du dernier menu vérifié (0 pour commencer au début)
+     * @param limit int nombre de menus du lot
+     * @param tolerance float écart toléré entre le prix enregistré et le prix recalculé
+     * @param report PriceReconcileReportDTO rapport complété avec les menus vérifiés, corrigés et ignorés
+     * @return int id du dernier menu du lot, 0 s'il n'y a plus de menu à vérifier
+     */
+    @Override
+    public int reconcilePrices(int afterId, int limit, float tolerance, PriceReconcileReportDTO report) {
+        Map<Integer, MenuState> statesById = new LinkedHashMap<>();
+        int maxId = lastId.get();
+        for (int id = afterId + 1; id <= maxId && statesById.size() < limit; ++id) {
+            MenuState state = read(id);
+            if (state != null) {
+                statesById.put(id, state);
+            }
+        }
+        if (statesById.isEmpty()) {
+            return 0;
+        }
+
+        Map<Integer, PlatDTO> platsById = platSource.getPlats(distinctPlatIds(statesById.values()));
+        List<Integer> fixedIds = new ArrayList<>();
+        int lastChecked = 0;
+        for (Map.Entry<Integer, MenuState> entry : statesById.entrySet()) {
+            MenuState state = entry.getValue();
+            lastChecked = entry.getKey();
+            report.setChecked(report.getChecked() + 1);
+
+            Float expected = sumPrices(state.platIds, platsById);
+            if (expected == null) {
+                report.setSkipped(report.getSkipped() + 1);
+                continue;
+            }
+            double drift = Math.abs(state.price - expected);
+            if (drift <= tolerance) {
+                continue;
+            }
+
+            // le menu n'est corrigé que s'il n'a pas changé depuis sa lecture
+            AtomicReferenceArray<MenuState> chunk = chunkOf(entry.getKey(), false);
+            if (chunk.compareAndSet(entry.getKey() & (CHUNK_SIZE - 1), state, state.withPlats(expected, state.platIds))) {
+                fixedIds.add(entry.getKey());
+                report.setFixed(report.getFixed() + 1);
+                report.setTotalDrift(report.getTotalDrift() + drift);
+                report.setMaxDrift(Math.max(report.getMaxDrift(), drift));
+            } else {
+                report.setSkipped(report.getSkipped() + 1);
+            }
+        }
+        recordChanges(fixedIds, MenuChangeDTO.UPSERT);
+        return statesById.size() < limit ? 0 : lastChecked;
+    }
+
+    /**
+     * Méthode sans effet : les plats sont lus dans la source des plats, sans copie locale
+     * @param limit int nombre maximum de plats rafraîchis
+     * @param maxAgeSeconds long âge (secondes) au-delà duquel une copie est rafraîchie
+     * @return int 0
+     */
+    @Override
+    public int syncPlatSnapshots(int limit, long maxAgeSeconds) {
+        return 0;
+    }
+
+    /**
+     * Méthode sans effet : les plats sont lus dans la source des plats, sans copie locale
+     * @return int 0
+     */
+    @Override
+    public int prunePlatSnapshots() {
+        return 0;
+    }
+
+    /**
+     * Méthode permettant de lire le journal des modifications après une position donnée
+     * @param since long position (seq) de la dernière modification déjà connue
+     * @param limit int nombre maximum d'entrées lues
+     * @return List<MenuChangeDTO> entrées du journal, dans l'ordre des modifications
+     */
+    @Override
+    public List<MenuChangeDTO> getChanges(long since, int limit) {
+        List<MenuChangeDTO> result = new ArrayList<>();
+        for (MenuChangeDTO change : changes.tailMap(since, false).values()) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(new MenuChangeDTO(change.getSeq(), change.getId(), change.getType()));
+        }
+        return result;
+    }
+
+    /**
+     * Méthode permettant de récupérer la position de la dernière modification du journal
+     * @return long seq de la dernière modification, 0 si le journal est vide
+     */
+    @Override
+    public long getLastChange() {
+        return lastSeq;
+    }
+
+    /**
+     * Méthode permettant de récupérer la position de la plus ancienne modification gardée dans le journal
+     * @return long seq de la plus ancienne modification gardée, 0 si le journal est vide
+     */
+    @Override
+    public long getFirstChange() {
+        Map.Entry<Long, MenuChangeDTO> first = changes.firstEntry();
+        return first == null ? 0 : first.getKey();
+    }
+
+    /**
+     * Méthode sans effet : le journal en mémoire ne garde déjà que les apimenus.repository.memory.max-changes
+     * dernières modifications
+     * @param retained long nombre de positions gardées
+     * @return int 0
+     */
+    @Override
+    public int pruneChanges(long retained) {
+        return 0;
+    }
+
+    /**
+     * Méthode qui ajoute au journal une entrée par menu modifié ;
+     * les positions sont attribuées et les entrées ajoutées sous un même verrou, pour qu'elles apparaissent dans l'ordre
+     * @param ids List<Integer> id des menus modifiés
+     * @param changeType String MenuChangeDTO.UPSERT ou MenuChangeDTO.DELETE
+     */
+    protected void recordChanges(List<Integer> ids, String changeType) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        synchronized (changes) {
+            long seq = lastSeq;
+            for (Integer id : ids) {
+                ++seq;
+                changes.put(seq, new MenuChangeDTO(seq, id, changeType));
+            }
+            lastSeq = seq;
+
+            // les entrées les plus anciennes sont oubliées (un client trop en retard reçoit un reset)
+            while (!changes.isEmpty() && changes.firstKey() <= seq - maxChanges) {
+                changes.pollFirstEntry();
+            }
+        }
+    }
+
+    /**
+     * Méthode qui lit l'état d'un menu
+     * @param id int id du menu
+     * @return MenuState état du menu, null s'il n'existe pas
+     */
+    private MenuState read(int id) {
+        AtomicReferenceArray<MenuState> chunk = chunkOf(id, false);
+        return chunk == null ? null : chunk.get(id & (CHUNK_SIZE - 1));
+    }
+
+    /**
+     * Méthode qui ajoute un menu sous un nouvel id
+     * @param state MenuState état du menu
+     * @return int id attribué
+     */
+    private int insert(MenuState state) {
+        int id = lastId.incrementAndGet();
+        chunkOf(id, true).set(id & (CHUNK_SIZE - 1), state);
+        return id;
+    }
+
+    /**
+     * Méthode qui modifie un menu sans verrou : la modification est recalculée sur l'état courant
+     * tant qu'un autre thread a modifié le menu entre sa lecture et son remplacement
+     * @param id int id du menu
+     * @param change UnaryOperator<MenuState> calcul du nouvel état (null pour ne rien modifier) ; la version est incrémentée
+     * @return MenuState nouvel état, null si le menu n'existe pas ou n'a pas été modifié
+     */
+    private MenuState update(int id, UnaryOperator<MenuState> change) {
+        AtomicReferenceArray<MenuState> chunk = chunkOf(id, false);
+        if (chunk == null) {
+            return null;
+        }
+        int slot = id & (CHUNK_SIZE - 1);
+        while (true) {
+            MenuState current = chunk.get(slot);
+            if (current == null) {
+                return null;
+            }
+            MenuState next = change.apply(current);
+            if (next == null) {
+                return null;
+            }
+            if (chunk.compareAndSet(slot, current, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Méthode qui retourne le bloc d'un id
+     * @param id int id du menu
+     * @param create boolean true pour créer le bloc (et agrandir le répertoire) s'il n'existe pas
+     * @return AtomicReferenceArray<MenuState> bloc du menu, null s'il n'existe pas et create vaut false
+     */
+    private AtomicReferenceArray<MenuState> chunkOf(int id, boolean create) {
+        if (id <= 0) {
+            return null;
+        }
+        int index = id >>> CHUNK_BITS;
+        AtomicReferenceArray<AtomicReferenceArray<MenuState>> current = directory;
+        AtomicReferenceArray<MenuState> chunk = index < current.length() ? current.get(index) : null;
+        if (chunk != null || !create) {
+            return chunk;
+        }
+
+        synchronized (growLock) {
+            current = directory;
+            if (index >= current.length()) {
+                int length = current.length();
+                while (index >= length) {
+                    length *= 2;
+                }
+                AtomicReferenceArray<AtomicReferenceArray<MenuState>> grown = new AtomicReferenceArray<>(length);
+                for (int i = 0; i < current.length(); ++i) {
+                    grown.set(i, current.get(i));
+                }
+                directory = grown;
+                current = grown;
+            }
+            chunk = current.get(index);
+            if (chunk == null) {
+                chunk = new AtomicReferenceArray<>(CHUNK_SIZE);
+                current.set(index, chunk);
+            }
+            return chunk;
+        }
+    }
+
+    /**
+     * Méthode qui construit les menus à renvoyer, avec leurs plats s'ils sont demandés
+     * (chaque plat distinct n'est demandé qu'une fois à la source des plats)
+     * @param statesById Map<Integer, MenuState> états des menus, dans l'ordre voulu
+     * @param projection MenuProjection plats à récupérer ou non
+     * @return List<Menu> menus, dans l'ordre de statesById
+     */
+    private List<Menu> toMenus(Map<Integer, MenuState> statesById, MenuProjection projection) {
+        List<Menu> menus = new ArrayList<>(statesById.size());
+        for (Map.Entry<Integer, MenuState> entry : statesById.entrySet()) {
+            MenuState state = entry.getValue();
+            Menu menu = new Menu(entry.getKey(), state.author, state.title, state.description, state.price, state.creationDate);
+            menu.setVersion(state.version);
+            menus.add(menu);
+        }
+        if (projection.isExpandPlats()) {
+            Map<Integer, int[]> platIdsByMenu = new HashMap<>();
+            for (Map.Entry<Integer, MenuState> entry : statesById.entrySet()) {
+                platIdsByMenu.put(entry.getKey(), entry.getValue().platIds);
+            }
+            attachPlats(menus, platIdsByMenu);
+        }
+        return menus;
+    }
+
+    /**
+     * Méthode qui associe leurs plats à des menus déjà construits, d'après leur état courant
+     * @param menus List<Menu> menus à compléter
+     */
+    private void attachPlats(List<Menu> menus) {
+        Map<Integer, int[]> platIdsByMenu = new HashMap<>();
+        for (Menu menu : menus) {
+            MenuState state = read(menu.getId());
+            platIdsByMenu.put(menu.getId(), state == null ? new int[0] : state.platIds);
+        }
+        attachPlats(menus, platIdsByMenu);
+    }
+
+    /**
+     * Méthode qui associe leurs plats à des menus, chaque plat distinct étant demandé une seule fois
+     * @param menus List<Menu> menus à compléter
+     * @param platIdsByMenu Map<Integer, int[]> id des plats de chaque menu
+     */
+    private void attachPlats(List<Menu> menus, Map<Integer, int[]> platIdsByMenu) {
+        Set<Integer> allPlatIds = new LinkedHashSet<>();
+        for (int[] platIds : platIdsByMenu.values()) {
+            for (int idPlat : platIds) {
+                allPlatIds.add(idPlat);
+            }
+        }
+        Map<Integer, PlatDTO> platsById = allPlatIds.isEmpty() ? Collections.emptyMap() : platSource.getPlats(allPlatIds);
+        for (Menu menu : menus) {
+            List<PlatDTO> listPlat = new ArrayList<>();
+            for (int idPlat : platIdsByMenu.get(menu.getId())) {
+                PlatDTO platDTO = platsById.get(idPlat);
+                if (platDTO != null) {
+                    listPlat.add(platDTO);
+                }
+            }
+            menu.setListPlat(listPlat);
+        }
+    }
+
+    /**
+     * Méthode qui retourne une projection identique sans les plats
+     * @param projection MenuProjection projection demandée
+     * @return MenuProjection même champs, sans les plats
+     */
+    private static MenuProjection withoutPlats(MenuProjection projection) {
+        return projection.isExpandPlats() ? new MenuProjection(projection.getFields(), false) : projection;
+    }
+
+    /**
+     * Méthode qui indique si un menu passe les filtres d'une requête de page
+     * @param state MenuState état du menu
+     * @param query MenuQuery filtres
+     * @return boolean true si le menu fait partie du résultat
+     */
+    private static boolean matches(MenuState state, MenuQuery query) {
+        return (query.getAuthor() == null || query.getAuthor().equals(state.author))
+                && (query.getMinPrice() == null || state.price >= query.getMinPrice())
+                && (query.getMaxPrice() == null || state.price <= query.getMaxPrice())
+                && (query.getCreatedAfter() == null || (state.creationDate != null && !state.creationDate.before(query.getCreatedAfter())))
+                && (query.getCreatedBefore() == null || (state.creationDate != null && state.creationDate.before(query.getCreatedBefore())));
+    }
+
+    /**
+     * Méthode qui construit l'ordre d'une page triée (colonne de tri, puis id pour départager les égalités)
+     * @param sort MenuQuery.Sort colonne de tri (autre que l'id)
+     * @return Comparator ordre croissant
+     */
+    private static Comparator<Map.Entry<Integer, MenuState>> comparator(MenuQuery.Sort sort) {
+        Comparator<Map.Entry<Integer, MenuState>> bySort;
+        switch (sort) {
+            case PRICE:
+                bySort = Comparator.comparingDouble(entry -> entry.getValue().price);
+                break;
+            case DATE:
+                bySort = Comparator.comparing(entry -> entry.getValue().creationDate,
+                        Comparator.nullsFirst(Comparator.naturalOrder()));
+                break;
+            default:
+                bySort = Comparator.comparing(entry -> entry.getValue().title,
+                        Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER));
+                break;
+        }
+        return bySort.thenComparing(Map.Entry::getKey);
+    }
+
+    /**
+     * Méthode qui construit un état fictif portant la valeur de tri d'un curseur, pour le comparer aux menus
+     * @param sort MenuQuery.Sort colonne de tri
+     * @param value String valeur lue dans le curseur
+     * @return MenuState état portant la valeur de tri
+     */
+    private static MenuState cursorState(MenuQuery.Sort sort, String value) {
+        switch (sort) {
+            case PRICE:
+                return new MenuState(null, null, null, Float.parseFloat(value), null, 0, null);
+            case DATE:
+                return new MenuState(null, null, null, 0, value.isEmpty() ? null : new Timestamp(Long.parseLong(value)), 0, null);
+            default:
+                return new MenuState(null, value, null, 0, null, 0, null);
+        }
+    }
+
+    /**
+     * Méthode qui calcule la somme des prix de plusieurs plats, demandés en une fois à la source des plats
+     * @param listPlatId List<Integer> id des plats (un plat présent plusieurs fois est compté plusieurs fois)
+     * @return Float somme des prix, null si un des plats est introuvable
+     */
+    private Float sumPlatPrices(List<Integer> listPlatId) {
+        if (listPlatId.isEmpty()) {
+            return 0f;
+        }
+        return sumPrices(toIntArray(listPlatId), platSource.getPlats(listPlatId));
+    }
+
+    /**
+     * Méthode qui calcule la somme des prix de plats déjà récupérés
+     * @param platIds int[] id des plats
+     * @param platsById Map<Integer, PlatDTO> plats récupérés
+     * @return Float somme des prix, null si un des plats manque
+     */
+    private static Float sumPrices(int[] platIds, Map<Integer, PlatDTO> platsById) {
+        double totalPrice = 0;
+        for (int idPlat : platIds) {
+            PlatDTO platDTO = platsById.get(idPlat);
+            if (platDTO == null) {
+                return null;
+            }
+            totalPrice += platDTO.getPrice();
+        }
+        return (float) totalPrice;
+    }
+
+    /**
+     * Méthode qui retourne les id distincts des plats de plusieurs menus
+     * @param states Collection<MenuState> états des menus
+     * @return Set<Integer> id des plats
+     */
+    private static Set<Integer> distinctPlatIds(Collection<MenuState> states) {
+        Set<Integer> platIds = new LinkedHashSet<>();
+        for (MenuState state : states) {
+            for (int idPlat : state.platIds) {
+                platIds.add(idPlat);
+            }
+        }
+        return platIds;
+    }
+
+    /**
+     * Méthode qui retourne les id des plats d'un menu à créer
+     * @param menu MenuCreationRequest menu à créer
+     * @return List<Integer> id des plats (liste vide si aucun)
+     */
+    private static List<Integer> platIdsOf(MenuCreationRequest menu) {
+        return menu.getListPlat() == null ? Collections.emptyList() : menu.getListPlat();
+    }
+
+    /**
+     * Méthode qui convertit une liste d'id en tableau d'int
+     * @param ids List<Integer> id
+     * @return int[] id, dans l'ordre de la liste
+     */
+    private static int[] toIntArray(List<Integer> ids) {
+        int[] array = new int[ids.size()];
+        for (int i = 0; i < array.length; ++i) {
+            array[i] = ids.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * État non modifiable d'un menu : toute modification remplace l'état entier
+     */
+    private static final class MenuState {
+        final String author;
+        final String title;
+        final String description;
+        final float price;
+        final Timestamp creationDate;
+        final long version;
+        final int[] platIds;
+
+        MenuState(String author, String title, String description, float price, Timestamp creationDate,
+                  long version, int[] platIds) {
+            this.author = author;
+            this.title = title;
+            this.description = description;
+            this.price = price;
+            this.creationDate = creationDate;
+            this.version = version;
+            this.platIds = platIds;
+        }
+
+        /**
+         * Méthode qui construit l'état suivant avec un nouveau prix et de nouveaux plats
+         * @param newPrice float nouveau prix
+         * @param newPlatIds int[] nouveaux plats
+         * @return MenuState nouvel état, de version suivante
+         */
+        MenuState withPlats(float newPrice, int[] newPlatIds) {
+            return new MenuState(author, title, description, newPrice, creationDate, version + 1, newPlatIds);
+        }
+    }
+}
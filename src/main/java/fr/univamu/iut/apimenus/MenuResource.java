@@ -1,13 +1,35 @@
 package fr.univamu.iut.apimenus;
 
+import fr.univamu.iut.apimenus.dto.MenuBatchRequest;
 import fr.univamu.iut.apimenus.dto.MenuCreationRequest;
 import fr.univamu.iut.apimenus.dto.MenuListPlatDTO;
 import fr.univamu.iut.apimenus.dto.MenuPlatDTO;
+import fr.univamu.iut.apimenus.dto.PlatPriceChangeDTO;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
 import jakarta.inject.Inject;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
 /**
  * Ressource associée aux menus
  * (point d'accès de l'API REST)
@@ -21,6 +43,11 @@ public class MenuResource {
      */
     private MenuService service;
 
+    /**
+     * Pool de threads qui exécute les endpoints asynchrones
+     */
+    private MenuTaskExecutor tasks;
+
     /**
      * Constructeur par défaut
      */
@@ -31,9 +58,12 @@ public class MenuResource {
      * Constructeur permettant d'initialiser le service avec une interface d'accès aux données
      *
      * @param menuRepo objet implémentant l'interface d'accès aux données
+     * @param tasks pool de threads des endpoints asynchrones
+     * @param events diffusion des modifications des menus aux clients abonnés
      */
-    public @Inject MenuResource(MenuRepositoryInterface menuRepo) {
-        this.service = new MenuService(menuRepo);
+    public @Inject MenuResource(MenuRepositoryInterface menuRepo, MenuTaskExecutor tasks, MenuEventBroadcaster events) {
+        this.service = new MenuService(menuRepo, tasks, events);
+        this.tasks = tasks;
     }
 
     /**
@@ -41,39 +71,400 @@ public class MenuResource {
      */
     public MenuResource(MenuService service) {
         this.service = service;
+        this.tasks = service.tasks;
+    }
+
+    /**
+     * Endpoint permettant de publier de tous les menus enregistrés.
+     * Si un des paramètres de pagination, de tri ou de filtre est présent, une page de menus
+     * est renvoyée avec ses informations de pagination (items, limit, hasMore, next).
+     * Si fields ou expand est présent, seuls les champs demandés sont lus et renvoyés,
+     * et les plats ne sont récupérés que pour expand=plats.
+     * La lecture est exécutée hors des threads du conteneur.
+     *
+     * @param limit nombre maximum de menus de la page
+     * @param cursor curseur de la page suivante (champ next de la page précédente)
+     * @param sort tri de la liste : id, price, date ou title
+     * @param order sens du tri : asc ou desc
+     * @param author filtre sur l'auteur
+     * @param minPrice filtre sur le prix minimum
+     * @param maxPrice filtre sur le prix maximum
+     * @param createdAfter filtre sur la date de création minimum (aaaa-mm-jj ou aaaa-mm-jjThh:mm:ss)
+     * @param createdBefore filtre sur la date de création maximum, exclue
+     * @param fields champs des menus à renvoyer, séparés par des virgules (p.ex. id,title,price)
+     * @param expand plats pour renvoyer les plats des menus
+     * @param request requête HTTP (en-tête If-None-Match)
+     * @param uriInfo adresse de la requête (les paramètres font partie de l'ETag)
+     * @param asyncResponse réponse reprise avec la liste des menus (avec leurs informations) au format JSON,
+     *                      ou 304 si elle n'a pas changé
+     */
+    @GET
+    @Produces("application/json")
+    public void getAllMenus(@QueryParam("limit") Integer limit, @QueryParam("cursor") String cursor,
+                            @QueryParam("sort") String sort, @QueryParam("order") String order,
+                            @QueryParam("author") String author,
+                            @QueryParam("minPrice") Float minPrice, @QueryParam("maxPrice") Float maxPrice,
+                            @QueryParam("createdAfter") String createdAfter,
+                            @QueryParam("createdBefore") String createdBefore,
+                            @QueryParam("fields") String fields, @QueryParam("expand") String expand,
+                            @Context Request request, @Context UriInfo uriInfo,
+                            @Suspended AsyncResponse asyncResponse) {
+        MenuProjection projection = parseProjection(fields, expand);
+        MenuQuery query = null;
+        if (limit != null || cursor != null || sort != null || order != null || author != null
+                || minPrice != null || maxPrice != null || createdAfter != null || createdBefore != null) {
+            query = new MenuQuery();
+            try {
+                int maxLimit = ApiConfig.getInt("apimenus.menus.page.max-limit", 100);
+                query.setLimit(limit == null ? ApiConfig.getInt("apimenus.menus.page.default-limit", 20)
+                        : Math.max(1, Math.min(limit, maxLimit)));
+                if (sort != null) {
+                    query.setSort(MenuQuery.Sort.valueOf(sort.toUpperCase(Locale.ROOT)));
+                }
+                query.setDescending("desc".equalsIgnoreCase(order));
+                query.setAuthor(author);
+                query.setMinPrice(minPrice);
+                query.setMaxPrice(maxPrice);
+                query.setCreatedAfter(parseDate(createdAfter));
+                query.setCreatedBefore(parseDate(createdBefore));
+                if (cursor != null) {
+                    query.decodeCursor(cursor);
+                }
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new BadRequestException("Paramètre invalide : " + e.getMessage());
+            }
+        }
+
+        MenuQuery page = query;
+        String queryHash = Integer.toHexString(String.valueOf(uriInfo.getRequestUri().getRawQuery()).hashCode());
+        // un seul traitement par requête : s'il dépasse son délai, il est interrompu en entier
+        tasks.resume(asyncResponse, "get-all-menus", tasks.supply(() -> {
+            // la liste n'est relue que si elle a changé depuis la version connue du client
+            // (si la version des menus couvre aussi leurs plats)
+            EntityTag etag = null;
+            if (!includesPlats(projection) || service.isPlatDataVersioned()) {
+                etag = new EntityTag("l" + service.getMenusVersion() + "-" + queryHash);
+                Response.ResponseBuilder notModified = request.evaluatePreconditions(etag);
+                if (notModified != null) {
+                    return notModified.cacheControl(cacheControl()).build();
+                }
+            }
+
+            MenuJson json;
+            if (projection == null) {
+                json = page == null ? service.getAllMenusJSON() : service.getMenuPageJSON(page);
+            } else {
+                json = page == null ? service.getAllMenusJSON(projection) : service.getMenuPageJSON(page, projection);
+            }
+            if (json.isDegraded()) {
+                return Response.ok(json.getBytes()).cacheControl(noStore()).build();
+            }
+
+            // les plats (nom, description, prix) lus dans l'api plats changent sans modifier la version des menus :
+            // l'ETag d'une réponse qui les contient suit alors le JSON renvoyé
+            if (etag == null) {
+                etag = new EntityTag("l" + queryHash + "-d" + json.getDigest());
+                Response.ResponseBuilder notModified = request.evaluatePreconditions(etag);
+                if (notModified != null) {
+                    return notModified.cacheControl(cacheControl()).build();
+                }
+            }
+            return Response.ok(json.getBytes()).tag(etag).cacheControl(cacheControl()).build();
+        }));
     }
 
     /**
-     * Endpoint permettant de publier de tous les menus enregistrés
+     * Endpoint permettant de publier tous les menus enregistrés au fil de l'eau :
+     * la réponse est envoyée par morceaux (chunked) et la mémoire utilisée ne dépend pas du nombre de menus
      *
      * @return la liste des menus (avec leurs informations) au format JSON
      */
     @GET
+    @Path("stream")
     @Produces("application/json")
-    public String getAllMenus() {
-        return service.getAllMenusJSON();
+    public Response streamAllMenus() {
+        return Response.ok(service.getAllMenusStream()).build();
     }
 
     /**
-     * Endpoint permettant de récupérer les informations d'un menu dont l'id est passé en paramètre dans le chemin
+     * Méthode qui construit la projection demandée par les paramètres fields et expand
+     * @param fields String champs demandés, séparés par des virgules
+     * @param expand String expansions demandées (plats)
+     * @return MenuProjection la projection, null si aucun des deux paramètres n'est présent (menus complets)
+     * @throws BadRequestException si un champ ou une expansion est inconnu
+     */
+    private MenuProjection parseProjection(String fields, String expand) {
+        if (fields == null && expand == null) {
+            return null;
+        }
+        try {
+            return MenuProjection.parse(fields, expand);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Paramètre invalide : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Méthode qui convertit une date passée en paramètre de requête
+     * @param date String date au format aaaa-mm-jj ou aaaa-mm-jjThh:mm:ss
+     * @return Timestamp la date, null si le paramètre est absent
+     */
+    private Timestamp parseDate(String date) {
+        if (date == null) {
+            return null;
+        }
+        if (date.length() == 10) {
+            return Timestamp.valueOf(LocalDate.parse(date).atStartOfDay());
+        }
+        return Timestamp.valueOf(LocalDateTime.parse(date));
+    }
+
+    /**
+     * Endpoint permettant de récupérer les informations d'un menu dont l'id est passé en paramètre dans le chemin.
+     * La réponse porte un ETag construit à partir de la version du menu : si le client renvoie
+     * cet ETag (If-None-Match) et que le menu n'a pas changé, la réponse est 304 sans lire ses plats.
+     * Si fields ou expand est présent, seuls les champs demandés sont lus et renvoyés,
+     * et les plats ne sont récupérés que pour expand=plats.
      *
      * @param id_menu id du menu recherché
-     * @return les informations du menu recherché au format JSON
+     * @param fields champs du menu à renvoyer, séparés par des virgules (p.ex. id,title,price)
+     * @param expand plats pour renvoyer les plats du menu
+     * @param request requête HTTP (en-tête If-None-Match)
+     * @param asyncResponse réponse reprise avec les informations du menu recherché au format JSON
      */
     @GET
     @Path("get/{id_menu}")
     @Produces("application/json")
-    public String getMenu(@PathParam("id_menu") int id_menu) {
+    public void getMenu(@PathParam("id_menu") int id_menu,
+                        @QueryParam("fields") String fields, @QueryParam("expand") String expand,
+                        @Context Request request, @Suspended AsyncResponse asyncResponse) {
+        MenuProjection projection = parseProjection(fields, expand);
+        // chaque projection d'un menu a son propre ETag
+        String projectionTag = projection == null ? ""
+                : "-" + Integer.toHexString((fields + "|" + expand).hashCode());
+        // un seul traitement par requête : s'il dépasse son délai, il est interrompu en entier
+        tasks.resume(asyncResponse, "get-menu", tasks.supply(() -> {
+            // le menu n'est relu que si sa version a changé depuis celle connue du client
+            // (si la version des menus couvre aussi leurs plats)
+            EntityTag etag = null;
+            if (!includesPlats(projection) || service.isPlatDataVersioned()) {
+                Long version = service.getMenuVersion(id_menu);
 
-        String result = service.getMenuJSON(id_menu);
+                // si le menu n'a pas été trouvé
+                if (version == null)
+                    throw new NotFoundException("Menu introuvable");
 
+                etag = new EntityTag("m" + id_menu + "-" + version + projectionTag);
+                Response.ResponseBuilder notModified = request.evaluatePreconditions(etag);
+                if (notModified != null) {
+                    return notModified.cacheControl(cacheControl()).build();
+                }
+            }
 
+            MenuJson result = projection == null ? service.getMenuJSONBytes(id_menu)
+                    : service.getMenuJSON(id_menu, projection);
+            if (result == null)
+                throw new NotFoundException("Menu introuvable");
 
-        // si le menu n'a pas été trouvé
-        if (result == null)
-            throw new NotFoundException("Menu introuvable");
+            // plats incomplets (api plats indisponible) : la réponse ne doit pas être revalidée avec cet ETag
+            if (result.isDegraded()) {
+                return Response.ok(result.getBytes()).cacheControl(noStore()).build();
+            }
 
-        return result;
+            // les plats lus dans l'api plats changent sans modifier la version du menu : l'ETag suit alors le JSON renvoyé
+            if (etag == null) {
+                etag = new EntityTag("m" + id_menu + "-d" + result.getDigest() + projectionTag);
+                Response.ResponseBuilder notModified = request.evaluatePreconditions(etag);
+                if (notModified != null) {
+                    return notModified.cacheControl(cacheControl()).build();
+                }
+            }
+            return Response.ok(result.getBytes()).tag(etag).cacheControl(cacheControl()).build();
+        }));
+    }
+
+    /**
+     * Endpoint permettant de récupérer plusieurs menus en une seule requête (p.ex. les menus d'un panier).
+     * Les menus sont lus avec une seule requête sql et chaque plat commun n'est récupéré qu'une fois.
+     *
+     * @param ids id des menus recherchés, séparés par des virgules (p.ex. ids=1,2,3) ou paramètre répété
+     * @param fields champs des menus à renvoyer, séparés par des virgules
+     * @param expand plats pour renvoyer les plats des menus
+     * @param asyncResponse réponse reprise avec les menus trouvés, indexés par leur id (menus),
+     *                      et les id introuvables (missing) au format JSON
+     */
+    @GET
+    @Path("batch")
+    @Produces("application/json")
+    public void getMenusBatch(@QueryParam("ids") List<String> ids,
+                              @QueryParam("fields") String fields, @QueryParam("expand") String expand,
+                              @Suspended AsyncResponse asyncResponse) {
+        List<Integer> menuIds = new ArrayList<>();
+        try {
+            for (String value : ids) {
+                for (String id : value.split(",")) {
+                    if (!id.isBlank()) {
+                        menuIds.add(Integer.parseInt(id.trim()));
+                    }
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Paramètre invalide : " + e.getMessage());
+        }
+        resumeBatch(menuIds, parseProjection(fields, expand), asyncResponse);
+    }
+
+    /**
+     * Endpoint permettant de récupérer plusieurs menus en une seule requête, les id étant passés dans le corps
+     * (pour les listes trop longues pour une adresse)
+     *
+     * @param request DTO contenant les id des menus recherchés
+     * @param fields champs des menus à renvoyer, séparés par des virgules
+     * @param expand plats pour renvoyer les plats des menus
+     * @param asyncResponse réponse reprise avec les menus trouvés, indexés par leur id (menus),
+     *                      et les id introuvables (missing) au format JSON
+     */
+    @POST
+    @Path("batch")
+    @Consumes("application/json")
+    @Produces("application/json")
+    public void postMenusBatch(MenuBatchRequest request,
+                               @QueryParam("fields") String fields, @QueryParam("expand") String expand,
+                               @Suspended AsyncResponse asyncResponse) {
+        if (request == null || request.getIds() == null || request.getIds().contains(null)) {
+            throw new BadRequestException("Paramètre invalide : ids");
+        }
+        resumeBatch(request.getIds(), parseProjection(fields, expand), asyncResponse);
+    }
+
+    /**
+     * Endpoint permettant de synchroniser une copie des menus : renvoie les menus créés ou modifiés (upsert)
+     * et supprimés (delete) depuis un jeton, par pages, au lieu de relire tous les menus.
+     *
+     * @param since jeton de la dernière synchronisation (champ next de la page précédente) ;
+     *              absent, seul le jeton actuel est renvoyé
+     * @param limit nombre maximum de modifications de la page
+     * @param fields champs des menus à renvoyer, séparés par des virgules
+     * @param expand plats pour renvoyer les plats des menus
+     * @param asyncResponse réponse reprise avec les modifications (changes), hasMore et next au format JSON,
+     *                      ou 410 si le jeton est antérieur aux modifications gardées dans le journal
+     */
+    @GET
+    @Path("changes")
+    @Produces("application/json")
+    public void getChanges(@QueryParam("since") String since, @QueryParam("limit") Integer limit,
+                           @QueryParam("fields") String fields, @QueryParam("expand") String expand,
+                           @Suspended AsyncResponse asyncResponse) {
+        Long sinceSeq = null;
+        if (since != null) {
+            try {
+                sinceSeq = Long.parseLong(since);
+            } catch (NumberFormatException e) {
+                throw new BadRequestException("Paramètre invalide : since");
+            }
+        }
+        int maxLimit = ApiConfig.getInt("apimenus.menus.changes.max-limit", 500);
+        int pageLimit = limit == null ? ApiConfig.getInt("apimenus.menus.changes.default-limit", 100)
+                : Math.max(1, Math.min(limit, maxLimit));
+
+        tasks.resume(asyncResponse, "get-changes", service.getChangesJSONAsync(sinceSeq, pageLimit, parseProjection(fields, expand)).thenApply(json -> {
+            // modifications manquées supprimées du journal : le client doit relire tous les menus (comme l'événement reset)
+            if (json == null) {
+                return Response.status(Response.Status.GONE).type(MediaType.TEXT_PLAIN_TYPE)
+                        .entity("Jeton trop ancien : reprendre sans since puis relire tous les menus").build();
+            }
+            // plats incomplets (api plats indisponible) : la réponse ne doit pas être gardée par le client
+            if (json.isDegraded()) {
+                return Response.ok(json.getBytes()).cacheControl(noStore()).build();
+            }
+            return Response.ok(json.getBytes()).build();
+        }));
+    }
+
+    /**
+     * Endpoint permettant de recevoir les modifications des menus en direct (Server-Sent Events) :
+     * un événement upsert (avec l'état actuel du menu, sans ses plats) ou delete par modification.
+     * Après une coupure, le client reprend avec l'en-tête Last-Event-ID ; si trop d'événements ont été manqués,
+     * il reçoit un événement reset et doit se resynchroniser avec /changes.
+     * Un client trop lent pour lire les événements est déconnecté.
+     *
+     * @param id id du seul menu suivi (optionnel)
+     * @param author auteur des menus suivis (optionnel, les suppressions sont envoyées quel que soit l'auteur)
+     * @param lastEventId id du dernier événement reçu (en-tête Last-Event-ID), pour reprendre le flux
+     * @param sink flux d'événements du client
+     * @param sse fabrique des événements
+     */
+    @GET
+    @Path("events")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void streamMenuEvents(@QueryParam("id") Integer id, @QueryParam("author") String author,
+                                 @HeaderParam("Last-Event-ID") String lastEventId,
+                                 @Context SseEventSink sink, @Context Sse sse) {
+        if (service.events == null) {
+            throw new ServiceUnavailableException("Flux des modifications indisponible");
+        }
+        Long lastSeq = null;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                lastSeq = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                throw new BadRequestException("En-tête Last-Event-ID invalide");
+            }
+        }
+        service.events.subscribe(sink, sse, id, author, lastSeq);
+    }
+
+    /**
+     * Méthode qui vérifie le nombre de menus demandés puis reprend la réponse avec les menus trouvés
+     * @param ids List<Integer> id des menus recherchés
+     * @param projection MenuProjection champs à renvoyer, null pour les menus complets
+     * @param asyncResponse réponse à reprendre
+     * @throws BadRequestException si aucun id ou trop d'id sont demandés
+     */
+    private void resumeBatch(List<Integer> ids, MenuProjection projection, AsyncResponse asyncResponse) {
+        int maxIds = ApiConfig.getInt("apimenus.menus.batch.max-ids", 100);
+        if (ids.isEmpty() || ids.size() > maxIds) {
+            throw new BadRequestException("Paramètre invalide : entre 1 et " + maxIds + " id de menus attendus");
+        }
+
+        tasks.resume(asyncResponse, "get-menus-batch", service.getMenusBatchJSONAsync(ids, projection).thenApply(json -> {
+            // plats incomplets (api plats indisponible) : la réponse ne doit pas être gardée par le client
+            if (json.isDegraded()) {
+                return Response.ok(json.getBytes()).cacheControl(noStore()).build();
+            }
+            return Response.ok(json.getBytes()).build();
+        }));
+    }
+
+    /**
+     * Méthode qui indique si une réponse contient les plats des menus
+     * @param projection MenuProjection projection demandée, null pour les menus complets
+     * @return boolean true si les plats sont renvoyés
+     */
+    private static boolean includesPlats(MenuProjection projection) {
+        return projection == null || projection.isExpandPlats();
+    }
+
+    /**
+     * Méthode qui construit l'en-tête Cache-Control des lectures de menus :
+     * le client peut garder la réponse max-age secondes, puis doit la revalider avec son ETag
+     * @return CacheControl en-tête Cache-Control
+     */
+    private CacheControl cacheControl() {
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setMaxAge(ApiConfig.getInt("apimenus.menus.cache-control.max-age-seconds", 0));
+        cacheControl.setMustRevalidate(true);
+        return cacheControl;
+    }
+
+    /**
+     * Méthode qui construit l'en-tête Cache-Control d'une réponse dégradée, que le client ne doit pas garder
+     * @return CacheControl en-tête Cache-Control
+     */
+    private CacheControl noStore() {
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setNoStore(true);
+        return cacheControl;
     }
 
     /**
@@ -110,6 +501,58 @@ public class MenuResource {
             return Response.ok("Le menu " + request.getTitle() + " a été crée !").build();
     }
 
+    /**
+     * Endpoint permettant d'importer un grand nombre de menus avec leurs plats (p.ex. à l'arrivée d'un restaurant).
+     * Le corps contient un menu au format JSON (comme pour /create) par ligne ; il est lu et validé en entier
+     * avant la réponse, puis les menus sont créés par lots, chaque lot dans une transaction,
+     * et le résultat de chaque ligne est envoyé dès que son lot est traité.
+     *
+     * @param input corps de la requête au format NDJSON
+     * @return le résultat de chaque ligne (line, status created ou error, id ou error) au format NDJSON
+     * @throws BadRequestException si le corps ne peut pas être lu
+     * @throws WebApplicationException 413 si le corps contient plus de apimenus.menus.import.max-lines menus
+     */
+    @POST
+    @Path("/import")
+    @Consumes({"application/x-ndjson", "text/plain"})
+    @Produces("application/x-ndjson")
+    public Response importMenus(InputStream input) {
+        int maxLines = ApiConfig.getInt("apimenus.menus.import.max-lines", 10000);
+        List<MenuService.ImportLine> lines;
+        try {
+            lines = service.readImport(input, maxLines);
+        } catch (IOException e) {
+            throw new BadRequestException("Corps de la requête illisible");
+        }
+        if (lines == null) {
+            throw new WebApplicationException("Import limité à " + maxLines + " menus par requête",
+                    Response.Status.REQUEST_ENTITY_TOO_LARGE);
+        }
+        return Response.ok(service.importMenus(lines)).build();
+    }
+
+    /**
+     * Endpoint permettant à l'api plats & utilisateurs de signaler des changements de prix de plats :
+     * le prix de tous les menus qui contiennent chaque plat est corrigé.
+     * Le corps contient un changement ou un tableau de changements (id_plat, price et oldPrice ;
+     * sans oldPrice, l'ancien prix est celui du cache des plats).
+     *
+     * @param body changement(s) de prix au format JSON
+     * @param asyncResponse réponse reprise avec le nombre de menus modifiés et le résultat de chaque changement
+     */
+    @POST
+    @Path("/plat-price-events")
+    @Consumes("application/json")
+    @Produces("application/json")
+    public void repricePlats(String body, @Suspended AsyncResponse asyncResponse) {
+        List<PlatPriceChangeDTO> changes = service.parsePlatPriceChanges(body);
+        if (changes == null || changes.isEmpty() || changes.contains(null)) {
+            throw new BadRequestException("Changement de prix invalide");
+        }
+
+        tasks.resume(asyncResponse, "reprice-plats", service.repricePlatsJSONAsync(changes));
+    }
+
     /**
      * Endpoint permettant la suppression d'un menu
      * @param id_menu int identifiant du menu à supprimer
@@ -128,86 +571,99 @@ public class MenuResource {
     /**
      * Endpoint permettant la récupération de tous les plats associés à un menu
      * @param id_menu int id du menu
-     * @return String chaîne de caractère contenant tous les plats associés à un menu
+     * @param asyncResponse réponse reprise avec la chaîne de caractère contenant tous les plats associés à un menu
      */
     @GET
     @Path("/get-all-plat-from-menu/{id_menu}")
     @Produces("application/json")
-    public String getAllPlatFromMenu(@PathParam("id_menu") int id_menu) {
-        String result = service.getAllPlatFromMenuJson(id_menu);
+    public void getAllPlatFromMenu(@PathParam("id_menu") int id_menu, @Suspended AsyncResponse asyncResponse) {
+        tasks.resume(asyncResponse, "get-all-plat-from-menu", service.getAllPlatFromMenuJsonAsync(id_menu).thenApply(result -> {
+            if(result == null){
+                throw new NotFoundException("Menu introuvable");
+            }
 
-        if(result == null){
-            throw new NotFoundException("Menu introuvable");
-        }
-
-        return result;
+            return result;
+        }));
     }
 
     /**
      * Endpoint permettant d'associer un plat à un menu
      * @param menuPlatDTO DTO qui contient l'id du menu et l'id du plat à associer
-     * @return Une réponse OK
+     * @param asyncResponse réponse reprise avec une réponse OK
      * @throws NotFoundException si menu introuvable
+     * @throws PlatNotFoundException si plat introuvable
      */
     @POST
     @Path("/add-plat-to-menu")
     @Consumes("application/json")
-    public Response addPlatToMenu(MenuPlatDTO menuPlatDTO) {
-        if(!service.addPlatToMenu(menuPlatDTO.getId_menu(), menuPlatDTO.getId_plat())) {
-            throw new NotFoundException("Menu introuvable");
-        } else {
-            return Response.ok("Le plat N°" + menuPlatDTO.getId_plat() + " a bien été ajouté au menu N°" + menuPlatDTO.getId_menu()).build();
-        }
+    public void addPlatToMenu(MenuPlatDTO menuPlatDTO, @Suspended AsyncResponse asyncResponse) {
+        tasks.resume(asyncResponse, "add-plat-to-menu",
+                service.addPlatToMenuAsync(menuPlatDTO.getId_menu(), menuPlatDTO.getId_plat()).thenApply(added -> {
+                    if(!added) {
+                        throw new NotFoundException("Menu introuvable");
+                    } else {
+                        return Response.ok("Le plat N°" + menuPlatDTO.getId_plat() + " a bien été ajouté au menu N°" + menuPlatDTO.getId_menu()).build();
+                    }
+                }));
     }
 
     /**
      * Endpoint permettant d'associer plusieurs plats à un menu
      * @param menuListPlatDTO DTO qui contient l'id du menu ainsi qu'une liste d'id de plats
-     * @return Une réponse OK
+     * @param asyncResponse réponse reprise avec une réponse OK
      * @throws NotFoundException si le menu est introuvable
      */
     @POST
     @Path("/add-all-plat-to-menu")
     @Consumes("application/json")
-    public Response addAllPlatToMenu(MenuListPlatDTO menuListPlatDTO) {
-        if(!service.addAllPlatToMenu(menuListPlatDTO.getId_menu(), menuListPlatDTO.getListPlatId())){
-            throw new NotFoundException("Menu introuvable");
-        } else {
-            return Response.ok("Ces id viennent d'être associés au plat N°" + menuListPlatDTO.getId_menu() + " !").build();
-        }
+    public void addAllPlatToMenu(MenuListPlatDTO menuListPlatDTO, @Suspended AsyncResponse asyncResponse) {
+        tasks.resume(asyncResponse, "add-all-plat-to-menu",
+                service.addAllPlatToMenuAsync(menuListPlatDTO.getId_menu(), menuListPlatDTO.getListPlatId()).thenApply(added -> {
+                    if(!added){
+                        throw new NotFoundException("Menu introuvable");
+                    } else {
+                        return Response.ok("Ces id viennent d'être associés au plat N°" + menuListPlatDTO.getId_menu() + " !").build();
+                    }
+                }));
     }
 
     /**
      * Endpoint permettant de dissocier un plat d'un menu
      * @param id_menu id du menu
      * @param id_plat id du plat à dissocier
-     * @return Un message de bon fonctionnement
+     * @param asyncResponse réponse reprise avec un message de bon fonctionnement
      * @throws NotFoundException si menu introuvable
+     * @throws PlatNotFoundException si plat introuvable
      */
     @DELETE
     @Path("/remove-plat-from-menu/{id_menu}/{id_plat}")
-    public Response removePlatFromMenu(@PathParam("id_menu") int id_menu, @PathParam("id_plat") int id_plat) {
-        if(!service.removePlatFromMenu(id_menu, id_plat)) {
-            throw new NotFoundException("Menu introuvable");
-        } else {
-            return Response.ok("Le plat N°" + id_plat + " a bien été supprimé du menu N°" + id_menu).build();
-        }
+    public void removePlatFromMenu(@PathParam("id_menu") int id_menu, @PathParam("id_plat") int id_plat,
+                                   @Suspended AsyncResponse asyncResponse) {
+        tasks.resume(asyncResponse, "remove-plat-from-menu", service.removePlatFromMenuAsync(id_menu, id_plat).thenApply(removed -> {
+            if(!removed) {
+                throw new NotFoundException("Menu introuvable");
+            } else {
+                return Response.ok("Le plat N°" + id_plat + " a bien été supprimé du menu N°" + id_menu).build();
+            }
+        }));
     }
 
     /**
      * Endpoint permettant de dissocier tous les plats associés à un menu
      * @param id_menu id du menu cible
-     * @return Un message de bon fonctionnement
+     * @param asyncResponse réponse reprise avec un message de bon fonctionnement
      * @throws NotFoundException si menu introuvable
      */
     @DELETE
     @Path("/remove-all-plats-from-menu/{id_menu}")
-    public Response removeAllPlatsFromMenu(@PathParam("id_menu") int id_menu) {
-        if(!service.removeAllPlatsFromMenu(id_menu)){
-            throw new NotFoundException();
-        } else {
-            return Response.ok("Tous les plats du menu N°" + id_menu + " ont été supprimés !").build();
-        }
+    public void removeAllPlatsFromMenu(@PathParam("id_menu") int id_menu, @Suspended AsyncResponse asyncResponse) {
+        tasks.resume(asyncResponse, "remove-all-plats-from-menu", service.removeAllPlatsFromMenuAsync(id_menu).thenApply(removed -> {
+            if(!removed){
+                throw new NotFoundException();
+            } else {
+                return Response.ok("Tous les plats du menu N°" + id_menu + " ont été supprimés !").build();
+            }
+        }));
     }
 
 }
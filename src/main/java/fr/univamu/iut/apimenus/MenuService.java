@@ -1,12 +1,35 @@
 package fr.univamu.iut.apimenus;
 
+import fr.univamu.iut.apimenus.dto.MenuBatchDTO;
+import fr.univamu.iut.apimenus.dto.MenuChangeDTO;
+import fr.univamu.iut.apimenus.dto.MenuChangePageDTO;
+import fr.univamu.iut.apimenus.dto.MenuCreationRequest;
+import fr.univamu.iut.apimenus.dto.MenuImportResultDTO;
+import fr.univamu.iut.apimenus.dto.MenuPageDTO;
 import fr.univamu.iut.apimenus.dto.MenuPlatDTO;
+import fr.univamu.iut.apimenus.dto.PlatPriceChangeDTO;
 import jakarta.inject.Inject;
 import jakarta.json.bind.Jsonb;
 import jakarta.json.bind.JsonbBuilder;
+import jakarta.json.bind.JsonbException;
+import jakarta.ws.rs.core.StreamingOutput;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Classe utilisée pour récupérer les informations nécessaires à la ressource
@@ -18,33 +41,414 @@ public class MenuService {
      */
     protected MenuRepositoryInterface menuRepo;
 
+    /**
+     * Sérialiseur JSON partagé par toutes les requêtes (Jsonb est thread-safe)
+     */
+    protected final Jsonb jsonb;
+
+    /**
+     * Cache du JSON déjà sérialisé de chaque menu
+     */
+    protected final MenuJsonCache jsonCache;
+
+    /**
+     * Pool de threads qui exécute les versions asynchrones des méthodes
+     */
+    protected final MenuTaskExecutor tasks;
+
+    /**
+     * Chargements en cours de chaque menu : les lectures simultanées d'un même menu partagent un seul chargement
+     */
+    protected final SingleFlight<Integer, MenuJson> menuLoads = new SingleFlight<>();
+
+    /**
+     * Diffusion des modifications des menus aux clients abonnés (null si aucune)
+     */
+    protected final MenuEventBroadcaster events;
+
     /**
      * Constructeur permettant d'injecter l'accès aux données
+     * (les versions asynchrones des méthodes s'exécutent alors dans le thread appelant)
+     *
+     * @param menuRepo objet implémentant l'interface d'accès aux données
+     */
+    public MenuService(MenuRepositoryInterface menuRepo) {
+        this(menuRepo, new MenuTaskExecutor(Runnable::run, 0));
+    }
+
+    /**
+     * Constructeur permettant d'injecter l'accès aux données et le pool de threads des traitements asynchrones
+     *
+     * @param menuRepo objet implémentant l'interface d'accès aux données
+     * @param tasks pool de threads des traitements asynchrones
+     */
+    public MenuService(MenuRepositoryInterface menuRepo, MenuTaskExecutor tasks) {
+        this(menuRepo, tasks, null);
+    }
+
+    /**
+     * Constructeur permettant d'injecter l'accès aux données, le pool de threads des traitements asynchrones
+     * et la diffusion des modifications
      *
      * @param menuRepo objet implémentant l'interface d'accès aux données
+     * @param tasks pool de threads des traitements asynchrones
+     * @param events diffusion des modifications des menus aux clients abonnés
      */
-    public @Inject MenuService(MenuRepositoryInterface menuRepo) {
+    public @Inject MenuService(MenuRepositoryInterface menuRepo, MenuTaskExecutor tasks, MenuEventBroadcaster events) {
         this.menuRepo = menuRepo;
+        this.tasks = tasks;
+        this.events = events;
+        this.jsonb = JsonbBuilder.create();
+        this.jsonCache = new MenuJsonCache();
+        if (events != null) {
+            // les menus modifiés par une autre instance ou une tâche de fond sont aussi oubliés
+            events.addListener(changes -> {
+                for (MenuChangeDTO change : changes) {
+                    jsonCache.invalidate(change.getId());
+                    menuLoads.forget(change.getId());
+                }
+            });
+        }
+    }
+
+    /**
+     * Méthode qui convertit un objet au format JSON avec le sérialiseur partagé
+     *
+     * @param object objet à convertir
+     * @return une chaîne de caractère contenant l'objet au format JSON, null en cas d'erreur
+     */
+    protected String toJson(Object object) {
+        try {
+            return jsonb.toJson(object);
+        } catch (Exception e) {
+            System.err.println(e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Méthode qui oublie tout ce qui a été lu d'un menu avant sa modification :
+     * JSON en cache et chargement en cours ; les abonnés aux modifications sont prévenus
+     *
+     * @param id la référence du menu modifié
+     */
+    protected void invalidateMenu(int id) {
+        jsonCache.invalidate(id);
+        menuLoads.forget(id);
+        menusChanged();
+    }
+
+    /**
+     * Méthode qui signale une écriture à la diffusion des modifications, qui relit alors le journal sans attendre
+     */
+    protected void menusChanged() {
+        if (events != null) {
+            events.changed();
+        }
     }
 
     /**
      * Méthode retournant les informations sur les menus au format JSON
      *
-     * @return une chaîne de caractère contenant les informations au format JSON
+     * @return les informations au format JSON, avec l'indication qu'un des menus est dégradé
      */
-    public String getAllMenusJSON() {
+    public MenuJson getAllMenusJSON() {
 
         ArrayList<Menu> allMenus = menuRepo.getAllMenu();
 
-        // création du json et conversion de la liste de menus
-        String result = null;
-        try (Jsonb jsonb = JsonbBuilder.create()) {
-            result = jsonb.toJson(allMenus);
-        } catch (Exception e) {
-            System.err.println(e.getMessage());
+        // conversion de la liste de menus en json
+        return MenuJson.of(toJson(allMenus), isAnyDegraded(allMenus));
+    }
+
+    /**
+     * Version asynchrone de getAllMenusJSON, exécutée sur le pool de threads
+     *
+     * @return CompletableFuture<MenuJson> les informations au format JSON
+     */
+    public CompletableFuture<MenuJson> getAllMenusJSONAsync() {
+        return tasks.supply(this::getAllMenusJSON);
+    }
+
+    /**
+     * Méthode retournant les informations sur les menus au format JSON, écrites au fil de l'eau :
+     * chaque menu est sérialisé et écrit dans la réponse dès qu'il est complété avec ses plats
+     *
+     * @return StreamingOutput flux qui écrit le tableau JSON des menus
+     */
+    public StreamingOutput getAllMenusStream() {
+        return output -> {
+            boolean[] first = {true};
+            output.write('[');
+            try {
+                menuRepo.streamAllMenu(menu -> {
+                    try {
+                        if (!first[0]) {
+                            output.write(',');
+                        }
+                        first[0] = false;
+                        output.write(jsonb.toJson(menu).getBytes(StandardCharsets.UTF_8));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                // le client a fermé la connexion
+                throw e.getCause();
+            }
+            output.write(']');
+        };
+    }
+
+    /**
+     * Méthode retournant au format JSON une page de menus avec ses informations de pagination
+     *
+     * @param query MenuQuery taille de page, curseur, tri et filtres
+     * @return la page au format JSON, avec l'indication qu'un des menus est dégradé
+     */
+    public MenuJson getMenuPageJSON(MenuQuery query) {
+
+        MenuPageDTO page = menuRepo.getMenuPage(query);
+
+        // conversion de la page en json
+        return MenuJson.of(toJson(page), isAnyDegraded(page.getItems()));
+    }
+
+    /**
+     * Version asynchrone de getMenuPageJSON, exécutée sur le pool de threads
+     *
+     * @param query MenuQuery taille de page, curseur, tri et filtres
+     * @return CompletableFuture<MenuJson> la page au format JSON
+     */
+    public CompletableFuture<MenuJson> getMenuPageJSONAsync(MenuQuery query) {
+        return tasks.supply(() -> getMenuPageJSON(query));
+    }
+
+    /**
+     * Méthode retournant au format JSON les menus limités aux champs d'une projection
+     *
+     * @param projection MenuProjection champs à renvoyer et plats à récupérer ou non
+     * @return les informations au format JSON, avec l'indication qu'un des menus est dégradé
+     */
+    public MenuJson getAllMenusJSON(MenuProjection projection) {
+        ArrayList<Menu> allMenus = menuRepo.getAllMenu(projection);
+        List<Map<String, Object>> menus = new ArrayList<>();
+        for (Menu menu : allMenus) {
+            menus.add(toProjectedMap(menu, projection));
+        }
+        return MenuJson.of(toJson(menus), isAnyDegraded(allMenus));
+    }
+
+    /**
+     * Méthode retournant au format JSON une page de menus limités aux champs d'une projection
+     *
+     * @param query MenuQuery taille de page, curseur, tri et filtres
+     * @param projection MenuProjection champs à renvoyer et plats à récupérer ou non
+     * @return la page au format JSON, avec l'indication qu'un des menus est dégradé
+     */
+    public MenuJson getMenuPageJSON(MenuQuery query, MenuProjection projection) {
+        MenuPageDTO page = menuRepo.getMenuPage(query, projection);
+
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (Menu menu : page.getItems()) {
+            items.add(toProjectedMap(menu, projection));
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hasMore", page.isHasMore());
+        result.put("items", items);
+        result.put("limit", page.getLimit());
+        if (page.getNext() != null) {
+            result.put("next", page.getNext());
+        }
+        return MenuJson.of(toJson(result), isAnyDegraded(page.getItems()));
+    }
+
+    /**
+     * Méthode retournant au format JSON un menu limité aux champs d'une projection
+     * (sans passer par le cache, qui ne contient que les menus complets)
+     *
+     * @param id la référence du menu recherché
+     * @param projection MenuProjection champs à renvoyer et plats à récupérer ou non
+     * @return les informations au format JSON, null si le menu n'existe pas
+     */
+    public MenuJson getMenuJSON(int id, MenuProjection projection) {
+        Menu menu = menuRepo.getMenu(id, projection);
+        return menu == null ? null : MenuJson.of(toJson(toProjectedMap(menu, projection)), menu.isDegraded());
+    }
+
+    /**
+     * Méthode retournant au format JSON plusieurs menus demandés par leur id :
+     * les menus trouvés, indexés par leur id (menus), et les id introuvables (missing)
+     *
+     * @param ids List<Integer> id des menus recherchés
+     * @param projection MenuProjection champs à renvoyer et plats à récupérer ou non, null pour les menus complets
+     * @return les menus au format JSON, avec l'indication qu'un des menus est dégradé
+     */
+    public MenuJson getMenusBatchJSON(List<Integer> ids, MenuProjection projection) {
+        Map<Integer, Menu> menusById = menuRepo.getMenus(ids, projection == null ? MenuProjection.ALL : projection);
+
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : new LinkedHashSet<>(ids)) {
+            if (!menusById.containsKey(id)) {
+                missing.add(id);
+            }
         }
 
-        return result;
+        if (projection == null) {
+            MenuBatchDTO batch = new MenuBatchDTO();
+            for (Menu menu : menusById.values()) {
+                batch.getMenus().put(String.valueOf(menu.getId()), menu);
+            }
+            batch.setMissing(missing);
+            return MenuJson.of(toJson(batch), isAnyDegraded(menusById.values()));
+        }
+
+        Map<String, Object> menus = new LinkedHashMap<>();
+        for (Menu menu : menusById.values()) {
+            menus.put(String.valueOf(menu.getId()), toProjectedMap(menu, projection));
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("menus", menus);
+        result.put("missing", missing);
+        return MenuJson.of(toJson(result), isAnyDegraded(menusById.values()));
+    }
+
+    /**
+     * Version asynchrone de getMenusBatchJSON, exécutée sur le pool de threads
+     *
+     * @param ids List<Integer> id des menus recherchés
+     * @param projection MenuProjection champs à renvoyer et plats à récupérer ou non, null pour les menus complets
+     * @return CompletableFuture<MenuJson> les menus au format JSON
+     */
+    public CompletableFuture<MenuJson> getMenusBatchJSONAsync(List<Integer> ids, MenuProjection projection) {
+        return tasks.supply(() -> getMenusBatchJSON(ids, projection));
+    }
+
+    /**
+     * Méthode retournant au format JSON les modifications des menus depuis un jeton (flux de synchronisation).
+     * Seule la dernière modification de chaque menu de la page est renvoyée : upsert avec l'état actuel du menu,
+     * ou delete si le menu n'existe plus. Sans jeton, aucune modification n'est renvoyée et next contient
+     * le jeton de la dernière modification (à prendre avant une lecture complète des menus).
+     *
+     * @param since Long jeton de la dernière modification connue, null pour obtenir le jeton actuel
+     * @param limit int nombre maximum d'entrées du journal lues
+     * @param projection MenuProjection champs à renvoyer et plats à récupérer ou non, null pour les menus complets
+     * @return la page de modifications au format JSON, avec l'indication qu'un des menus est dégradé,
+     *         null si des modifications postérieures à since ont été supprimées du journal (le client doit se resynchroniser)
+     */
+    public MenuJson getChangesJSON(Long since, int limit, MenuProjection projection) {
+        MenuChangePageDTO page = new MenuChangePageDTO();
+        if (since == null) {
+            page.setNext(String.valueOf(menuRepo.getLastChange()));
+            return MenuJson.of(toJson(page), false);
+        }
+        if (isChangeLogTruncated(since)) {
+            return null;
+        }
+
+        // une entrée de plus que la taille de page est lue pour savoir s'il existe une page suivante
+        List<MenuChangeDTO> entries = menuRepo.getChanges(since, limit + 1);
+        page.setHasMore(entries.size() > limit);
+        if (page.isHasMore()) {
+            entries = entries.subList(0, limit);
+        }
+        page.setNext(String.valueOf(entries.isEmpty() ? since : entries.get(entries.size() - 1).getSeq()));
+
+        // dernière modification de chaque menu, dans l'ordre du journal
+        Map<Integer, MenuChangeDTO> lastChanges = new LinkedHashMap<>();
+        for (MenuChangeDTO entry : entries) {
+            lastChanges.remove(entry.getId());
+            lastChanges.put(entry.getId(), entry);
+        }
+
+        List<Integer> upsertIds = new ArrayList<>();
+        for (MenuChangeDTO change : lastChanges.values()) {
+            if (MenuChangeDTO.UPSERT.equals(change.getType())) {
+                upsertIds.add(change.getId());
+            }
+        }
+        Map<Integer, Menu> menusById = upsertIds.isEmpty() ? new HashMap<>()
+                : menuRepo.getMenus(upsertIds, projection == null ? MenuProjection.ALL : projection);
+
+        for (MenuChangeDTO change : lastChanges.values()) {
+            Menu menu = menusById.get(change.getId());
+            if (menu == null) {
+                // menu supprimé depuis (sa suppression est plus loin dans le journal)
+                change.setType(MenuChangeDTO.DELETE);
+            } else {
+                change.setMenu(projection == null ? menu : toProjectedMap(menu, projection));
+            }
+            page.getChanges().add(change);
+        }
+        return MenuJson.of(toJson(page), isAnyDegraded(menusById.values()));
+    }
+
+    /**
+     * Méthode qui indique si des modifications postérieures à un jeton ont été supprimées du journal
+     *
+     * @param since long jeton de la dernière modification connue
+     * @return boolean true si la plus ancienne modification gardée est postérieure à la suivante du jeton
+     */
+    protected boolean isChangeLogTruncated(long since) {
+        long first = menuRepo.getFirstChange();
+        return first > 0 && since < first - 1;
+    }
+
+    /**
+     * Version asynchrone de getChangesJSON, exécutée sur le pool de threads
+     *
+     * @param since Long jeton de la dernière modification connue, null pour obtenir le jeton actuel
+     * @param limit int nombre maximum d'entrées du journal lues
+     * @param projection MenuProjection champs à renvoyer et plats à récupérer ou non, null pour les menus complets
+     * @return CompletableFuture<MenuJson> la page de modifications au format JSON
+     */
+    public CompletableFuture<MenuJson> getChangesJSONAsync(Long since, int limit, MenuProjection projection) {
+        return tasks.supply(() -> getChangesJSON(since, limit, projection));
+    }
+
+    /**
+     * Méthode qui ne garde d'un menu que les champs demandés, dans l'ordre de la projection
+     *
+     * @param menu Menu menu lu avec la projection
+     * @param projection MenuProjection champs à renvoyer et plats à récupérer ou non
+     * @return Map<String, Object> champs du menu à sérialiser
+     */
+    protected Map<String, Object> toProjectedMap(Menu menu, MenuProjection projection) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        for (String field : projection.getFields()) {
+            switch (field) {
+                case "id":
+                    fields.put(field, menu.getId());
+                    break;
+                case "author":
+                    fields.put(field, menu.getAuthor());
+                    break;
+                case "title":
+                    fields.put(field, menu.getTitle());
+                    break;
+                case "description":
+                    fields.put(field, menu.getDescription());
+                    break;
+                case "price":
+                    fields.put(field, menu.getPrice());
+                    break;
+                case "creationDate":
+                    fields.put(field, menu.getCreationDate());
+                    break;
+                case "version":
+                    fields.put(field, menu.getVersion());
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (projection.isExpandPlats()) {
+            fields.put(MenuProjection.PLATS_FIELD, menu.getListPlat());
+            fields.put("degraded", menu.isDegraded());
+            if (menu.getPlatsSyncedAt() != null) {
+                fields.put("platsSyncedAt", menu.getPlatsSyncedAt());
+            }
+        }
+        return fields;
     }
 
     /**
@@ -54,20 +458,101 @@ public class MenuService {
      * @return une chaîne de caractère contenant les informations au format JSON
      */
     public String getMenuJSON(int id) {
-        String result = null;
-        Menu myMenu = menuRepo.getMenu(id);
+        MenuJson result = getMenuJSONBytes(id);
+        return result == null ? null : result.toString();
+    }
 
-        // si le menu a été trouvé
-        if (myMenu != null) {
+    /**
+     * Méthode retournant le JSON (octets UTF-8) d'un menu recherché.
+     * Le JSON d'un menu déjà demandé est servi depuis le cache sans relire ni resérialiser le menu,
+     * et les demandes simultanées d'un menu absent du cache partagent une seule lecture.
+     *
+     * @param id la référence du menu recherché
+     * @return le JSON du menu et l'indication que le menu est dégradé, null si le menu n'existe pas
+     */
+    public MenuJson getMenuJSONBytes(int id) {
+        return jsonCache.get(id, () -> menuLoads.execute(id, () -> {
+            Menu myMenu = menuRepo.getMenu(id);
 
-            // création du json et conversion du menus
-            try (Jsonb jsonb = JsonbBuilder.create()) {
-                result = jsonb.toJson(myMenu);
-            } catch (Exception e) {
-                System.err.println(e.getMessage());
+            // si le menu a été trouvé, conversion du menu en json
+            // (un menu incomplet, api plats indisponible, n'est pas gardé par le cache)
+            return myMenu == null ? null : MenuJson.of(toJson(myMenu), myMenu.isDegraded());
+        }));
+    }
+
+    /**
+     * Méthode qui indique si un des menus est dégradé
+     * (plats incomplets car l'api plats & utilisateurs était indisponible) :
+     * une réponse qui le contient ne doit pas être mise en cache par le client
+     *
+     * @param menus les menus de la réponse
+     * @return true si un des menus est dégradé
+     */
+    protected static boolean isAnyDegraded(Collection<Menu> menus) {
+        for (Menu menu : menus) {
+            if (menu.isDegraded()) {
+                return true;
             }
         }
-        return result;
+        return false;
+    }
+
+    /**
+     * Version asynchrone de getMenuJSONBytes, exécutée sur le pool de threads
+     *
+     * @param id la référence du menu recherché
+     * @return CompletableFuture<MenuJson> le JSON du menu, null si le menu n'existe pas
+     */
+    public CompletableFuture<MenuJson> getMenuJSONBytesAsync(int id) {
+        return tasks.supply(() -> getMenuJSONBytes(id));
+    }
+
+    /**
+     * Méthode retournant la version d'un menu (sans lire ses plats)
+     *
+     * @param id la référence du menu
+     * @return Long version du menu, null si le menu n'existe pas
+     */
+    public Long getMenuVersion(int id) {
+        return menuRepo.getMenuVersion(id);
+    }
+
+    /**
+     * Version asynchrone de getMenuVersion, exécutée sur le pool de threads
+     *
+     * @param id la référence du menu
+     * @return CompletableFuture<Long> version du menu, null si le menu n'existe pas
+     */
+    public CompletableFuture<Long> getMenuVersionAsync(int id) {
+        return tasks.supply(() -> getMenuVersion(id));
+    }
+
+    /**
+     * Méthode retournant la version de l'ensemble des menus (sans lire les menus)
+     *
+     * @return String version de la liste des menus
+     */
+    public String getMenusVersion() {
+        return menuRepo.getMenusVersion();
+    }
+
+    /**
+     * Méthode qui indique si la version des menus couvre aussi leurs plats : les ETag des réponses
+     * qui contiennent des plats peuvent alors être construits avant de lire les menus
+     *
+     * @return boolean true si la version d'un menu change quand un de ses plats change
+     */
+    public boolean isPlatDataVersioned() {
+        return menuRepo.isPlatDataVersioned();
+    }
+
+    /**
+     * Version asynchrone de getMenusVersion, exécutée sur le pool de threads
+     *
+     * @return CompletableFuture<String> version de la liste des menus
+     */
+    public CompletableFuture<String> getMenusVersionAsync() {
+        return tasks.supply(this::getMenusVersion);
     }
 
     /**
@@ -78,15 +563,17 @@ public class MenuService {
     public String getAllPlatFromMenuJson(int id_menu) {
         ArrayList<MenuPlatDTO> listPlatDTO = menuRepo.getAllPlatFromMenu(id_menu);
 
-        // création du json et conversion de la liste des plats associées au menu
-        String result = null;
-        try (Jsonb jsonb = JsonbBuilder.create()) {
-            result = jsonb.toJson(listPlatDTO);
-        } catch (Exception e) {
-            System.err.println(e.getMessage());
-        }
+        // conversion de la liste des plats associées au menu en json
+        return toJson(listPlatDTO);
+    }
 
-        return result;
+    /**
+     * Version asynchrone de getAllPlatFromMenuJson, exécutée sur le pool de threads
+     * @param id_menu id du menu
+     * @return CompletableFuture<String> les plats du menu au format JSON
+     */
+    public CompletableFuture<String> getAllPlatFromMenuJsonAsync(int id_menu) {
+        return tasks.supply(() -> getAllPlatFromMenuJson(id_menu));
     }
 
     /**
@@ -97,7 +584,9 @@ public class MenuService {
      * @return true si le menu a pu être mis à jours, false si non
      */
     public boolean updateMenu(int id, Menu menu) {
-        return menuRepo.updateMenu(id, menu.author, menu.title, menu.description, menu.price);
+        boolean updated = menuRepo.updateMenu(id, menu.author, menu.title, menu.description, menu.price);
+        invalidateMenu(id);
+        return updated;
     }
 
     /**
@@ -108,7 +597,231 @@ public class MenuService {
      * @return true si la création s'est bien déroulée, false si non
      */
     public boolean createMenu(String author, String title, String description, List<Integer> listPlat) {
-        return menuRepo.createMenu(author, title, description, listPlat);
+        boolean created = menuRepo.createMenu(author, title, description, listPlat);
+        menusChanged();
+        return created;
+    }
+
+    /**
+     * Ligne lue dans le flux d'import : le menu à créer, ou la raison de son refus
+     */
+    public static final class ImportLine {
+        private final long line;
+        private final MenuCreationRequest request;
+        private final String error;
+
+        private ImportLine(long line, MenuCreationRequest request, String error) {
+            this.line = line;
+            this.request = request;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Méthode qui lit et valide entièrement un flux NDJSON de menus à importer (un MenuCreationRequest par ligne).
+     * Le corps de la requête est lu avant d'écrire la réponse : un conteneur de servlets ne garantit pas
+     * qu'il reste lisible une fois la réponse commencée.
+     *
+     * @param input InputStream flux NDJSON des menus à créer
+     * @param maxLines int nombre maximum de lignes non vides acceptées
+     * @return List<ImportLine> lignes lues (menu valide ou raison du refus), null si le flux dépasse maxLines lignes
+     * @throws IOException si le corps de la requête ne peut pas être lu
+     */
+    public List<ImportLine> readImport(InputStream input, int maxLines) throws IOException {
+        List<ImportLine> lines = new ArrayList<>();
+        long lineNumber = 0;
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            ++lineNumber;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (lines.size() >= maxLines) {
+                return null;
+            }
+
+            MenuCreationRequest request;
+            try {
+                request = jsonb.fromJson(line, MenuCreationRequest.class);
+            } catch (JsonbException e) {
+                lines.add(new ImportLine(lineNumber, null, "JSON invalide"));
+                continue;
+            }
+            String invalid = validateImport(request);
+            lines.add(invalid == null ? new ImportLine(lineNumber, request, null) : new ImportLine(lineNumber, null, invalid));
+        }
+        return lines;
+    }
+
+    /**
+     * Méthode qui importe des menus déjà lus par readImport.
+     * Les menus valides sont créés par lots de taille bornée (apimenus.menus.import.batch-size),
+     * chaque lot dans une transaction ; le résultat de chaque ligne est écrit en NDJSON dès que son lot est traité.
+     * Le prix de chaque plat distinct n'est demandé qu'une fois pour tout l'import.
+     *
+     * @param lines List<ImportLine> lignes lues dans le flux d'import
+     * @return StreamingOutput flux qui écrit le résultat de chaque ligne (line, status, id ou error) en NDJSON
+     */
+    public StreamingOutput importMenus(List<ImportLine> lines) {
+        int batchSize = Math.max(1, ApiConfig.getInt("apimenus.menus.import.batch-size", 100));
+
+        return output -> {
+            Map<Integer, Float> platPrices = new HashMap<>();
+            List<MenuCreationRequest> batch = new ArrayList<>(batchSize);
+            List<Long> batchLines = new ArrayList<>(batchSize);
+
+            for (ImportLine line : lines) {
+                if (line.error != null) {
+                    writeImportResult(output, new MenuImportResultDTO(line.line, "error", null, line.error));
+                    continue;
+                }
+
+                batch.add(line.request);
+                batchLines.add(line.line);
+                if (batch.size() >= batchSize) {
+                    importBatch(batch, batchLines, platPrices, output);
+                }
+            }
+            importBatch(batch, batchLines, platPrices, output);
+        };
+    }
+
+    /**
+     * Méthode qui vérifie un menu à importer
+     * @param request MenuCreationRequest menu lu dans le flux
+     * @return String raison du refus, null si le menu est valide
+     */
+    protected String validateImport(MenuCreationRequest request) {
+        if (request == null) {
+            return "Menu vide";
+        }
+        if (request.getAuthor() == null || request.getAuthor().isBlank()) {
+            return "author obligatoire";
+        }
+        if (request.getTitle() == null || request.getTitle().isBlank()) {
+            return "title obligatoire";
+        }
+        if (request.getListPlat() != null && request.getListPlat().contains(null)) {
+            return "listPlat contient un id vide";
+        }
+        return null;
+    }
+
+    /**
+     * Méthode qui crée un lot de menus dans une transaction, écrit le résultat de chaque ligne puis vide le lot
+     * @param batch List<MenuCreationRequest> menus du lot
+     * @param batchLines List<Long> numéros de ligne des menus du lot
+     * @param platPrices Map<Integer, Float> prix des plats déjà connus pendant l'import
+     * @param output OutputStream flux des résultats
+     * @throws IOException si le client a fermé la connexion
+     */
+    private void importBatch(List<MenuCreationRequest> batch, List<Long> batchLines,
+                             Map<Integer, Float> platPrices, OutputStream output) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Integer> createdIds = null;
+        String error = null;
+        try {
+            createdIds = menuRepo.createMenus(batch, platPrices);
+            menusChanged();
+        } catch (RuntimeException e) {
+            // le lot entier est annulé, l'import continue avec le lot suivant
+            System.err.println(e.getMessage());
+            error = "Erreur lors de l'enregistrement du lot";
+        }
+
+        for (int i = 0; i < batch.size(); ++i) {
+            if (createdIds == null) {
+                writeImportResult(output, new MenuImportResultDTO(batchLines.get(i), "error", null, error));
+            } else if (createdIds.get(i) == null) {
+                writeImportResult(output, new MenuImportResultDTO(batchLines.get(i), "error", null, "Plat introuvable"));
+            } else {
+                writeImportResult(output, new MenuImportResultDTO(batchLines.get(i), "created", createdIds.get(i), null));
+            }
+        }
+        output.flush();
+        batch.clear();
+        batchLines.clear();
+    }
+
+    /**
+     * Méthode qui écrit le résultat d'une ligne importée (une ligne JSON)
+     * @param output OutputStream flux des résultats
+     * @param result MenuImportResultDTO résultat de la ligne
+     * @throws IOException si le client a fermé la connexion
+     */
+    private void writeImportResult(OutputStream output, MenuImportResultDTO result) throws IOException {
+        output.write(jsonb.toJson(result).getBytes(StandardCharsets.UTF_8));
+        output.write('\n');
+    }
+
+    /**
+     * Méthode qui lit un ou plusieurs changements de prix de plats au format JSON
+     *
+     * @param body String un changement ou un tableau de changements au format JSON
+     * @return List<PlatPriceChangeDTO> changements lus, null si le JSON est invalide
+     */
+    public List<PlatPriceChangeDTO> parsePlatPriceChanges(String body) {
+        try {
+            if (body != null && body.trim().startsWith("[")) {
+                return jsonb.fromJson(body, new ArrayList<PlatPriceChangeDTO>() {}.getClass().getGenericSuperclass());
+            }
+            return Collections.singletonList(jsonb.fromJson(body, PlatPriceChangeDTO.class));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Méthode qui répercute des changements de prix de plats sur les menus qui les contiennent
+     * (une requête ensembliste par changement), puis oublie les menus modifiés
+     *
+     * @param changes List<PlatPriceChangeDTO> changements de prix, dans l'ordre de réception
+     * @return une chaîne de caractère contenant au format JSON le nombre total de menus modifiés (menus)
+     *         et le résultat de chaque changement (results : id_plat et menus, ou error)
+     */
+    public String repricePlatsJSON(List<PlatPriceChangeDTO> changes) {
+        int total = 0;
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (PlatPriceChangeDTO change : changes) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("id_plat", change.getId_plat());
+            try {
+                List<Integer> menuIds = menuRepo.repricePlat(change.getId_plat(), change.getOldPrice(), change.getPrice());
+                if (menuIds == null) {
+                    result.put("error", "Ancien prix inconnu : oldPrice obligatoire");
+                } else {
+                    for (Integer id : menuIds) {
+                        invalidateMenu(id);
+                    }
+                    result.put("menus", menuIds.size());
+                    total += menuIds.size();
+                }
+            } catch (RuntimeException e) {
+                System.err.println(e.getMessage());
+                result.put("error", "Erreur lors de la mise à jour des menus");
+            }
+            results.add(result);
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("menus", total);
+        response.put("results", results);
+        return toJson(response);
+    }
+
+    /**
+     * Version asynchrone de repricePlatsJSON, exécutée sur le pool de threads
+     *
+     * @param changes List<PlatPriceChangeDTO> changements de prix
+     * @return CompletableFuture<String> le résultat au format JSON
+     */
+    public CompletableFuture<String> repricePlatsJSONAsync(List<PlatPriceChangeDTO> changes) {
+        return tasks.supply(() -> repricePlatsJSON(changes));
     }
 
     /**
@@ -117,7 +830,9 @@ public class MenuService {
      * @return true si la suppression s'est bien déroulée, false si non
      */
     public boolean deleteMenu(int id) {
-        return menuRepo.deleteMenu(id);
+        boolean deleted = menuRepo.deleteMenu(id);
+        invalidateMenu(id);
+        return deleted;
     }
 
     /**
@@ -127,7 +842,19 @@ public class MenuService {
      * @return true si l'association s'est bien déroulée, false si non
      */
     public boolean addPlatToMenu(int id_menu, int id_plat) {
-        return menuRepo.addPlatToMenu(id_menu, id_plat);
+        boolean added = menuRepo.addPlatToMenu(id_menu, id_plat);
+        invalidateMenu(id_menu);
+        return added;
+    }
+
+    /**
+     * Version asynchrone de addPlatToMenu, exécutée sur le pool de threads
+     * @param id_menu int id du menu
+     * @param id_plat int id du plat à associer
+     * @return CompletableFuture<Boolean> true si l'association s'est bien déroulée, false si non
+     */
+    public CompletableFuture<Boolean> addPlatToMenuAsync(int id_menu, int id_plat) {
+        return tasks.supply(() -> addPlatToMenu(id_menu, id_plat));
     }
 
     /**
@@ -137,7 +864,19 @@ public class MenuService {
      * @return true si les associations se sont bien déroulées, false si non
      */
     public boolean addAllPlatToMenu(int id_menu, List<Integer> listPlatId){
-        return menuRepo.addAllPlatToMenu(id_menu, listPlatId);
+        boolean added = menuRepo.addAllPlatToMenu(id_menu, listPlatId);
+        invalidateMenu(id_menu);
+        return added;
+    }
+
+    /**
+     * Version asynchrone de addAllPlatToMenu, exécutée sur le pool de threads
+     * @param id_menu int id du menu
+     * @param listPlatId List<Integer> liste des id des plats à associer au menu
+     * @return CompletableFuture<Boolean> true si les associations se sont bien déroulées, false si non
+     */
+    public CompletableFuture<Boolean> addAllPlatToMenuAsync(int id_menu, List<Integer> listPlatId) {
+        return tasks.supply(() -> addAllPlatToMenu(id_menu, listPlatId));
     }
 
     /**
@@ -147,7 +886,19 @@ public class MenuService {
      * @return true si la disassociation s'est bien déroulée, false si non
      */
     public boolean removePlatFromMenu(int id_menu, int id_plat) {
-        return menuRepo.removePlatFromMenu(id_menu, id_plat);
+        boolean removed = menuRepo.removePlatFromMenu(id_menu, id_plat);
+        invalidateMenu(id_menu);
+        return removed;
+    }
+
+    /**
+     * Version asynchrone de removePlatFromMenu, exécutée sur le pool de threads
+     * @param id_menu int id du menu
+     * @param id_plat int id du plat à dissocier
+     * @return CompletableFuture<Boolean> true si la disassociation s'est bien déroulée, false si non
+     */
+    public CompletableFuture<Boolean> removePlatFromMenuAsync(int id_menu, int id_plat) {
+        return tasks.supply(() -> removePlatFromMenu(id_menu, id_plat));
     }
 
     /**
@@ -156,7 +907,18 @@ public class MenuService {
      * @return true si les disassociation se sont bien déroulées, false si non
      */
     public boolean removeAllPlatsFromMenu(int id_menu) {
-        return menuRepo.removeAllPlatsFromMenu(id_menu);
+        boolean removed = menuRepo.removeAllPlatsFromMenu(id_menu);
+        invalidateMenu(id_menu);
+        return removed;
+    }
+
+    /**
+     * Version asynchrone de removeAllPlatsFromMenu, exécutée sur le pool de threads
+     * @param id_menu int id du menu
+     * @return CompletableFuture<Boolean> true si les disassociation se sont bien déroulées, false si non
+     */
+    public CompletableFuture<Boolean> removeAllPlatsFromMenuAsync(int id_menu) {
+        return tasks.supply(() -> removeAllPlatsFromMenu(id_menu));
     }
 
 }
@@ -0,0 +1,198 @@
+package fr.univamu.iut.apimenus;
+
+import jakarta.ws.rs.ServiceUnavailableException;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.core.Response;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Pool de threads dédié aux traitements des endpoints asynchrones (JDBC, appels à l'api plats).
+ * Les threads du conteneur sont libérés pendant ces traitements ; le pool et sa file d'attente sont bornés :
+ * une requête refusée reçoit une erreur 503, une requête trop longue une erreur 504
+ * et le thread qui la traitait est interrompu (les appels en cours à l'api plats sont annulés).
+ * Avec des threads virtuels (un thread par traitement), le nombre de traitements simultanés n'est pas borné :
+ * seuls les emprunts de connexion à la base (BoundedDataSource) et les appels à l'api plats (PlatApiClient) le sont.
+ */
+public class MenuTaskExecutor {
+
+    /**
+     * Threads qui exécutent les traitements
+     */
+    private Executor executor;
+
+    /**
+     * Délai par défaut d'une opération (0 pour aucun délai)
+     */
+    private long defaultTimeoutMillis;
+
+    /**
+     * Constructeur réservé au conteneur CDI (création du proxy du bean)
+     */
+    protected MenuTaskExecutor() {
+    }
+
+    /**
+     * Constructeur du pool
+     * @param poolSize int nombre de threads
+     * @param queueSize int nombre de traitements en attente avant de refuser les suivants
+     * @param defaultTimeoutMillis long délai par défaut d'une opération (0 pour aucun délai)
+     */
+    public MenuTaskExecutor(int poolSize, int queueSize, long defaultTimeoutMillis) {
+        this(createPool(poolSize, queueSize), defaultTimeoutMillis);
+    }
+
+    /**
+     * Constructeur à partir d'un Executor existant
+     * @param executor Executor threads qui exécutent les traitements (Runnable::run pour les exécuter sur place)
+     * @param defaultTimeoutMillis long délai par défaut d'une opération (0 pour aucun délai)
+     */
+    public MenuTaskExecutor(Executor executor, long defaultTimeoutMillis) {
+        this.executor = executor;
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+    }
+
+    /**
+     * Méthode qui crée un pool de threads borné
+     * @param poolSize int nombre de threads
+     * @param queueSize int nombre de traitements en attente avant de refuser les suivants
+     * @return ExecutorService le pool
+     */
+    private static ExecutorService createPool(int poolSize, int queueSize) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        int size = Math.max(1, poolSize);
+        return new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "menu-task-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Méthode qui exécute un traitement sur le pool
+     * @param task Supplier<T> traitement à exécuter
+     * @return CompletableFuture<T> résultat du traitement, en erreur 503 si le pool est saturé
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runner runner = new Runner();
+        // l'annulation du résultat (délai dépassé) interrompt le thread qui exécute le traitement
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                runner.interrupt();
+            }
+        });
+
+        try {
+            executor.execute(() -> {
+                if (result.isDone() || !runner.start()) {
+                    return;
+                }
+                try {
+                    result.complete(task.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    runner.finish();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new ServiceUnavailableException("Serveur surchargé, réessayez plus tard"));
+        }
+        return result;
+    }
+
+    /**
+     * Thread qui exécute un traitement, pour pouvoir l'interrompre sans toucher au traitement suivant du même thread
+     */
+    private static final class Runner {
+        private Thread thread;
+        private boolean interrupted;
+
+        /**
+         * Méthode appelée par le thread au début du traitement
+         * @return boolean false si le traitement a déjà été annulé
+         */
+        private synchronized boolean start() {
+            if (interrupted) {
+                return false;
+            }
+            thread = Thread.currentThread();
+            return true;
+        }
+
+        /**
+         * Méthode appelée par le thread à la fin du traitement : l'interruption éventuelle est effacée
+         */
+        private synchronized void finish() {
+            thread = null;
+            Thread.interrupted();
+        }
+
+        /**
+         * Méthode qui interrompt le traitement s'il est en cours
+         */
+        private synchronized void interrupt() {
+            interrupted = true;
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Méthode qui reprend une requête suspendue avec le résultat d'un traitement asynchrone.
+     * Le délai de l'opération est lu dans apimenus.async.<operation>.timeout-ms (apimenus.async.timeout-ms par défaut) :
+     * passé ce délai, le traitement est abandonné et la requête reçoit une erreur 504.
+     * @param asyncResponse AsyncResponse requête suspendue
+     * @param operation String nom de l'opération
+     * @param result CompletionStage<?> résultat du traitement (une Response ou l'entité à renvoyer)
+     */
+    public void resume(AsyncResponse asyncResponse, String operation, CompletionStage<?> result) {
+        long timeoutMillis = ApiConfig.getLong("apimenus.async." + operation + ".timeout-ms", defaultTimeoutMillis);
+        CompletableFuture<?> future = result.toCompletableFuture();
+
+        if (timeoutMillis > 0) {
+            asyncResponse.setTimeoutHandler(response -> {
+                future.cancel(true);
+                response.resume(new WebApplicationException("Délai dépassé pour l'opération " + operation,
+                        Response.Status.GATEWAY_TIMEOUT));
+            });
+            asyncResponse.setTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+
+        future.whenComplete((value, error) -> {
+            if (error == null) {
+                asyncResponse.resume(value);
+            } else {
+                asyncResponse.resume(unwrap(error));
+            }
+        });
+    }
+
+    /**
+     * Méthode qui retrouve l'erreur d'origine d'un traitement asynchrone
+     * @param error Throwable erreur éventuellement enveloppée dans une CompletionException
+     * @return Throwable erreur d'origine
+     */
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * Méthode qui arrête le pool
+     */
+    public void close() {
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdown();
+        }
+    }
+}
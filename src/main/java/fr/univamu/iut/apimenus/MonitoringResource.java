@@ -0,0 +1,136 @@
+package fr.univamu.iut.apimenus;
+
+import fr.univamu.iut.apimenus.dto.PlatApiStatsDTO;
+import fr.univamu.iut.apimenus.dto.PlatCacheStatsDTO;
+import fr.univamu.iut.apimenus.dto.PlatSnapshotSyncReportDTO;
+import fr.univamu.iut.apimenus.dto.PriceReconcileReportDTO;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Ressource qui publie l'état interne de l'api (caches, dépendances)
+ * (point d'accès de l'API REST)
+ */
+@Path("/monitoring")
+@ApplicationScoped
+public class MonitoringResource {
+
+    /**
+     * Cache des plats de l'api plats & utilisateurs
+     */
+    private PlatCache platCache;
+
+    /**
+     * Client de l'api plats & utilisateurs (disjoncteur et cloisonnement)
+     */
+    private PlatApiClient platApi;
+
+    /**
+     * Tâche de vérification des prix des menus
+     */
+    private PriceReconciler priceReconciler;
+
+    /**
+     * Tâche de synchronisation de la copie locale des plats
+     */
+    private PlatSnapshotSync snapshotSync;
+
+    /**
+     * Constructeur par défaut
+     */
+    public MonitoringResource() {
+    }
+
+    /**
+     * Constructeur permettant d'injecter les composants surveillés
+     *
+     * @param platCache cache des plats
+     * @param platApi client de l'api plats & utilisateurs
+     * @param priceReconciler tâche de vérification des prix des menus
+     * @param snapshotSync tâche de synchronisation de la copie locale des plats
+     */
+    public @Inject MonitoringResource(PlatCache platCache, PlatApiClient platApi, PriceReconciler priceReconciler,
+                                      PlatSnapshotSync snapshotSync) {
+        this.platCache = platCache;
+        this.platApi = platApi;
+        this.priceReconciler = priceReconciler;
+        this.snapshotSync = snapshotSync;
+    }
+
+    /**
+     * Endpoint permettant de récupérer les compteurs du cache des plats
+     *
+     * @return les compteurs de succès, d'échecs et d'évictions au format JSON
+     */
+    @GET
+    @Path("plat-cache")
+    @Produces("application/json")
+    public PlatCacheStatsDTO getPlatCacheStats() {
+        return platCache.getStats();
+    }
+
+    /**
+     * Endpoint permettant de récupérer l'état du disjoncteur et les refus d'appels vers l'api plats
+     *
+     * @return l'état du disjoncteur et les compteurs de succès, d'échecs et de refus au format JSON
+     */
+    @GET
+    @Path("plat-api")
+    @Produces("application/json")
+    public PlatApiStatsDTO getPlatApiStats() {
+        return platApi.getStats();
+    }
+
+    /**
+     * Endpoint permettant de récupérer le rapport de la dernière vérification des prix des menus
+     *
+     * @return le nombre de menus vérifiés, corrigés et ignorés et les écarts corrigés au format JSON
+     */
+    @GET
+    @Path("price-reconciler")
+    @Produces("application/json")
+    public PriceReconcileReportDTO getPriceReconcileReport() {
+        return priceReconciler.getReport();
+    }
+
+    /**
+     * Endpoint permettant de lancer en arrière-plan une vérification des prix des menus sans attendre la prochaine
+     *
+     * @return une réponse 202, le rapport est ensuite disponible avec GET
+     */
+    @POST
+    @Path("price-reconciler")
+    public Response runPriceReconciler() {
+        priceReconciler.runNow();
+        return Response.accepted().build();
+    }
+
+    /**
+     * Endpoint permettant de récupérer le rapport de la dernière synchronisation de la copie locale des plats
+     *
+     * @return le nombre de plats rafraîchis et de copies supprimées au format JSON
+     */
+    @GET
+    @Path("plat-snapshots")
+    @Produces("application/json")
+    public PlatSnapshotSyncReportDTO getPlatSnapshotSyncReport() {
+        return snapshotSync.getReport();
+    }
+
+    /**
+     * Endpoint permettant de lancer en arrière-plan une synchronisation de la copie locale des plats
+     *
+     * @return une réponse 202, le rapport est ensuite disponible avec GET
+     */
+    @POST
+    @Path("plat-snapshots")
+    public Response runPlatSnapshotSync() {
+        snapshotSync.runNow();
+        return Response.accepted().build();
+    }
+}
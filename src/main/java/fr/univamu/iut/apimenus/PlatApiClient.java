@@ -0,0 +1,413 @@
+package fr.univamu.iut.apimenus;
+
+import fr.univamu.iut.apimenus.dto.MenuUpdatePriceDTO;
+import fr.univamu.iut.apimenus.dto.PlatApiStatsDTO;
+import fr.univamu.iut.apimenus.dto.PlatDTO;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.client.ClientBuilder;
+import jakarta.ws.rs.client.WebTarget;
+import jakarta.ws.rs.core.GenericType;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.io.Closeable;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Client de l'api plats & utilisateurs partagé par toute l'application.
+ * Le client JAX-RS est créé une seule fois : les connexions HTTP sont réutilisées par le cache keep-alive
+ * du JDK (connecteur par défaut, réglé pour toute la JVM par -Dhttp.maxConnections, et non par l'api menus),
+ * le nombre d'appels simultanés vers l'api plats est borné par ce client
+ * et chaque requête a un délai de connexion et de lecture.
+ * Les appels passent par un disjoncteur : lorsque l'api plats ne répond plus,
+ * ils sont refusés immédiatement (PlatApiUnavailableException) au lieu d'attendre leur délai.
+ */
+public class PlatApiClient implements Closeable {
+
+    /**
+     * Adresse de l'api plats & utilisateurs
+     */
+    private String baseUrl;
+
+    /**
+     * Client JAX-RS réutilisé pour toutes les requêtes
+     */
+    private Client client;
+
+    /**
+     * Ressource racine de l'api plats & utilisateurs
+     */
+    private WebTarget apiPlatResource;
+
+    /**
+     * Limite du nombre de connexions simultanées vers l'api plats (cloisonnement)
+     */
+    private Semaphore connectionLimit;
+
+    /**
+     * Nombre maximum de connexions simultanées vers l'api plats
+     */
+    private int maxConnections;
+
+    /**
+     * Attente maximum d'une connexion libre avant de refuser l'appel
+     */
+    private long bulkheadWaitMillis;
+
+    /**
+     * Délai maximum de récupération d'un ensemble de plats en parallèle
+     */
+    private long callDeadlineMillis;
+
+    /**
+     * Disjoncteur protégeant les appels à l'api plats
+     */
+    private CircuitBreaker breaker;
+
+    private final LongAdder bulkheadRejections = new LongAdder();
+    private final LongAdder deadlineExceeded = new LongAdder();
+
+    /**
+     * Pool de threads utilisé pour récupérer plusieurs plats en parallèle
+     * (un thread virtuel par requête si apimenus.threads.virtual est activé, le sémaphore borne alors les appels)
+     */
+    private ExecutorService executor;
+
+    /**
+     * Chemin du point d'accès groupé de l'api plats (vide si non disponible)
+     */
+    private String bulkPath;
+
+    /**
+     * Nombre maximum d'id envoyés dans une requête groupée
+     */
+    private int bulkMaxIds;
+
+    /**
+     * Durée pendant laquelle la requête groupée n'est plus tentée après un refus de l'api plats
+     */
+    private long bulkRetryMillis;
+
+    /**
+     * Date (ms) jusqu'à laquelle la requête groupée est désactivée
+     */
+    private volatile long bulkDisabledUntil = 0;
+
+    /**
+     * Constructeur réservé au conteneur CDI (création du proxy du bean)
+     */
+    protected PlatApiClient() {
+    }
+
+    /**
+     * Constructeur du client, les délais et limites sont lus dans apimenus.properties
+     *
+     * @param baseUrl String adresse de l'api plats & utilisateurs (p.ex. http://localhost:8080/APII-1.0-SNAPSHOT/api/)
+     */
+    public PlatApiClient(String baseUrl) {
+        int maxConnections = Math.max(1, ApiConfig.getInt("apimenus.plats.max-connections", 8));
+
+        this.baseUrl = baseUrl;
+        this.maxConnections = maxConnections;
+        this.bulkheadWaitMillis = ApiConfig.getLong("apimenus.plats.bulkhead-wait-ms", 200);
+        this.callDeadlineMillis = ApiConfig.getLong("apimenus.plats.call-deadline-ms", 3000);
+        this.breaker = new CircuitBreaker(ApiConfig.getInt("apimenus.plats.breaker.failure-threshold", 5),
+                ApiConfig.getLong("apimenus.plats.breaker.open-seconds", 30) * 1000,
+                ApiConfig.getInt("apimenus.plats.breaker.half-open-probes", 1));
+        this.bulkPath = ApiConfig.getString("apimenus.plats.bulk-path", "plats/bulk");
+        this.bulkMaxIds = Math.max(1, ApiConfig.getInt("apimenus.plats.bulk-max-ids", 100));
+        this.bulkRetryMillis = ApiConfig.getLong("apimenus.plats.bulk-retry-seconds", 600) * 1000;
+        this.connectionLimit = new Semaphore(maxConnections, true);
+        ExecutorService virtualExecutor = VirtualThreads.newExecutor("plat-api");
+        this.executor = virtualExecutor != null ? virtualExecutor : Executors.newFixedThreadPool(maxConnections, runnable -> {
+            Thread thread = new Thread(runnable, "plat-api");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.client = ClientBuilder.newBuilder()
+                .connectTimeout(ApiConfig.getLong("apimenus.plats.connect-timeout-ms", 2000), TimeUnit.MILLISECONDS)
+                .readTimeout(ApiConfig.getLong("apimenus.plats.read-timeout-ms", 5000), TimeUnit.MILLISECONDS)
+                .executorService(executor)
+                .build();
+        this.apiPlatResource = client.target(baseUrl);
+    }
+
+    /**
+     * Méthode qui retourne l'adresse de l'api plats & utilisateurs
+     * @return String adresse de l'api
+     */
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * Méthode qui retourne l'état du disjoncteur et du cloisonnement des appels
+     * @return PlatApiStatsDTO compteurs de succès, d'échecs et de refus
+     */
+    public PlatApiStatsDTO getStats() {
+        PlatApiStatsDTO stats = new PlatApiStatsDTO();
+        stats.setBreakerState(breaker.getState().name());
+        stats.setConsecutiveFailures(breaker.getConsecutiveFailures());
+        stats.setBreakerOpenings(breaker.getOpenings());
+        stats.setBreakerRejections(breaker.getRejections());
+        stats.setSuccesses(breaker.getSuccesses());
+        stats.setFailures(breaker.getFailures());
+        stats.setBulkheadRejections(bulkheadRejections.sum());
+        stats.setDeadlineExceeded(deadlineExceeded.sum());
+        stats.setMaxConnections(maxConnections);
+        stats.setAvailableConnections(connectionLimit.availablePermits());
+        return stats;
+    }
+
+    /**
+     * Méthode qui ferme le client et ses connexions
+     */
+    @Override
+    public void close() {
+        client.close();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Méthode qui récupère un plat (plats/{id})
+     * @param id_plat int id du plat
+     * @return PlatDTO le plat, null si la réponse n'est pas OK
+     */
+    public PlatDTO fetchPlat(int id_plat) {
+        return fetchPlat(id_plat, null);
+    }
+
+    /**
+     * Méthode qui récupère un plat (plats/{id})
+     * @param id_plat int id du plat
+     * @param notFoundIds Set<Integer> complété avec l'id du plat si l'api répond 404 (peut être null)
+     * @return PlatDTO le plat, null si la réponse n'est pas OK
+     */
+    private PlatDTO fetchPlat(int id_plat, Set<Integer> notFoundIds) {
+        Response response = get(apiPlatResource.path("plats/" + id_plat));
+        if (response.getStatus() == Response.Status.OK.getStatusCode()) {
+            return response.readEntity(PlatDTO.class);
+        }
+        if (notFoundIds != null && response.getStatus() == Response.Status.NOT_FOUND.getStatusCode()) {
+            notFoundIds.add(id_plat);
+        }
+        response.close();
+        return null;
+    }
+
+    /**
+     * Méthode qui récupère le prix d'un plat (plats/price/{id})
+     * @param id_plat int id du plat
+     * @return MenuUpdatePriceDTO le prix du plat, null si l'api plats ne connaît pas le plat (réponse 404)
+     * @throws PlatApiUnavailableException si le disjoncteur est ouvert ou si la réponse n'est ni OK ni 404
+     */
+    public MenuUpdatePriceDTO fetchPlatPrice(int id_plat) {
+        Response response = get(apiPlatResource.path("plats/price/" + id_plat));
+        int status = response.getStatus();
+        if (status == Response.Status.OK.getStatusCode()) {
+            return response.readEntity(MenuUpdatePriceDTO.class);
+        }
+        response.close();
+        if (status != Response.Status.NOT_FOUND.getStatusCode()) {
+            throw new PlatApiUnavailableException("réponse " + status + " pour le prix du plat " + id_plat);
+        }
+        return null;
+    }
+
+    /**
+     * Méthode qui récupère plusieurs plats.
+     * Les id sont d'abord envoyés par paquets au point d'accès groupé de l'api plats ;
+     * si celui-ci n'est pas disponible, les plats sont récupérés un par un
+     * avec un nombre borné de requêtes simultanées.
+     * @param listPlatId Collection<Integer> id des plats à récupérer (les doublons sont ignorés)
+     * @return Map<Integer, PlatDTO> plats trouvés indexés par leur id, les réponses non OK sont ignorées
+     */
+    public Map<Integer, PlatDTO> fetchPlats(Collection<Integer> listPlatId) {
+        return fetchPlats(listPlatId, ConcurrentHashMap.newKeySet());
+    }
+
+    /**
+     * Méthode qui récupère plusieurs plats en distinguant les plats inexistants des erreurs
+     * @param listPlatId Collection<Integer> id des plats à récupérer (les doublons sont ignorés)
+     * @param notFoundIds Set<Integer> complété avec les id des plats que l'api plats ne connaît pas
+     *                    (réponse 404 ou plat absent de la réponse groupée), doit supporter les accès concurrents
+     * @return Map<Integer, PlatDTO> plats trouvés indexés par leur id, les réponses non OK sont ignorées
+     * @throws PlatApiUnavailableException si le disjoncteur est ouvert
+     */
+    public Map<Integer, PlatDTO> fetchPlats(Collection<Integer> listPlatId, Set<Integer> notFoundIds) {
+        Map<Integer, PlatDTO> platsById = new HashMap<>();
+        List<Integer> distinctIds = new ArrayList<>(new LinkedHashSet<>(listPlatId));
+
+        List<Integer> remainingIds = new ArrayList<>();
+        for (int from = 0; from < distinctIds.size(); from += bulkMaxIds) {
+            List<Integer> chunk = distinctIds.subList(from, Math.min(from + bulkMaxIds, distinctIds.size()));
+            if (!fetchPlatsInBulk(chunk, platsById, notFoundIds)) {
+                remainingIds.addAll(chunk);
+            }
+        }
+        fetchPlatsInParallel(remainingIds, platsById, notFoundIds);
+        return platsById;
+    }
+
+    /**
+     * Méthode qui récupère un paquet de plats en une seule requête (plats/bulk?ids=1,2,3)
+     * @param listPlatId List<Integer> id des plats à récupérer
+     * @param platsById Map<Integer, PlatDTO> map complétée avec les plats trouvés
+     * @param notFoundIds Set<Integer> complété avec les id absents de la réponse
+     * @return true si la requête groupée a abouti, false s'il faut récupérer les plats un par un
+     */
+    private boolean fetchPlatsInBulk(List<Integer> listPlatId, Map<Integer, PlatDTO> platsById, Set<Integer> notFoundIds) {
+        // une requête groupée n'apporte rien pour un seul plat
+        if (bulkPath.isEmpty() || listPlatId.size() < 2 || System.currentTimeMillis() < bulkDisabledUntil) {
+            return false;
+        }
+
+        StringBuilder ids = new StringBuilder();
+        for (Integer idPlat : listPlatId) {
+            if (ids.length() > 0) {
+                ids.append(',');
+            }
+            ids.append(idPlat);
+        }
+
+        try {
+            Response response = get(apiPlatResource.path(bulkPath).queryParam("ids", ids.toString()));
+            if (response.getStatus() != Response.Status.OK.getStatusCode()) {
+                int status = response.getStatus();
+                response.close();
+                // l'api plats ne connaît pas ce point d'accès : on ne le retente pas avant un moment
+                if (status == 400 || status == 404 || status == 405 || status == 501) {
+                    bulkDisabledUntil = System.currentTimeMillis() + bulkRetryMillis;
+                }
+                return false;
+            }
+            List<PlatDTO> plats = response.readEntity(new GenericType<List<PlatDTO>>() {});
+            Set<Integer> requestedIds = new HashSet<>(listPlatId);
+            for (PlatDTO platDTO : plats) {
+                if (platDTO != null && requestedIds.contains(platDTO.getId())) {
+                    platsById.put(platDTO.getId(), platDTO);
+                }
+            }
+            for (Integer idPlat : listPlatId) {
+                if (!platsById.containsKey(idPlat)) {
+                    notFoundIds.add(idPlat);
+                }
+            }
+            return true;
+        } catch (ProcessingException e) {
+            System.err.println(e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Méthode qui récupère des plats un par un (plats/{id}) en parallèle
+     * @param listPlatId List<Integer> id des plats à récupérer
+     * @param platsById Map<Integer, PlatDTO> map complétée avec les plats trouvés
+     * @param notFoundIds Set<Integer> complété avec les id des plats inexistants (réponse 404)
+     */
+    private void fetchPlatsInParallel(List<Integer> listPlatId, Map<Integer, PlatDTO> platsById, Set<Integer> notFoundIds) {
+        if (listPlatId.isEmpty()) {
+            return;
+        }
+        // un seul plat : inutile de passer par un autre thread
+        if (listPlatId.size() == 1) {
+            try {
+                PlatDTO platDTO = fetchPlat(listPlatId.get(0), notFoundIds);
+                if (platDTO != null) {
+                    platsById.put(listPlatId.get(0), platDTO);
+                }
+            } catch (ProcessingException e) {
+                System.err.println(e.getMessage());
+            }
+            return;
+        }
+
+        // les plats sont récupérés dans une même portée : si la requête est abandonnée (interruption),
+        // les appels encore en cours sont annulés ensemble
+        try (TaskScope<PlatDTO> scope = new TaskScope<>(executor)) {
+            List<Future<PlatDTO>> futures = new ArrayList<>(listPlatId.size());
+            for (Integer idPlat : listPlatId) {
+                futures.add(scope.fork(() -> {
+                    try {
+                        return fetchPlat(idPlat, notFoundIds);
+                    } catch (ProcessingException e) {
+                        // un plat en erreur n'empêche pas de récupérer les autres
+                        System.err.println(e.getMessage());
+                        return null;
+                    }
+                }));
+            }
+            try {
+                scope.joinUntil(callDeadlineMillis > 0 ? System.currentTimeMillis() + callDeadlineMillis : 0);
+            } catch (TimeoutException e) {
+                // délai dépassé : les plats déjà reçus sont gardés, les autres sont abandonnés
+                deadlineExceeded.increment();
+            }
+
+            for (int i = 0; i < futures.size(); ++i) {
+                Future<PlatDTO> future = futures.get(i);
+                PlatDTO platDTO = future.isDone() && !future.isCancelled() ? future.get() : null;
+                if (platDTO != null) {
+                    platsById.put(listPlatId.get(i), platDTO);
+                }
+            }
+        } catch (ExecutionException e) {
+            // disjoncteur ouvert pendant la récupération : les autres appels ont été annulés
+            if (e.getCause() instanceof PlatApiUnavailableException) {
+                throw (PlatApiUnavailableException) e.getCause();
+            }
+            System.err.println(e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            // la requête a été interrompue : inutile d'attendre les plats restants
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Méthode qui envoie une requête GET en respectant le disjoncteur et la limite de connexions simultanées.
+     * Une erreur réseau ou une réponse 5xx compte comme un échec pour le disjoncteur.
+     * @param target WebTarget point d'accès
+     * @return Response la réponse de l'api plats
+     * @throws PlatApiUnavailableException si le disjoncteur est ouvert ou si aucune connexion ne s'est libérée à temps
+     * @throws ProcessingException si la requête n'a pas pu aboutir
+     */
+    protected Response get(WebTarget target) {
+        if (!breaker.tryAcquire()) {
+            throw new PlatApiUnavailableException("disjoncteur ouvert");
+        }
+
+        try {
+            if (!connectionLimit.tryAcquire(bulkheadWaitMillis, TimeUnit.MILLISECONDS)) {
+                breaker.onCancel();
+                bulkheadRejections.increment();
+                throw new PlatApiUnavailableException("trop d'appels simultanés");
+            }
+        } catch (InterruptedException e) {
+            breaker.onCancel();
+            Thread.currentThread().interrupt();
+            throw new ProcessingException(e);
+        }
+
+        try {
+            Response response = target.request(MediaType.APPLICATION_JSON).get();
+            // l'entité est mise en mémoire pour libérer la connexion (keep-alive) avant de rendre le permis
+            response.bufferEntity();
+            if (response.getStatus() >= 500) {
+                breaker.onFailure();
+            } else {
+                breaker.onSuccess();
+            }
+            return response;
+        } catch (RuntimeException e) {
+            breaker.onFailure();
+            throw e;
+        } finally {
+            connectionLimit.release();
+        }
+    }
+}
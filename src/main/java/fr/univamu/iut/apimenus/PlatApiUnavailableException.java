@@ -0,0 +1,18 @@
+package fr.univamu.iut.apimenus;
+
+/**
+ * Exception levée lorsqu'un appel à l'api plats & utilisateurs n'est pas tenté :
+ * disjoncteur ouvert, trop d'appels simultanés ou délai dépassé
+ */
+public class PlatApiUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructeur de l'exception
+     * @param message String raison du refus
+     */
+    public PlatApiUnavailableException(String message) {
+        super(message);
+    }
+}
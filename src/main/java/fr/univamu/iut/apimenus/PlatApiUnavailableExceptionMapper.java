@@ -0,0 +1,27 @@
+package fr.univamu.iut.apimenus;
+
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Convertit une indisponibilité de l'api plats & utilisateurs en réponse 503 (Service Unavailable)
+ * avec un en-tête Retry-After, au lieu d'une erreur 500
+ */
+@Provider
+public class PlatApiUnavailableExceptionMapper implements ExceptionMapper<PlatApiUnavailableException> {
+
+    /**
+     * Méthode qui construit la réponse associée à l'exception
+     * @param exception PlatApiUnavailableException exception levée
+     * @return Response réponse 503
+     */
+    @Override
+    public Response toResponse(PlatApiUnavailableException exception) {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header("Retry-After", ApiConfig.getLong("apimenus.plats.breaker.open-seconds", 30))
+                .entity("L'api plats & utilisateurs est indisponible : " + exception.getMessage())
+                .type("text/plain")
+                .build();
+    }
+}
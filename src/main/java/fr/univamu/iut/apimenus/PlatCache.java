@@ -0,0 +1,397 @@
+package fr.univamu.iut.apimenus;
+
+import fr.univamu.iut.apimenus.dto.PlatCacheStatsDTO;
+import fr.univamu.iut.apimenus.dto.PlatDTO;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache des plats de l'api plats & utilisateurs, placé devant PlatApiClient.
+ * Les plats sont gardés pendant une durée limitée (TTL) et le cache a une taille bornée :
+ * le plat utilisé le moins récemment est évincé en premier (LRU).
+ * Un plat expiré est encore servi pendant qu'il est rechargé en arrière-plan,
+ * et un plat inexistant (404) est mémorisé pour une courte durée.
+ * Si l'api plats est indisponible, les plats absents du cache sont signalés à l'appelant
+ * (réponse dégradée) au lieu de faire échouer la lecture.
+ */
+public class PlatCache {
+
+    /**
+     * Entrée du cache : un plat (ou null pour un plat inexistant) et sa date d'expiration
+     */
+    private static final class CachedPlat {
+        private final PlatDTO plat;
+        private final long expiresAt;
+
+        private CachedPlat(PlatDTO plat, long expiresAt) {
+            this.plat = plat;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Client de l'api plats utilisé pour charger les plats absents du cache
+     */
+    private PlatApiClient platApi;
+
+    /**
+     * Entrées du cache, triées de la moins récemment utilisée à la plus récemment utilisée
+     */
+    private LinkedHashMap<Integer, CachedPlat> entries;
+
+    /**
+     * Nombre maximum de plats gardés en cache
+     */
+    private int maxSize;
+
+    /**
+     * Durée de vie d'un plat en cache
+     */
+    private long ttlMillis;
+
+    /**
+     * Durée de vie d'un plat inexistant (404) en cache
+     */
+    private long negativeTtlMillis;
+
+    /**
+     * Id des plats en cours de rechargement en arrière-plan
+     */
+    private Set<Integer> refreshing;
+
+    /**
+     * Chargements en cours, par id de plat : les requêtes simultanées d'un même plat partagent un seul appel
+     */
+    private Map<Integer, CompletableFuture<PlatDTO>> loading;
+
+    /**
+     * Thread qui recharge les plats expirés
+     */
+    private ExecutorService refresher;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Constructeur réservé au conteneur CDI (création du proxy du bean)
+     */
+    protected PlatCache() {
+    }
+
+    /**
+     * Constructeur du cache, la taille et les durées de vie sont lues dans apimenus.properties
+     *
+     * @param platApi PlatApiClient client de l'api plats & utilisateurs
+     */
+    public PlatCache(PlatApiClient platApi) {
+        this(platApi,
+                ApiConfig.getInt("apimenus.plats.cache.max-size", 10000),
+                ApiConfig.getLong("apimenus.plats.cache.ttl-seconds", 300) * 1000,
+                ApiConfig.getLong("apimenus.plats.cache.negative-ttl-seconds", 30) * 1000);
+    }
+
+    /**
+     * Constructeur du cache
+     *
+     * @param platApi PlatApiClient client de l'api plats & utilisateurs
+     * @param maxSize int nombre maximum de plats gardés en cache
+     * @param ttlMillis long durée de vie d'un plat en cache
+     * @param negativeTtlMillis long durée de vie d'un plat inexistant en cache
+     */
+    public PlatCache(PlatApiClient platApi, int maxSize, long ttlMillis, long negativeTtlMillis) {
+        this.platApi = platApi;
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlMillis = ttlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+        this.refreshing = ConcurrentHashMap.newKeySet();
+        this.loading = new ConcurrentHashMap<>();
+        this.refresher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "plat-cache-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CachedPlat> eldest) {
+                if (size() > PlatCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Méthode qui arrête le rechargement en arrière-plan
+     */
+    public void close() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * Méthode qui récupère un plat, depuis le cache ou depuis l'api plats
+     * @param id_plat int id du plat
+     * @return PlatDTO le plat, null s'il n'existe pas ou n'a pas pu être récupéré
+     */
+    public PlatDTO get(int id_plat) {
+        return getAll(Collections.singletonList(id_plat)).get(id_plat);
+    }
+
+    /**
+     * Méthode qui récupère plusieurs plats.
+     * Les plats absents du cache sont demandés en une fois à l'api plats,
+     * les plats expirés sont servis tels quels et rechargés en arrière-plan.
+     * @param listPlatId Collection<Integer> id des plats
+     * @return Map<Integer, PlatDTO> plats trouvés indexés par leur id
+     */
+    public Map<Integer, PlatDTO> getAll(Collection<Integer> listPlatId) {
+        return getAll(listPlatId, new HashSet<>());
+    }
+
+    /**
+     * Méthode qui récupère plusieurs plats en signalant ceux qui n'ont pas pu être récupérés
+     * à cause d'une indisponibilité de l'api plats (disjoncteur ouvert, délai dépassé, erreur)
+     * @param listPlatId Collection<Integer> id des plats
+     * @param unavailableIds Set<Integer> complété avec les id des plats ni en cache ni récupérés
+     *                       (les plats inexistants n'en font pas partie)
+     * @return Map<Integer, PlatDTO> plats trouvés indexés par leur id
+     */
+    public Map<Integer, PlatDTO> getAll(Collection<Integer> listPlatId, Set<Integer> unavailableIds) {
+        Map<Integer, PlatDTO> platsById = new HashMap<>();
+        List<Integer> missingIds = new ArrayList<>();
+        List<Integer> staleIds = new ArrayList<>();
+        long now = System.currentTimeMillis();
+
+        synchronized (entries) {
+            for (Integer idPlat : new LinkedHashSet<>(listPlatId)) {
+                CachedPlat entry = entries.get(idPlat);
+                if (entry == null || (entry.plat == null && entry.expiresAt <= now)) {
+                    missingIds.add(idPlat);
+                } else if (entry.plat == null) {
+                    negativeHits.increment();
+                } else {
+                    platsById.put(idPlat, entry.plat);
+                    if (entry.expiresAt > now) {
+                        hits.increment();
+                    } else {
+                        staleHits.increment();
+                        staleIds.add(idPlat);
+                    }
+                }
+            }
+        }
+
+        if (!staleIds.isEmpty()) {
+            refreshInBackground(staleIds);
+        }
+        if (!missingIds.isEmpty()) {
+            misses.add(missingIds.size());
+            platsById.putAll(load(missingIds, unavailableIds));
+        }
+        return platsById;
+    }
+
+    /**
+     * Méthode qui retourne un plat s'il est en cache, même expiré, sans jamais appeler l'api plats
+     * @param id_plat int id du plat
+     * @return PlatDTO le plat, null s'il n'est pas en cache
+     */
+    public PlatDTO peek(int id_plat) {
+        synchronized (entries) {
+            CachedPlat entry = entries.get(id_plat);
+            return entry == null ? null : entry.plat;
+        }
+    }
+
+    /**
+     * Méthode qui met à jour un plat dans le cache (p.ex. après une lecture directe de l'api plats)
+     * @param platDTO PlatDTO plat à mémoriser
+     */
+    public void put(PlatDTO platDTO) {
+        synchronized (entries) {
+            entries.put(platDTO.getId(), new CachedPlat(platDTO, System.currentTimeMillis() + ttlMillis));
+        }
+    }
+
+    /**
+     * Méthode qui retire un plat du cache
+     * @param id_plat int id du plat
+     */
+    public void invalidate(int id_plat) {
+        loading.remove(id_plat);
+        synchronized (entries) {
+            entries.remove(id_plat);
+        }
+    }
+
+    /**
+     * Méthode qui vide le cache
+     */
+    public void invalidateAll() {
+        loading.clear();
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Méthode qui charge des plats absents du cache.
+     * Un plat déjà en cours de chargement pour une autre requête n'est pas redemandé :
+     * la requête attend ce chargement et en partage le résultat.
+     * @param listPlatId List<Integer> id des plats à charger
+     * @param unavailableIds Set<Integer> complété avec les id des plats qui n'ont pas pu être récupérés
+     * @return Map<Integer, PlatDTO> plats trouvés
+     */
+    private Map<Integer, PlatDTO> load(List<Integer> listPlatId, Set<Integer> unavailableIds) {
+        Map<Integer, CompletableFuture<PlatDTO>> owned = new LinkedHashMap<>();
+        Map<Integer, CompletableFuture<PlatDTO>> joined = new LinkedHashMap<>();
+        for (Integer idPlat : listPlatId) {
+            CompletableFuture<PlatDTO> flight = new CompletableFuture<>();
+            CompletableFuture<PlatDTO> existing = loading.putIfAbsent(idPlat, flight);
+            if (existing == null) {
+                owned.put(idPlat, flight);
+            } else {
+                joined.put(idPlat, existing);
+            }
+        }
+
+        Map<Integer, PlatDTO> platsById = new HashMap<>();
+        if (!owned.isEmpty()) {
+            Set<Integer> ownedUnavailableIds = new HashSet<>();
+            RuntimeException failure = null;
+            try {
+                platsById.putAll(fetch(new ArrayList<>(owned.keySet()), ownedUnavailableIds));
+            } catch (RuntimeException e) {
+                failure = e;
+                throw e;
+            } finally {
+                // les requêtes qui attendent ces plats reçoivent le même résultat (ou la même erreur)
+                for (Map.Entry<Integer, CompletableFuture<PlatDTO>> flight : owned.entrySet()) {
+                    loading.remove(flight.getKey(), flight.getValue());
+                    if (failure != null) {
+                        flight.getValue().completeExceptionally(failure);
+                    } else if (ownedUnavailableIds.contains(flight.getKey())) {
+                        flight.getValue().completeExceptionally(new PlatApiUnavailableException("plat non récupéré"));
+                    } else {
+                        flight.getValue().complete(platsById.get(flight.getKey()));
+                    }
+                }
+            }
+            unavailableIds.addAll(ownedUnavailableIds);
+        }
+
+        for (Map.Entry<Integer, CompletableFuture<PlatDTO>> flight : joined.entrySet()) {
+            coalesced.increment();
+            try {
+                PlatDTO platDTO = flight.getValue().get();
+                if (platDTO != null) {
+                    platsById.put(flight.getKey(), platDTO);
+                }
+            } catch (ExecutionException e) {
+                unavailableIds.add(flight.getKey());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                unavailableIds.add(flight.getKey());
+            }
+        }
+        return platsById;
+    }
+
+    /**
+     * Méthode qui charge des plats depuis l'api plats et les range dans le cache
+     * @param listPlatId List<Integer> id des plats à charger
+     * @param unavailableIds Set<Integer> complété avec les id des plats qui n'ont pas pu être récupérés
+     * @return Map<Integer, PlatDTO> plats trouvés
+     */
+    private Map<Integer, PlatDTO> fetch(List<Integer> listPlatId, Set<Integer> unavailableIds) {
+        Set<Integer> notFoundIds = ConcurrentHashMap.newKeySet();
+        Map<Integer, PlatDTO> platsById;
+        try {
+            platsById = platApi.fetchPlats(listPlatId, notFoundIds);
+        } catch (PlatApiUnavailableException e) {
+            unavailableIds.addAll(listPlatId);
+            return Collections.emptyMap();
+        }
+        for (Integer idPlat : listPlatId) {
+            if (!platsById.containsKey(idPlat) && !notFoundIds.contains(idPlat)) {
+                unavailableIds.add(idPlat);
+            }
+        }
+        long now = System.currentTimeMillis();
+
+        synchronized (entries) {
+            for (Map.Entry<Integer, PlatDTO> plat : platsById.entrySet()) {
+                entries.put(plat.getKey(), new CachedPlat(plat.getValue(), now + ttlMillis));
+            }
+            // seuls les plats inexistants sont mémorisés, pas les erreurs de l'api plats
+            for (Integer idPlat : notFoundIds) {
+                entries.put(idPlat, new CachedPlat(null, now + negativeTtlMillis));
+            }
+        }
+        return platsById;
+    }
+
+    /**
+     * Méthode qui recharge des plats expirés en arrière-plan
+     * @param listPlatId List<Integer> id des plats expirés
+     */
+    private void refreshInBackground(List<Integer> listPlatId) {
+        List<Integer> toRefresh = new ArrayList<>();
+        for (Integer idPlat : listPlatId) {
+            if (refreshing.add(idPlat)) {
+                toRefresh.add(idPlat);
+            }
+        }
+        if (toRefresh.isEmpty()) {
+            return;
+        }
+
+        try {
+            refresher.execute(() -> {
+                try {
+                    refreshes.add(toRefresh.size());
+                    fetch(toRefresh, new HashSet<>());
+                } catch (RuntimeException e) {
+                    System.err.println(e.getMessage());
+                } finally {
+                    refreshing.removeAll(toRefresh);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.removeAll(toRefresh);
+        }
+    }
+
+    /**
+     * Méthode qui retourne les compteurs du cache
+     * @return PlatCacheStatsDTO compteurs de succès, d'échecs et d'évictions
+     */
+    public PlatCacheStatsDTO getStats() {
+        PlatCacheStatsDTO stats = new PlatCacheStatsDTO();
+        synchronized (entries) {
+            stats.setSize(entries.size());
+        }
+        stats.setMaxSize(maxSize);
+        stats.setHits(hits.sum());
+        stats.setStaleHits(staleHits.sum());
+        stats.setNegativeHits(negativeHits.sum());
+        stats.setMisses(misses.sum());
+        stats.setEvictions(evictions.sum());
+        stats.setRefreshes(refreshes.sum());
+        stats.setCoalesced(coalesced.sum());
+        return stats;
+    }
+}
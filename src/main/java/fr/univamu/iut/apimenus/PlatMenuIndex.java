@@ -0,0 +1,422 @@
+package fr.univamu.iut.apimenus;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index en mémoire des associations de la table Plat_menu, dans les deux sens :
+ * plats de chaque menu (dans l'ordre des associations, doublons compris) et menus de chaque plat.
+ * Les id sont rangés dans des tableaux d'int (sans objets Integer) ; l'index est chargé en une lecture
+ * de Plat_menu au démarrage, puis tenu à jour par les modifications des associations.
+ */
+public class PlatMenuIndex {
+
+    /**
+     * Tableau vide renvoyé pour un id sans association
+     */
+    private static final int[] EMPTY = new int[0];
+
+    /**
+     * Plats de chaque menu
+     */
+    private final IntListMap platsByMenu = new IntListMap();
+
+    /**
+     * Menus de chaque plat (sans doublon)
+     */
+    private final IntListMap menusByPlat = new IntListMap();
+
+    /**
+     * Verrou de l'index : lectures simultanées, modifications exclusives
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * true une fois l'index chargé ; avant, les lectures doivent passer par la base de données
+     */
+    private volatile boolean loaded;
+
+    /**
+     * Méthode qui remplace le contenu de l'index par les associations lues dans Plat_menu
+     * @param menuIds int[] id du menu de chaque association
+     * @param platIds int[] id du plat de chaque association
+     * @param count int nombre d'associations (les tableaux peuvent être plus grands)
+     */
+    public void load(int[] menuIds, int[] platIds, int count) {
+        lock.writeLock().lock();
+        try {
+            platsByMenu.clear();
+            menusByPlat.clear();
+            for (int i = 0; i < count; ++i) {
+                platsByMenu.add(menuIds[i], platIds[i]);
+                menusByPlat.addIfAbsent(platIds[i], menuIds[i]);
+            }
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Méthode qui indique si l'index a été chargé
+     * @return boolean true si l'index peut servir les lectures
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Méthode qui ajoute des associations à un menu
+     * @param id_menu int id du menu
+     * @param platIds int[] id des plats associés, dans l'ordre
+     */
+    public void addPlats(int id_menu, int[] platIds) {
+        lock.writeLock().lock();
+        try {
+            for (int idPlat : platIds) {
+                platsByMenu.add(id_menu, idPlat);
+                menusByPlat.addIfAbsent(idPlat, id_menu);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Méthode qui retire toutes les associations d'un menu avec un plat
+     * @param id_menu int id du menu
+     * @param id_plat int id du plat dissocié
+     */
+    public void removePlat(int id_menu, int id_plat) {
+        lock.writeLock().lock();
+        try {
+            platsByMenu.removeValue(id_menu, id_plat);
+            menusByPlat.removeValue(id_plat, id_menu);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Méthode qui retire toutes les associations d'un menu (plats dissociés ou menu supprimé)
+     * @param id_menu int id du menu
+     */
+    public void removeMenu(int id_menu) {
+        lock.writeLock().lock();
+        try {
+            unlinkMenu(id_menu);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Méthode qui remplace les associations d'un menu par celles lues dans la base de données
+     * (après une modification faite par une autre instance de l'api)
+     * @param id_menu int id du menu
+     * @param platIds int[] id des plats du menu, dans l'ordre (vide si le menu n'a plus de plat)
+     */
+    public void replaceMenu(int id_menu, int[] platIds) {
+        lock.writeLock().lock();
+        try {
+            unlinkMenu(id_menu);
+            for (int idPlat : platIds) {
+                platsByMenu.add(id_menu, idPlat);
+                menusByPlat.addIfAbsent(idPlat, id_menu);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Méthode qui retire un menu des deux sens de l'index (verrou en écriture déjà pris)
+     * @param id_menu int id du menu
+     */
+    private void unlinkMenu(int id_menu) {
+        int[] platIds = platsByMenu.remove(id_menu);
+        for (int idPlat : platIds) {
+            menusByPlat.removeValue(idPlat, id_menu);
+        }
+    }
+
+    /**
+     * Méthode qui retourne les plats d'un menu
+     * @param id_menu int id du menu
+     * @return int[] id des plats, dans l'ordre des associations (copie, vide si aucun)
+     */
+    public int[] getPlatIds(int id_menu) {
+        lock.readLock().lock();
+        try {
+            return platsByMenu.get(id_menu);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Méthode qui retourne les menus qui contiennent un plat (menus à évincer des caches quand le plat change)
+     * @param id_plat int id du plat
+     * @return int[] id des menus, sans doublon (copie, vide si aucun)
+     */
+    public int[] getMenuIds(int id_plat) {
+        lock.readLock().lock();
+        try {
+            return menusByPlat.get(id_plat);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Méthode qui retourne le nombre de menus qui ont au moins un plat
+     * @return int nombre de menus indexés
+     */
+    public int getMenuCount() {
+        lock.readLock().lock();
+        try {
+            return platsByMenu.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Table de hachage d'un id vers une liste d'id (adressage ouvert, sondage linéaire),
+     * sans objets Integer ni pour les clés ni pour les valeurs
+     */
+    static final class IntListMap {
+
+        /**
+         * Clés de chaque case
+         */
+        private int[] keys = new int[16];
+
+        /**
+         * Valeurs de chaque case (null pour une case libre), seules les lengths[i] premières sont utilisées
+         */
+        private int[][] values = new int[16][];
+
+        /**
+         * Nombre de valeurs de chaque case
+         */
+        private int[] lengths = new int[16];
+
+        /**
+         * Nombre de clés
+         */
+        private int size;
+
+        /**
+         * Méthode qui retourne le nombre de clés
+         * @return int nombre de clés
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Méthode qui retourne une copie des valeurs d'une clé
+         * @param key int clé
+         * @return int[] valeurs (vide si la clé est absente)
+         */
+        int[] get(int key) {
+            int slot = find(key);
+            return slot < 0 ? EMPTY : Arrays.copyOf(values[slot], lengths[slot]);
+        }
+
+        /**
+         * Méthode qui ajoute une valeur à la fin des valeurs d'une clé
+         * @param key int clé
+         * @param value int valeur ajoutée
+         */
+        void add(int key, int value) {
+            int slot = find(key);
+            if (slot < 0) {
+                slot = insert(key);
+            }
+            append(slot, value);
+        }
+
+        /**
+         * Méthode qui ajoute une valeur à une clé si elle n'y est pas déjà
+         * @param key int clé
+         * @param value int valeur ajoutée
+         */
+        void addIfAbsent(int key, int value) {
+            int slot = find(key);
+            if (slot < 0) {
+                slot = insert(key);
+            } else {
+                int[] current = values[slot];
+                for (int i = 0; i < lengths[slot]; ++i) {
+                    if (current[i] == value) {
+                        return;
+                    }
+                }
+            }
+            append(slot, value);
+        }
+
+        /**
+         * Méthode qui retire toutes les occurrences d'une valeur d'une clé ; la clé est retirée si elle n'a plus de valeur
+         * @param key int clé
+         * @param value int valeur retirée
+         */
+        void removeValue(int key, int value) {
+            int slot = find(key);
+            if (slot < 0) {
+                return;
+            }
+            int[] current = values[slot];
+            int kept = 0;
+            for (int i = 0; i < lengths[slot]; ++i) {
+                if (current[i] != value) {
+                    current[kept++] = current[i];
+                }
+            }
+            lengths[slot] = kept;
+            if (kept == 0) {
+                delete(slot);
+            }
+        }
+
+        /**
+         * Méthode qui retire une clé
+         * @param key int clé
+         * @return int[] valeurs de la clé retirée (vide si elle était absente)
+         */
+        int[] remove(int key) {
+            int slot = find(key);
+            if (slot < 0) {
+                return EMPTY;
+            }
+            int[] removed = Arrays.copyOf(values[slot], lengths[slot]);
+            delete(slot);
+            return removed;
+        }
+
+        /**
+         * Méthode qui retire toutes les clés
+         */
+        void clear() {
+            keys = new int[16];
+            values = new int[16][];
+            lengths = new int[16];
+            size = 0;
+        }
+
+        /**
+         * Méthode qui calcule la case idéale d'une clé
+         * @param key int clé
+         * @return int indice de la case
+         */
+        private int home(int key) {
+            int hash = key * 0x9E3779B9;
+            return (hash ^ (hash >>> 16)) & (keys.length - 1);
+        }
+
+        /**
+         * Méthode qui cherche la case d'une clé
+         * @param key int clé
+         * @return int indice de la case, -1 si la clé est absente
+         */
+        private int find(int key) {
+            int mask = keys.length - 1;
+            for (int slot = home(key); values[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Méthode qui ajoute une clé absente, sans valeur (la table est agrandie au-delà de la moitié remplie)
+         * @param key int clé
+         * @return int indice de sa case
+         */
+        private int insert(int key) {
+            if ((size + 1) * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+            int mask = keys.length - 1;
+            int slot = home(key);
+            while (values[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = new int[2];
+            lengths[slot] = 0;
+            ++size;
+            return slot;
+        }
+
+        /**
+         * Méthode qui ajoute une valeur à une case, en agrandissant son tableau si besoin
+         * @param slot int indice de la case
+         * @param value int valeur ajoutée
+         */
+        private void append(int slot, int value) {
+            if (lengths[slot] == values[slot].length) {
+                values[slot] = Arrays.copyOf(values[slot], values[slot].length * 2);
+            }
+            values[slot][lengths[slot]++] = value;
+        }
+
+        /**
+         * Méthode qui libère une case et y ramène les clés suivantes déplacées par le sondage linéaire
+         * @param slot int indice de la case libérée
+         */
+        private void delete(int slot) {
+            int mask = keys.length - 1;
+            int free = slot;
+            int next = slot;
+            while (true) {
+                next = (next + 1) & mask;
+                if (values[next] == null) {
+                    break;
+                }
+                // la clé reste en place si sa case idéale se trouve entre la case libre (exclue) et sa case
+                int ideal = home(keys[next]);
+                boolean between = free <= next ? free < ideal && ideal <= next : free < ideal || ideal <= next;
+                if (!between) {
+                    keys[free] = keys[next];
+                    values[free] = values[next];
+                    lengths[free] = lengths[next];
+                    free = next;
+                }
+            }
+            keys[free] = 0;
+            values[free] = null;
+            lengths[free] = 0;
+            --size;
+        }
+
+        /**
+         * Méthode qui change la taille de la table et replace toutes les clés
+         * @param capacity int nouvelle taille (puissance de 2)
+         */
+        private void resize(int capacity) {
+            int[] oldKeys = keys;
+            int[][] oldValues = values;
+            int[] oldLengths = lengths;
+            keys = new int[capacity];
+            values = new int[capacity][];
+            lengths = new int[capacity];
+
+            int mask = capacity - 1;
+            for (int i = 0; i < oldKeys.length; ++i) {
+                if (oldValues[i] != null) {
+                    int slot = home(oldKeys[i]);
+                    while (values[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                    lengths[slot] = oldLengths[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package fr.univamu.iut.apimenus;
+
+/**
+ * Exception levée lorsque l'api plats & utilisateurs ne connaît pas un plat (réponse 404)
+ */
+public class PlatNotFoundException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructeur de l'exception
+     * @param id_plat int id du plat introuvable
+     */
+    public PlatNotFoundException(int id_plat) {
+        super("Plat introuvable : " + id_plat);
+    }
+}
@@ -0,0 +1,26 @@
+package fr.univamu.iut.apimenus;
+
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Convertit un plat inconnu de l'api plats & utilisateurs en réponse 404 (Not Found),
+ * distincte de la réponse 404 d'un menu introuvable par son message
+ */
+@Provider
+public class PlatNotFoundExceptionMapper implements ExceptionMapper<PlatNotFoundException> {
+
+    /**
+     * Méthode qui construit la réponse associée à l'exception
+     * @param exception PlatNotFoundException exception levée
+     * @return Response réponse 404
+     */
+    @Override
+    public Response toResponse(PlatNotFoundException exception) {
+        return Response.status(Response.Status.NOT_FOUND)
+                .entity(exception.getMessage())
+                .type("text/plain")
+                .build();
+    }
+}
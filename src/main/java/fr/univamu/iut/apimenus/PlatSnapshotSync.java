@@ -0,0 +1,155 @@
+package fr.univamu.iut.apimenus;
+
+import fr.univamu.iut.apimenus.dto.PlatSnapshotSyncReportDTO;
+
+import java.sql.Timestamp;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tâche de fond qui tient à jour la copie locale des plats (table Plat_snapshot) lue avec les menus :
+ * les plats des menus qui n'ont pas encore de copie et les copies plus anciennes que
+ * apimenus.plats.snapshot.max-age-seconds sont redemandés à l'api plats, par lots.
+ * Les lectures de menus ne dépendent ainsi que de la base de données.
+ */
+public class PlatSnapshotSync {
+
+    /**
+     * Accès aux menus et à la copie locale des plats
+     */
+    private MenuRepositoryInterface menuRepo;
+
+    /**
+     * Thread qui exécute les synchronisations
+     */
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Nombre de plats rafraîchis par lot
+     */
+    private int batchSize;
+
+    /**
+     * Pause (ms) entre deux lots
+     */
+    private long pauseMillis;
+
+    /**
+     * Âge (secondes) au-delà duquel la copie d'un plat est rafraîchie
+     */
+    private long maxAgeSeconds;
+
+    /**
+     * true si une synchronisation est en cours
+     */
+    private AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Rapport de la synchronisation en cours ou de la dernière synchronisation
+     */
+    private volatile PlatSnapshotSyncReportDTO report = new PlatSnapshotSyncReportDTO();
+
+    /**
+     * Constructeur réservé au conteneur CDI (création du proxy du bean)
+     */
+    protected PlatSnapshotSync() {
+    }
+
+    /**
+     * Constructeur de la tâche, configurée par les clés apimenus.plats.snapshot.*
+     * @param menuRepo MenuRepositoryInterface accès aux menus et à la copie locale des plats
+     */
+    public PlatSnapshotSync(MenuRepositoryInterface menuRepo) {
+        this.menuRepo = menuRepo;
+        this.batchSize = Math.max(1, ApiConfig.getInt("apimenus.plats.snapshot.batch-size", 100));
+        this.pauseMillis = Math.max(0, ApiConfig.getLong("apimenus.plats.snapshot.pause-ms", 200));
+        this.maxAgeSeconds = Math.max(1, ApiConfig.getLong("apimenus.plats.snapshot.max-age-seconds", 300));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "plat-snapshot-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Méthode qui programme les synchronisations périodiques (apimenus.plats.snapshot.sync-interval-seconds),
+     * la première au démarrage (sans effet si la copie locale n'est pas utilisée)
+     */
+    public void start() {
+        long intervalSeconds = ApiConfig.getLong("apimenus.plats.snapshot.sync-interval-seconds", 60);
+        if (ApiConfig.getBoolean("apimenus.plats.snapshot.enabled", true) && intervalSeconds > 0) {
+            scheduler.scheduleWithFixedDelay(this::run, 0, intervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Méthode qui lance une synchronisation en arrière-plan sans attendre la prochaine synchronisation programmée
+     * (sans effet si une synchronisation est en cours)
+     */
+    public void runNow() {
+        if (!running.get()) {
+            scheduler.execute(this::run);
+        }
+    }
+
+    /**
+     * Méthode qui rafraîchit, lot par lot, toutes les copies de plats manquantes ou trop anciennes
+     * (sans effet si une synchronisation est en cours)
+     * @return PlatSnapshotSyncReportDTO rapport de la synchronisation
+     */
+    public PlatSnapshotSyncReportDTO run() {
+        if (!running.compareAndSet(false, true)) {
+            return report;
+        }
+
+        PlatSnapshotSyncReportDTO current = new PlatSnapshotSyncReportDTO();
+        current.setRunning(true);
+        current.setStartedAt(new Timestamp(System.currentTimeMillis()));
+        report = current;
+        try {
+            current.setPruned(menuRepo.prunePlatSnapshots());
+
+            // un lot incomplet signifie qu'il ne reste plus de copie à rafraîchir
+            int refreshed;
+            do {
+                refreshed = menuRepo.syncPlatSnapshots(batchSize, maxAgeSeconds);
+                current.setRefreshed(current.getRefreshed() + refreshed);
+
+                // pause entre deux lots pour laisser l'api plats aux autres appels
+                if (refreshed == batchSize && pauseMillis > 0) {
+                    Thread.sleep(pauseMillis);
+                }
+            } while (refreshed == batchSize);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            current.setError("Synchronisation interrompue");
+        } catch (RuntimeException e) {
+            // api plats indisponible ou base inaccessible : les copies existantes restent servies
+            System.err.println(e.getMessage());
+            current.setError(e.getMessage());
+        } finally {
+            current.setFinishedAt(new Timestamp(System.currentTimeMillis()));
+            current.setRunning(false);
+            running.set(false);
+        }
+        return current;
+    }
+
+    /**
+     * Méthode qui retourne le rapport de la synchronisation en cours ou de la dernière synchronisation
+     * @return PlatSnapshotSyncReportDTO rapport (plats rafraîchis, copies supprimées)
+     */
+    public PlatSnapshotSyncReportDTO getReport() {
+        return report;
+    }
+
+    /**
+     * Méthode qui arrête les synchronisations
+     */
+    public void close() {
+        scheduler.shutdownNow();
+        menuRepo.close();
+    }
+}
@@ -0,0 +1,42 @@
+package fr.univamu.iut.apimenus;
+
+import fr.univamu.iut.apimenus.dto.PlatDTO;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Source des plats (nom, description et prix) du dépôt des menus en mémoire :
+ * l'api plats & utilisateurs à travers le cache des plats (PlatCache::getAll),
+ * ou des plats fixes pour mesurer l'api sans dépendance (apimenus.repository.memory.plat-source)
+ */
+@FunctionalInterface
+public interface PlatSource {
+
+    /**
+     * Méthode qui récupère plusieurs plats
+     * @param listPlatId Collection<Integer> id des plats (les doublons sont ignorés)
+     * @return Map<Integer, PlatDTO> plats trouvés indexés par leur id, les plats inconnus en sont absents
+     */
+    Map<Integer, PlatDTO> getPlats(Collection<Integer> listPlatId);
+
+    /**
+     * Méthode qui construit une source dans laquelle tout plat existe, avec le même prix
+     * @param price float prix de chaque plat
+     * @return PlatSource source de plats fixes
+     */
+    static PlatSource fixedPrice(float price) {
+        return listPlatId -> {
+            Map<Integer, PlatDTO> platsById = new HashMap<>();
+            for (Integer idPlat : listPlatId) {
+                PlatDTO platDTO = new PlatDTO();
+                platDTO.setId(idPlat);
+                platDTO.setName("Plat " + idPlat);
+                platDTO.setPrice(price);
+                platsById.put(idPlat, platDTO);
+            }
+            return platsById;
+        };
+    }
+}
@@ -0,0 +1,160 @@
+package fr.univamu.iut.apimenus;
+
+import fr.univamu.iut.apimenus.dto.PriceReconcileReportDTO;
+
+import java.sql.Timestamp;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tâche de fond qui vérifie régulièrement le prix de tous les menus : chaque prix enregistré est comparé
+ * à la somme des prix actuels de ses plats, et corrigé s'il s'en écarte.
+ * Les menus sont parcourus par lots dans l'ordre des id (keyset), avec une pause entre deux lots
+ * pour ne pas gêner les requêtes des clients ; la vérification s'arrête si l'api plats est indisponible.
+ */
+public class PriceReconciler {
+
+    /**
+     * Accès aux menus
+     */
+    private MenuRepositoryInterface menuRepo;
+
+    /**
+     * Diffusion des modifications, prévenue après chaque correction (null si aucune)
+     */
+    private MenuEventBroadcaster events;
+
+    /**
+     * Thread qui exécute les vérifications
+     */
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Nombre de menus vérifiés par lot
+     */
+    private int batchSize;
+
+    /**
+     * Pause (ms) entre deux lots
+     */
+    private long pauseMillis;
+
+    /**
+     * Écart toléré entre le prix enregistré et le prix recalculé
+     */
+    private float tolerance;
+
+    /**
+     * true si une vérification est en cours
+     */
+    private AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Rapport de la vérification en cours ou de la dernière vérification
+     */
+    private volatile PriceReconcileReportDTO report = new PriceReconcileReportDTO();
+
+    /**
+     * Constructeur réservé au conteneur CDI (création du proxy du bean)
+     */
+    protected PriceReconciler() {
+    }
+
+    /**
+     * Constructeur de la tâche, configurée par les clés apimenus.reconcile.*
+     * @param menuRepo MenuRepositoryInterface accès aux menus
+     * @param events MenuEventBroadcaster diffusion des modifications (null si aucune)
+     */
+    public PriceReconciler(MenuRepositoryInterface menuRepo, MenuEventBroadcaster events) {
+        this.menuRepo = menuRepo;
+        this.events = events;
+        this.batchSize = Math.max(1, ApiConfig.getInt("apimenus.reconcile.batch-size", 200));
+        this.pauseMillis = Math.max(0, ApiConfig.getLong("apimenus.reconcile.pause-ms", 500));
+        this.tolerance = (float) ApiConfig.getDouble("apimenus.reconcile.tolerance", 0.01);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "price-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Méthode qui programme les vérifications périodiques (apimenus.reconcile.interval-minutes, 0 pour aucune)
+     */
+    public void start() {
+        long intervalMinutes = ApiConfig.getLong("apimenus.reconcile.interval-minutes", 60);
+        if (intervalMinutes > 0) {
+            scheduler.scheduleWithFixedDelay(this::run, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Méthode qui lance une vérification en arrière-plan sans attendre la prochaine vérification programmée
+     * (sans effet si une vérification est en cours)
+     */
+    public void runNow() {
+        if (!running.get()) {
+            scheduler.execute(this::run);
+        }
+    }
+
+    /**
+     * Méthode qui vérifie le prix de tous les menus, lot par lot (sans effet si une vérification est en cours)
+     * @return PriceReconcileReportDTO rapport de la vérification
+     */
+    public PriceReconcileReportDTO run() {
+        if (!running.compareAndSet(false, true)) {
+            return report;
+        }
+
+        PriceReconcileReportDTO current = new PriceReconcileReportDTO();
+        current.setRunning(true);
+        current.setStartedAt(new Timestamp(System.currentTimeMillis()));
+        report = current;
+        try {
+            int afterId = 0;
+            do {
+                long fixedBefore = current.getFixed();
+                afterId = menuRepo.reconcilePrices(afterId, batchSize, tolerance, current);
+                if (current.getFixed() > fixedBefore && events != null) {
+                    events.changed();
+                }
+
+                // pause entre deux lots pour laisser la base et l'api plats aux requêtes des clients
+                if (afterId != 0 && pauseMillis > 0) {
+                    Thread.sleep(pauseMillis);
+                }
+            } while (afterId != 0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            current.setError("Vérification interrompue");
+        } catch (RuntimeException e) {
+            // api plats indisponible ou base inaccessible : la vérification reprendra au prochain passage
+            System.err.println(e.getMessage());
+            current.setError(e.getMessage());
+        } finally {
+            current.setFinishedAt(new Timestamp(System.currentTimeMillis()));
+            current.setRunning(false);
+            running.set(false);
+        }
+        return current;
+    }
+
+    /**
+     * Méthode qui retourne le rapport de la vérification en cours ou de la dernière vérification
+     * @return PriceReconcileReportDTO rapport (menus vérifiés, corrigés, ignorés et écarts corrigés)
+     */
+    public PriceReconcileReportDTO getReport() {
+        return report;
+    }
+
+    /**
+     * Méthode qui arrête les vérifications
+     */
+    public void close() {
+        scheduler.shutdownNow();
+        menuRepo.close();
+    }
+}
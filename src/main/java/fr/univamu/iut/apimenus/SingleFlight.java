@@ -0,0 +1,96 @@
+package fr.univamu.iut.apimenus;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Regroupement des chargements simultanés d'une même clé (p.ex. un menu très demandé) :
+ * le premier appelant exécute le chargement, les appelants qui arrivent pendant ce chargement
+ * attendent et reçoivent le même résultat (ou la même erreur).
+ * Après une modification, forget doit être appelée pour que les appelants suivants
+ * ne reçoivent pas le résultat d'un chargement commencé avant la modification.
+ *
+ * @param <K> type de la clé
+ * @param <V> type du résultat
+ */
+public class SingleFlight<K, V> {
+
+    /**
+     * Chargements en cours, par clé
+     */
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Nombre d'appels servis par un chargement déjà en cours
+     */
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Méthode qui retourne le résultat du chargement d'une clé, en partageant un chargement déjà en cours
+     * @param key K clé à charger
+     * @param loader Supplier<V> chargement, exécuté dans le thread appelant s'il n'y a pas de chargement en cours
+     * @return V résultat du chargement
+     * @throws RuntimeException l'erreur levée par le chargement
+     * @throws CancellationException si le thread appelant est interrompu pendant l'attente
+     */
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+
+        try {
+            V value = loader.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Méthode qui attend la fin d'un chargement en cours
+     * @param flight CompletableFuture<V> chargement en cours
+     * @return V résultat du chargement
+     */
+    private V await(CompletableFuture<V> flight) {
+        try {
+            return flight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Attente interrompue");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new CompletionException(cause);
+        }
+    }
+
+    /**
+     * Méthode qui détache le chargement en cours d'une clé : les appelants suivants lancent un nouveau chargement
+     * (à appeler après chaque modification de la clé)
+     * @param key K clé modifiée
+     */
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    /**
+     * Méthode qui retourne le nombre d'appels servis par un chargement déjà en cours
+     * @return long nombre d'appels regroupés
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+}
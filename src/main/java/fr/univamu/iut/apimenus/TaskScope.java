@@ -0,0 +1,127 @@
+package fr.univamu.iut.apimenus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Portée de tâches liées à une même requête (p.ex. les plats d'un menu récupérés en parallèle).
+ * Les tâches lancées dans la portée sont attendues ensemble et annulées ensemble :
+ * si une tâche échoue, si le thread appelant est interrompu (requête abandonnée) ou si le délai est dépassé,
+ * les tâches restantes sont interrompues. La portée s'utilise dans un try-with-resources
+ * pour qu'aucune tâche ne survive à la requête.
+ *
+ * @param <T> type du résultat des tâches
+ */
+public class TaskScope<T> implements AutoCloseable {
+
+    /**
+     * Threads qui exécutent les tâches
+     */
+    private final Executor executor;
+
+    /**
+     * Tâches lancées dans la portée
+     */
+    private final List<Future<T>> tasks = new ArrayList<>();
+
+    /**
+     * Tâches terminées, dans l'ordre où elles se sont terminées
+     */
+    private final BlockingQueue<Future<T>> completed = new LinkedBlockingQueue<>();
+
+    /**
+     * Nombre de tâches terminées déjà prises en compte par join
+     */
+    private int joined;
+
+    /**
+     * Constructeur de la portée
+     * @param executor Executor threads qui exécutent les tâches
+     */
+    public TaskScope(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Méthode qui lance une tâche dans la portée
+     * @param task Callable<T> tâche à lancer
+     * @return Future<T> résultat de la tâche, disponible après join
+     * @throws RejectedExecutionException si la tâche n'a pas pu être lancée
+     */
+    public Future<T> fork(Callable<T> task) {
+        FutureTask<T> future = new FutureTask<>(task) {
+            @Override
+            protected void done() {
+                completed.add(this);
+            }
+        };
+        tasks.add(future);
+        executor.execute(future);
+        return future;
+    }
+
+    /**
+     * Méthode qui attend la fin de toutes les tâches
+     * @throws InterruptedException si le thread appelant est interrompu (les tâches sont alors annulées)
+     * @throws ExecutionException si une tâche a échoué (les autres tâches sont alors annulées)
+     */
+    public void join() throws InterruptedException, ExecutionException {
+        try {
+            joinUntil(0);
+        } catch (TimeoutException e) {
+            // impossible sans date limite
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Méthode qui attend la fin de toutes les tâches jusqu'à une date limite
+     * @param deadlineMillis long date limite (System.currentTimeMillis), 0 pour attendre sans limite
+     * @throws InterruptedException si le thread appelant est interrompu (les tâches sont alors annulées)
+     * @throws ExecutionException si une tâche a échoué (les autres tâches sont alors annulées)
+     * @throws TimeoutException si la date limite est dépassée (les tâches restantes sont alors annulées)
+     */
+    public void joinUntil(long deadlineMillis) throws InterruptedException, ExecutionException, TimeoutException {
+        try {
+            while (joined < tasks.size()) {
+                Future<T> future;
+                if (deadlineMillis == 0) {
+                    future = completed.take();
+                } else {
+                    long remaining = deadlineMillis - System.currentTimeMillis();
+                    future = remaining > 0 ? completed.poll(remaining, TimeUnit.MILLISECONDS) : null;
+                    if (future == null) {
+                        shutdown();
+                        throw new TimeoutException("Délai dépassé");
+                    }
+                }
+                joined++;
+
+                if (!future.isCancelled()) {
+                    future.get();
+                }
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            shutdown();
+            throw e;
+        }
+    }
+
+    /**
+     * Méthode qui annule (interrompt) les tâches non terminées
+     */
+    public void shutdown() {
+        for (Future<T> future : tasks) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Méthode qui ferme la portée : les tâches non terminées sont annulées
+     */
+    @Override
+    public void close() {
+        shutdown();
+    }
+}
@@ -0,0 +1,52 @@
+package fr.univamu.iut.apimenus;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Classe utilitaire qui crée des pools de threads virtuels lorsque le mode est activé
+ * (apimenus.threads.virtual=true) et que la JVM les propose (Java 21 ou plus).
+ * L'api est compilée pour Java 11 : les threads virtuels sont créés par réflexion,
+ * et des threads classiques sont utilisés sur une JVM plus ancienne.
+ */
+public final class VirtualThreads {
+
+    /**
+     * Constructeur privé, la classe n'est pas instanciable
+     */
+    private VirtualThreads() {
+    }
+
+    /**
+     * Méthode qui indique si le mode threads virtuels est demandé dans la configuration
+     * @return boolean true si apimenus.threads.virtual vaut true
+     */
+    public static boolean isEnabled() {
+        return ApiConfig.getBoolean("apimenus.threads.virtual", false);
+    }
+
+    /**
+     * Méthode qui crée un pool lançant un thread virtuel par tâche, si le mode est activé
+     * @param name String préfixe du nom des threads
+     * @return ExecutorService le pool, null si le mode n'est pas activé ou si la JVM ne propose pas de threads virtuels
+     */
+    public static ExecutorService newExecutor(String name) {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        try {
+            // équivalent de Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name, 0).factory())
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, name + "-", 0L);
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            System.err.println("Threads virtuels indisponibles sur cette JVM (Java 21 requis), threads classiques utilisés pour " + name);
+            return null;
+        }
+    }
+}
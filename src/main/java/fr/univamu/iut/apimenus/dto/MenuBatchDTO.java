@@ -0,0 +1,55 @@
+package fr.univamu.iut.apimenus.dto;
+
+import fr.univamu.iut.apimenus.Menu;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO servant à renvoyer plusieurs menus demandés par leur id :
+ * les menus trouvés, indexés par leur id, et les id des menus introuvables
+ */
+public class MenuBatchDTO {
+
+    private Map<String, Menu> menus = new LinkedHashMap<>();
+    private List<Integer> missing = new ArrayList<>();
+
+    /**
+     * Constructeur par défaut
+     */
+    public MenuBatchDTO() {}
+
+    /**
+     * Méthode permettant de récupérer les menus trouvés
+     * @return Map<String, Menu> menus trouvés, indexés par leur id
+     */
+    public Map<String, Menu> getMenus() {
+        return menus;
+    }
+
+    /**
+     * Méthode permettant de définir les menus trouvés
+     * @param menus Map<String, Menu> menus trouvés, indexés par leur id
+     */
+    public void setMenus(Map<String, Menu> menus) {
+        this.menus = menus;
+    }
+
+    /**
+     * Méthode permettant de récupérer les id des menus introuvables
+     * @return List<Integer> id des menus introuvables, dans l'ordre de la demande
+     */
+    public List<Integer> getMissing() {
+        return missing;
+    }
+
+    /**
+     * Méthode permettant de définir les id des menus introuvables
+     * @param missing List<Integer> id des menus introuvables
+     */
+    public void setMissing(List<Integer> missing) {
+        this.missing = missing;
+    }
+}
@@ -0,0 +1,33 @@
+package fr.univamu.iut.apimenus.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO servant à demander plusieurs menus par leur id
+ */
+public class MenuBatchRequest {
+
+    private List<Integer> ids = new ArrayList<>();
+
+    /**
+     * Constructeur par défaut
+     */
+    public MenuBatchRequest() {}
+
+    /**
+     * Méthode permettant de récupérer les id des menus demandés
+     * @return List<Integer> id des menus demandés
+     */
+    public List<Integer> getIds() {
+        return ids;
+    }
+
+    /**
+     * Méthode permettant de définir les id des menus demandés
+     * @param ids List<Integer> id des menus demandés
+     */
+    public void setIds(List<Integer> ids) {
+        this.ids = ids;
+    }
+}
@@ -0,0 +1,104 @@
+package fr.univamu.iut.apimenus.dto;
+
+/**
+ * DTO servant à renvoyer une modification d'un menu du journal des modifications :
+ * upsert (menu créé ou modifié, avec son état actuel) ou delete (menu supprimé)
+ */
+public class MenuChangeDTO {
+
+    /**
+     * Type d'une modification : menu créé ou modifié
+     */
+    public static final String UPSERT = "upsert";
+
+    /**
+     * Type d'une modification : menu supprimé
+     */
+    public static final String DELETE = "delete";
+
+    private long seq;
+    private int id;
+    private String type;
+    private Object menu;
+
+    /**
+     * Constructeur par défaut
+     */
+    public MenuChangeDTO() {}
+
+    /**
+     * Constructeur de la modification
+     * @param seq long position de la modification dans le journal
+     * @param id int id du menu modifié
+     * @param type String upsert ou delete
+     */
+    public MenuChangeDTO(long seq, int id, String type) {
+        this.seq = seq;
+        this.id = id;
+        this.type = type;
+    }
+
+    /**
+     * Méthode permettant de récupérer la position de la modification dans le journal
+     * @return long position de la modification
+     */
+    public long getSeq() {
+        return seq;
+    }
+
+    /**
+     * Méthode permettant de définir la position de la modification dans le journal
+     * @param seq long position de la modification
+     */
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+
+    /**
+     * Méthode permettant de récupérer l'id du menu modifié
+     * @return int id du menu
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Méthode permettant de définir l'id du menu modifié
+     * @param id int id du menu
+     */
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Méthode permettant de récupérer le type de la modification
+     * @return String upsert ou delete
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Méthode permettant de définir le type de la modification
+     * @param type String upsert ou delete
+     */
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    /**
+     * Méthode permettant de récupérer l'état actuel du menu (upsert uniquement)
+     * @return Object menu complet ou limité aux champs demandés, null pour une suppression
+     */
+    public Object getMenu() {
+        return menu;
+    }
+
+    /**
+     * Méthode permettant de définir l'état actuel du menu
+     * @param menu Object menu complet ou limité aux champs demandés
+     */
+    public void setMenu(Object menu) {
+        this.menu = menu;
+    }
+}
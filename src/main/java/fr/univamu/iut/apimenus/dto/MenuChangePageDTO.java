@@ -0,0 +1,67 @@
+package fr.univamu.iut.apimenus.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO servant à renvoyer une page du journal des modifications des menus
+ */
+public class MenuChangePageDTO {
+
+    private List<MenuChangeDTO> changes = new ArrayList<>();
+    private boolean hasMore;
+    private String next;
+
+    /**
+     * Constructeur par défaut
+     */
+    public MenuChangePageDTO() {}
+
+    /**
+     * Méthode permettant de récupérer les modifications de la page
+     * @return List<MenuChangeDTO> modifications, une seule (la dernière) par menu
+     */
+    public List<MenuChangeDTO> getChanges() {
+        return changes;
+    }
+
+    /**
+     * Méthode permettant de définir les modifications de la page
+     * @param changes List<MenuChangeDTO> modifications de la page
+     */
+    public void setChanges(List<MenuChangeDTO> changes) {
+        this.changes = changes;
+    }
+
+    /**
+     * Méthode permettant de savoir s'il reste des modifications après cette page
+     * @return boolean true s'il existe une page suivante
+     */
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    /**
+     * Méthode permettant de définir s'il reste des modifications après cette page
+     * @param hasMore boolean true s'il existe une page suivante
+     */
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * Méthode permettant de récupérer le jeton à passer dans since pour obtenir les modifications suivantes
+     * @return String jeton de la page suivante
+     */
+    public String getNext() {
+        return next;
+    }
+
+    /**
+     * Méthode permettant de définir le jeton de la page suivante
+     * @param next String jeton de la page suivante
+     */
+    public void setNext(String next) {
+        this.next = next;
+    }
+}
@@ -0,0 +1,95 @@
+package fr.univamu.iut.apimenus.dto;
+
+/**
+ * DTO servant à renvoyer le résultat de l'import d'un menu (une ligne du flux importé)
+ */
+public class MenuImportResultDTO {
+
+    private long line;
+    private String status;
+    private Integer id;
+    private String error;
+
+    /**
+     * Constructeur par défaut
+     */
+    public MenuImportResultDTO() {}
+
+    /**
+     * Constructeur du résultat
+     * @param line long numéro de la ligne importée (à partir de 1)
+     * @param status String created ou error
+     * @param id Integer id du menu créé, null en cas d'erreur
+     * @param error String raison de l'erreur, null si le menu a été créé
+     */
+    public MenuImportResultDTO(long line, String status, Integer id, String error) {
+        this.line = line;
+        this.status = status;
+        this.id = id;
+        this.error = error;
+    }
+
+    /**
+     * Méthode permettant de récupérer le numéro de la ligne importée
+     * @return long numéro de la ligne (à partir de 1)
+     */
+    public long getLine() {
+        return line;
+    }
+
+    /**
+     * Méthode permettant de définir le numéro de la ligne importée
+     * @param line long numéro de la ligne
+     */
+    public void setLine(long line) {
+        this.line = line;
+    }
+
+    /**
+     * Méthode permettant de récupérer le statut de l'import
+     * @return String created ou error
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * Méthode permettant de définir le statut de l'import
+     * @param status String created ou error
+     */
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    /**
+     * Méthode permettant de récupérer l'id du menu créé
+     * @return Integer id du menu, null en cas d'erreur
+     */
+    public Integer getId() {
+        return id;
+    }
+
+    /**
+     * Méthode permettant de définir l'id du menu créé
+     * @param id Integer id du menu
+     */
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    /**
+     * Méthode permettant de récupérer la raison de l'erreur
+     * @return String raison de l'erreur, null si le menu a été créé
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Méthode permettant de définir la raison de l'erreur
+     * @param error String raison de l'erreur
+     */
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,86 @@
+package fr.univamu.iut.apimenus.dto;
+
+import fr.univamu.iut.apimenus.Menu;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO servant à renvoyer une page de la liste des menus avec ses informations de pagination
+ */
+public class MenuPageDTO {
+
+    private List<Menu> items = new ArrayList<>();
+    private int limit;
+    private boolean hasMore;
+    private String next;
+
+    /**
+     * Constructeur par défaut
+     */
+    public MenuPageDTO() {}
+
+    /**
+     * Méthode permettant de récupérer les menus de la page
+     * @return List<Menu> menus de la page
+     */
+    public List<Menu> getItems() {
+        return items;
+    }
+
+    /**
+     * Méthode permettant de définir les menus de la page
+     * @param items List<Menu> menus de la page
+     */
+    public void setItems(List<Menu> items) {
+        this.items = items;
+    }
+
+    /**
+     * Méthode permettant de récupérer la taille de page demandée
+     * @return int taille de la page
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Méthode permettant de définir la taille de page demandée
+     * @param limit int taille de la page
+     */
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Méthode permettant de savoir s'il reste des menus après cette page
+     * @return boolean true s'il existe une page suivante
+     */
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    /**
+     * Méthode permettant de définir s'il reste des menus après cette page
+     * @param hasMore boolean true s'il existe une page suivante
+     */
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * Méthode permettant de récupérer le curseur de la page suivante
+     * @return String curseur à passer dans le paramètre cursor, null s'il n'y a pas de page suivante
+     */
+    public String getNext() {
+        return next;
+    }
+
+    /**
+     * Méthode permettant de définir le curseur de la page suivante
+     * @param next String curseur de la page suivante
+     */
+    public void setNext(String next) {
+        this.next = next;
+    }
+}
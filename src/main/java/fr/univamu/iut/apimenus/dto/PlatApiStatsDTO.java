@@ -0,0 +1,183 @@
+package fr.univamu.iut.apimenus.dto;
+
+/**
+ * DTO servant à publier l'état du disjoncteur et du cloisonnement des appels à l'api plats
+ */
+public class PlatApiStatsDTO {
+
+    private String breakerState;
+    private int consecutiveFailures;
+    private long breakerOpenings;
+    private long breakerRejections;
+    private long bulkheadRejections;
+    private long deadlineExceeded;
+    private long successes;
+    private long failures;
+    private int maxConnections;
+    private int availableConnections;
+
+    /**
+     * Constructeur par défaut
+     */
+    public PlatApiStatsDTO() {}
+
+    /**
+     * Méthode permettant de récupérer l'état du disjoncteur (CLOSED, OPEN, HALF_OPEN)
+     * @return String état du disjoncteur
+     */
+    public String getBreakerState() {
+        return breakerState;
+    }
+
+    /**
+     * Méthode permettant de définir l'état du disjoncteur (CLOSED, OPEN, HALF_OPEN)
+     * @param breakerState String état du disjoncteur
+     */
+    public void setBreakerState(String breakerState) {
+        this.breakerState = breakerState;
+    }
+
+    /**
+     * Méthode permettant de récupérer le nombre d'échecs consécutifs
+     * @return int nombre d'échecs consécutifs
+     */
+    public int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * Méthode permettant de définir le nombre d'échecs consécutifs
+     * @param consecutiveFailures int nombre d'échecs consécutifs
+     */
+    public void setConsecutiveFailures(int consecutiveFailures) {
+        this.consecutiveFailures = consecutiveFailures;
+    }
+
+    /**
+     * Méthode permettant de récupérer le nombre d'ouvertures du disjoncteur
+     * @return long nombre d'ouvertures
+     */
+    public long getBreakerOpenings() {
+        return breakerOpenings;
+    }
+
+    /**
+     * Méthode permettant de définir le nombre d'ouvertures du disjoncteur
+     * @param breakerOpenings long nombre d'ouvertures
+     */
+    public void setBreakerOpenings(long breakerOpenings) {
+        this.breakerOpenings = breakerOpenings;
+    }
+
+    /**
+     * Méthode permettant de récupérer le nombre d'appels refusés par le disjoncteur ouvert
+     * @return long nombre d'appels refusés
+     */
+    public long getBreakerRejections() {
+        return breakerRejections;
+    }
+
+    /**
+     * Méthode permettant de définir le nombre d'appels refusés par le disjoncteur ouvert
+     * @param breakerRejections long nombre d'appels refusés
+     */
+    public void setBreakerRejections(long breakerRejections) {
+        this.breakerRejections = breakerRejections;
+    }
+
+    /**
+     * Méthode permettant de récupérer le nombre d'appels refusés faute de connexion libre
+     * @return long nombre d'appels refusés
+     */
+    public long getBulkheadRejections() {
+        return bulkheadRejections;
+    }
+
+    /**
+     * Méthode permettant de définir le nombre d'appels refusés faute de connexion libre
+     * @param bulkheadRejections long nombre d'appels refusés
+     */
+    public void setBulkheadRejections(long bulkheadRejections) {
+        this.bulkheadRejections = bulkheadRejections;
+    }
+
+    /**
+     * Méthode permettant de récupérer le nombre de récupérations de plats interrompues par leur délai
+     * @return long nombre de délais dépassés
+     */
+    public long getDeadlineExceeded() {
+        return deadlineExceeded;
+    }
+
+    /**
+     * Méthode permettant de définir le nombre de récupérations de plats interrompues par leur délai
+     * @param deadlineExceeded long nombre de délais dépassés
+     */
+    public void setDeadlineExceeded(long deadlineExceeded) {
+        this.deadlineExceeded = deadlineExceeded;
+    }
+
+    /**
+     * Méthode permettant de récupérer le nombre d'appels réussis
+     * @return long nombre de succès
+     */
+    public long getSuccesses() {
+        return successes;
+    }
+
+    /**
+     * Méthode permettant de définir le nombre d'appels réussis
+     * @param successes long nombre de succès
+     */
+    public void setSuccesses(long successes) {
+        this.successes = successes;
+    }
+
+    /**
+     * Méthode permettant de récupérer le nombre d'appels en échec
+     * @return long nombre d'échecs
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    /**
+     * Méthode permettant de définir le nombre d'appels en échec
+     * @param failures long nombre d'échecs
+     */
+    public void setFailures(long failures) {
+        this.failures = failures;
+    }
+
+    /**
+     * Méthode permettant de récupérer le nombre maximum d'appels simultanés
+     * @return int nombre maximum d'appels simultanés
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Méthode permettant de définir le nombre maximum d'appels simultanés
+     * @param maxConnections int nombre maximum d'appels simultanés
+     */
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    /**
+     * Méthode permettant de récupérer le nombre d'appels simultanés encore possibles
+     * @return int nombre d'appels encore possibles
+     */
+    public int getAvailableConnections() {
+        return availableConnections;
+    }
+
+    /**
+     * Méthode permettant de définir le nombre d'appels simultanés encore possibles
+     * @param availableConnections int nombre d'appels encore possibles
+     */
+    public void setAvailableConnections(int availableConnections) {
+        this.availableConnections = availableConnections;
+    }
+}
@@ -0,0 +1,166 @@
+package fr.univamu.iut.apimenus.dto;
+
+/**
+ * DTO servant à publier les compteurs du cache des plats
+ */
+public class PlatCacheStatsDTO {
+
+    private int size;
+    private int maxSize;
+    private long hits;
+    private long staleHits;
+    private long negativeHits;
+    private long misses;
+    private long evictions;
+    private long refreshes;
+    private long coalesced;
+
+    /**
+     * Constructeur par défaut
+     */
+    public PlatCacheStatsDTO() {}
+
+    /**
+     * Méthode permettant de récupérer le nombre de plats en cache
+     * @return int nombre de plats en cache
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Méthode permettant de définir le nombre de plats en cache
+     * @param size int nombre de plats en cache
+     */
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Méthode permettant de récupérer la taille maximum du cache
+     * @return int taille maximum
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Méthode permettant de définir la taille maximum du cache
+     * @param maxSize int taille maximum
+     */
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Méthode permettant de récupérer le nombre de plats servis depuis le cache
+     * @return long nombre de succès
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Méthode permettant de définir le nombre de plats servis depuis le cache
+     * @param hits long nombre de succès
+     */
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    /**
+     * Méthode permettant de récupérer le nombre de plats expirés servis pendant leur rechargement
+     * @return long nombre de succès sur des plats expirés
+     */
+    public long getStaleHits() {
+        return staleHits;
+    }
+
+    /**
+     * Méthode permettant de définir le nombre de plats expirés servis pendant leur rechargement
+     * @param staleHits long nombre de succès sur des plats expirés
+     */
+    public void setStaleHits(long staleHits) {
+        this.staleHits = staleHits;
+    }
+
+    /**
+     * Méthode permettant de récupérer le nombre de plats inexistants (404) servis depuis le cache
+     * @return long nombre de succès négatifs
+     */
+    public long getNegativeHits() {
+        return negativeHits;
+    }
+
+    /**
+     * Méthode permettant de définir le nombre de plats inexistants (404) servis depuis le cache
+     * @param negativeHits long nombre de succès négatifs
+     */
+    public void setNegativeHits(long negativeHits) {
+        this.negativeHits = negativeHits;
+    }
+
+    /**
+     * Méthode permettant de récupérer le nombre de plats demandés à l'api plats
+     * @return long nombre d'échecs
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Méthode permettant de définir le nombre de plats demandés à l'api plats
+     * @param misses long nombre d'échecs
+     */
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    /**
+     * Méthode permettant de récupérer le nombre de plats évincés du cache
+     * @return long nombre d'évictions
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Méthode permettant de définir le nombre de plats évincés du cache
+     * @param evictions long nombre d'évictions
+     */
+    public void setEvictions(long evictions) {
+        this.evictions = evictions;
+    }
+
+    /**
+     * Méthode permettant de récupérer le nombre de plats rechargés en arrière-plan
+     * @return long nombre de rechargements
+     */
+    public long getRefreshes() {
+        return refreshes;
+    }
+
+    /**
+     * Méthode permettant de définir le nombre de plats rechargés en arrière-plan
+     * @param refreshes long nombre de rechargements
+     */
+    public void setRefreshes(long refreshes) {
+        this.refreshes = refreshes;
+    }
+
+    /**
+     * Méthode permettant de récupérer le nombre de plats servis par un chargement déjà en cours
+     * @return long nombre de chargements regroupés
+     */
+    public long getCoalesced() {
+        return coalesced;
+    }
+
+    /**
+     * Méthode permettant de définir le nombre de plats servis par un chargement déjà en cours
+     * @param coalesced long nombre de chargements regroupés
+     */
+    public void setCoalesced(long coalesced) {
+        this.coalesced = coalesced;
+    }
+}
@@ -0,0 +1,64 @@
+package fr.univamu.iut.apimenus.dto;
+
+/**
+ * DTO servant à recevoir un changement de prix d'un plat envoyé par l'api plats & utilisateurs
+ */
+public class PlatPriceChangeDTO {
+
+    private int id_plat;
+    private Float oldPrice;
+    private float price;
+
+    /**
+     * Constructeur par défaut
+     */
+    public PlatPriceChangeDTO() {}
+
+    /**
+     * Méthode permettant d'avoir l'id du plat
+     * @return int id du plat
+     */
+    public int getId_plat() {
+        return id_plat;
+    }
+
+    /**
+     * Méthode permettant de définir l'id du plat
+     * @param id_plat int id du plat
+     */
+    public void setId_plat(int id_plat) {
+        this.id_plat = id_plat;
+    }
+
+    /**
+     * Méthode permettant de récupérer l'ancien prix du plat
+     * @return Float ancien prix, null s'il n'a pas été envoyé
+     */
+    public Float getOldPrice() {
+        return oldPrice;
+    }
+
+    /**
+     * Méthode permettant de définir l'ancien prix du plat
+     * @param oldPrice Float ancien prix
+     */
+    public void setOldPrice(Float oldPrice) {
+        this.oldPrice = oldPrice;
+    }
+
+    /**
+     * Méthode permettant de récupérer le nouveau prix du plat
+     * @return float nouveau prix
+     */
+    public float getPrice() {
+        return price;
+    }
+
+    /**
+     * Méthode permettant de définir le nouveau prix du plat
+     * @param price float nouveau prix
+     */
+    public void setPrice(float price) {
+        this.price = price;
+    }
+}
@@ -0,0 +1,117 @@
+package fr.univamu.iut.apimenus.dto;
+
+import java.sql.Timestamp;
+
+/**
+ * DTO servant à publier le résultat de la dernière synchronisation de la copie locale des plats
+ * (table Plat_snapshot lue avec les menus)
+ */
+public class PlatSnapshotSyncReportDTO {
+    private boolean running;
+    private Timestamp startedAt;
+    private Timestamp finishedAt;
+    private long refreshed;
+    private long pruned;
+    private String error;
+
+    /**
+     * Constructeur par défaut
+     */
+    public PlatSnapshotSyncReportDTO() {}
+
+    /**
+     * Méthode permettant de savoir si une synchronisation est en cours
+     * @return boolean true si une synchronisation est en cours
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Méthode permettant de définir si une synchronisation est en cours
+     * @param running boolean true si une synchronisation est en cours
+     */
+    public void setRunning(boolean running) {
+        this.running = running;
+    }
+
+    /**
+     * Méthode permettant de récupérer la date de début de la dernière synchronisation
+     * @return Timestamp date de début de la dernière synchronisation
+     */
+    public Timestamp getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * Méthode permettant de définir la date de début de la dernière synchronisation
+     * @param startedAt Timestamp date de début de la dernière synchronisation
+     */
+    public void setStartedAt(Timestamp startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    /**
+     * Méthode permettant de récupérer la date de fin de la dernière synchronisation (null si elle est en cours)
+     * @return Timestamp date de fin de la dernière synchronisation (null si elle est en cours)
+     */
+    public Timestamp getFinishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * Méthode permettant de définir la date de fin de la dernière synchronisation
+     * @param finishedAt Timestamp date de fin de la dernière synchronisation
+     */
+    public void setFinishedAt(Timestamp finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    /**
+     * Méthode permettant de récupérer le nombre de plats copiés ou rafraîchis
+     * @return long nombre de plats rafraîchis
+     */
+    public long getRefreshed() {
+        return refreshed;
+    }
+
+    /**
+     * Méthode permettant de définir le nombre de plats copiés ou rafraîchis
+     * @param refreshed long nombre de plats rafraîchis
+     */
+    public void setRefreshed(long refreshed) {
+        this.refreshed = refreshed;
+    }
+
+    /**
+     * Méthode permettant de récupérer le nombre de copies supprimées (plats qui ne sont plus dans aucun menu)
+     * @return long nombre de copies supprimées
+     */
+    public long getPruned() {
+        return pruned;
+    }
+
+    /**
+     * Méthode permettant de définir le nombre de copies supprimées
+     * @param pruned long nombre de copies supprimées
+     */
+    public void setPruned(long pruned) {
+        this.pruned = pruned;
+    }
+
+    /**
+     * Méthode permettant de récupérer l'erreur qui a interrompu la dernière synchronisation
+     * @return String message d'erreur, null si la synchronisation s'est terminée normalement
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Méthode permettant de définir l'erreur qui a interrompu la dernière synchronisation
+     * @param error String message d'erreur
+     */
+    public void setError(String error) {
+        this.error = error;
+    }
+}
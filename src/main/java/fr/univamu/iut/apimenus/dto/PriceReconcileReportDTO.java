@@ -0,0 +1,168 @@
+package fr.univamu.iut.apimenus.dto;
+
+import java.sql.Timestamp;
+
+/**
+ * DTO servant à publier le résultat de la dernière vérification des prix des menus
+ * (prix enregistrés comparés à la somme des prix actuels de leurs plats)
+ */
+public class PriceReconcileReportDTO {
+    private boolean running;
+    private Timestamp startedAt;
+    private Timestamp finishedAt;
+    private long checked;
+    private long fixed;
+    private long skipped;
+    private double totalDrift;
+    private double maxDrift;
+    private String error;
+
+    /**
+     * Constructeur par défaut
+     */
+    public PriceReconcileReportDTO() {}
+
+    /**
+     * Méthode permettant de savoir si une vérification est en cours
+     * @return boolean true si une vérification est en cours
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Méthode permettant de définir si une vérification est en cours
+     * @param running boolean true si une vérification est en cours
+     */
+    public void setRunning(boolean running) {
+        this.running = running;
+    }
+
+    /**
+     * Méthode permettant de récupérer la date de début de la dernière vérification
+     * @return Timestamp date de début de la dernière vérification
+     */
+    public Timestamp getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * Méthode permettant de définir la date de début de la dernière vérification
+     * @param startedAt Timestamp date de début de la dernière vérification
+     */
+    public void setStartedAt(Timestamp startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    /**
+     * Méthode permettant de récupérer la date de fin de la dernière vérification (null si elle est en cours)
+     * @return Timestamp date de fin de la dernière vérification (null si elle est en cours)
+     */
+    public Timestamp getFinishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * Méthode permettant de définir la date de fin de la dernière vérification (null si elle est en cours)
+     * @param finishedAt Timestamp date de fin de la dernière vérification (null si elle est en cours)
+     */
+    public void setFinishedAt(Timestamp finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    /**
+     * Méthode permettant de récupérer le nombre de menus vérifiés
+     * @return long nombre de menus vérifiés
+     */
+    public long getChecked() {
+        return checked;
+    }
+
+    /**
+     * Méthode permettant de définir le nombre de menus vérifiés
+     * @param checked long nombre de menus vérifiés
+     */
+    public void setChecked(long checked) {
+        this.checked = checked;
+    }
+
+    /**
+     * Méthode permettant de récupérer le nombre de menus dont le prix a été corrigé
+     * @return long nombre de menus dont le prix a été corrigé
+     */
+    public long getFixed() {
+        return fixed;
+    }
+
+    /**
+     * Méthode permettant de définir le nombre de menus dont le prix a été corrigé
+     * @param fixed long nombre de menus dont le prix a été corrigé
+     */
+    public void setFixed(long fixed) {
+        this.fixed = fixed;
+    }
+
+    /**
+     * Méthode permettant de récupérer le nombre de menus ignorés (prix d'un plat indisponible ou menu modifié pendant la vérification)
+     * @return long nombre de menus ignorés (prix d'un plat indisponible ou menu modifié pendant la vérification)
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Méthode permettant de définir le nombre de menus ignorés (prix d'un plat indisponible ou menu modifié pendant la vérification)
+     * @param skipped long nombre de menus ignorés (prix d'un plat indisponible ou menu modifié pendant la vérification)
+     */
+    public void setSkipped(long skipped) {
+        this.skipped = skipped;
+    }
+
+    /**
+     * Méthode permettant de récupérer la somme des écarts (en valeur absolue) entre les prix corrigés et les prix recalculés
+     * @return doubla somme des écarts (en valeur absolue) entre les prix corrigés et les prix recalculés
+     */
+    public double getTotalDrift() {
+        return totalDrift;
+    }
+
+    /**
+     * Méthode permettant de définir la somme des écarts (en valeur absolue) entre les prix corrigés et les prix recalculés
+     * @param totalDrift double somme des écarts (en valeur absolue) entre les prix corrigés et les prix recalculés
+     */
+    public void setTotalDrift(double totalDrift) {
+        this.totalDrift = totalDrift;
+    }
+
+    /**
+     * Méthode permettant de récupérer le plus grand écart (en valeur absolue) corrigé
+     * @return double plus grand écart (en valeur absolue) corrigé
+     */
+    public double getMaxDrift() {
+        return maxDrift;
+    }
+
+    /**
+     * Méthode permettant de définir le plus grand écart (en valeur absolue) corrigé
+     * @param maxDrift double plus grand écart (en valeur absolue) corrigé
+     */
+    public void setMaxDrift(double maxDrift) {
+        this.maxDrift = maxDrift;
+    }
+
+    /**
+     * Méthode permettant de récupérer la raison de l'arrêt de la vérification avant la fin (null si elle s'est terminée normalement)
+     * @return String raison de l'arrêt de la vérification avant la fin (null si elle s'est terminée normalement)
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Méthode permettant de définir la raison de l'arrêt de la vérification avant la fin (null si elle s'est terminée normalement)
+     * @param error String raison de l'arrêt de la vérification avant la fin (null si elle s'est terminée normalement)
+     */
+    public void setError(String error) {
+        this.error = error;
+    }
+}
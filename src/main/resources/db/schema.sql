@@ -0,0 +1,27 @@
+-- Évolutions du schéma de la base apimenus_db, appliquées au démarrage de l'api
+-- (apimenus.db.migrate=true). Chaque instruction doit pouvoir être rejouée sans erreur.
+
+-- Version de chaque menu, incrémentée à chaque modification (ETag des réponses)
+ALTER TABLE Menu ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 1;
+
+-- Journal des modifications des menus (flux /api/menus/changes) : une ligne par création,
+-- modification ou suppression, écrite dans la même transaction que la modification
+CREATE TABLE IF NOT EXISTS Menu_change (
+    seq BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    id_menu INT NOT NULL,
+    change_type VARCHAR(10) NOT NULL,
+    changed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Copie locale des plats utilisés par les menus (nom, description, prix), rafraîchie par la tâche
+-- de synchronisation : les lectures de menus joignent cette table au lieu d'appeler l'api plats.
+-- found vaut 0 pour un plat que l'api plats ne connaît plus, synced_at est la date de la dernière copie
+CREATE TABLE IF NOT EXISTS Plat_snapshot (
+    id_plat INT NOT NULL PRIMARY KEY,
+    name VARCHAR(255),
+    description TEXT,
+    price FLOAT NOT NULL DEFAULT 0,
+    found BOOLEAN NOT NULL DEFAULT TRUE,
+    synced_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_plat_snapshot_synced (synced_at)
+);
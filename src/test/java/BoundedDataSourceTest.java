@@ -0,0 +1,38 @@
+import fr.univamu.iut.apimenus.BoundedDataSource;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+
+public class BoundedDataSourceTest {
+
+    @Test
+    public void testPermitReturnedWithConnection() throws Exception {
+        BoundedDataSource dataSource = new BoundedDataSource(fakeDataSource(), 1, 50);
+
+        Connection conn = dataSource.getConnection();
+        Assert.assertEquals(0, dataSource.getAvailablePermits());
+        try {
+            dataSource.getConnection();
+            Assert.fail("le deuxième emprunt doit attendre puis échouer");
+        } catch (SQLTransientConnectionException e) {
+            Assert.assertEquals(0, dataSource.getAvailablePermits());
+        }
+
+        conn.close();
+        conn.close();
+        Assert.assertEquals(1, dataSource.getAvailablePermits());
+        dataSource.getConnection().close();
+        Assert.assertEquals(1, dataSource.getAvailablePermits());
+    }
+
+    private DataSource fakeDataSource() {
+        Connection conn = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> null);
+        return (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> method.getName().equals("getConnection") ? conn : null);
+    }
+}
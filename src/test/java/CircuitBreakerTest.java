@@ -0,0 +1,49 @@
+import fr.univamu.iut.apimenus.CircuitBreaker;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+
+    @Test
+    public void testOpensAfterConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 60000, 1);
+        Assert.assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        Assert.assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Assert.assertFalse(breaker.tryAcquire());
+        Assert.assertEquals(1, breaker.getRejections());
+    }
+
+    @Test
+    public void testSuccessResetsFailures() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 60000, 1);
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void testHalfOpenProbe() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(1, 20, 1);
+        breaker.onFailure();
+        Thread.sleep(40);
+        Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        // un seul appel d'essai à la fois
+        Assert.assertTrue(breaker.tryAcquire());
+        Assert.assertFalse(breaker.tryAcquire());
+
+        // l'essai échoue : le disjoncteur est rouvert
+        breaker.onFailure();
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        Thread.sleep(40);
+        Assert.assertTrue(breaker.tryAcquire());
+        breaker.onSuccess();
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        Assert.assertEquals(2, breaker.getOpenings());
+    }
+}
@@ -0,0 +1,69 @@
+import fr.univamu.iut.apimenus.MenuProjection;
+import fr.univamu.iut.apimenus.MenuQuery;
+import fr.univamu.iut.apimenus.MenuRepositoryMariadb;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.*;
+
+public class MenuPageQueryTest {
+
+    private final List<String> statements = new ArrayList<>();
+    private final Map<Integer, Object> params = new TreeMap<>();
+
+    @Test
+    public void testPriceCursorComparesWithStoredPrice() {
+        MenuQuery query = new MenuQuery();
+        query.setLimit(2);
+        query.setSort(MenuQuery.Sort.PRICE);
+        query.setAfter("12.3", 7);
+
+        new MenuRepositoryMariadb(recordingDataSource(), null, null)
+                .getMenuPage(query, new MenuProjection(Arrays.asList("id", "price"), false));
+
+        String sql = statements.get(0);
+        String stored = "COALESCE((SELECT price FROM Menu WHERE id_menu = ?), ?)";
+        Assert.assertTrue(sql, sql.contains("price > " + stored));
+        Assert.assertTrue(sql, sql.contains("price = " + stored + " AND id_menu > ?"));
+        Assert.assertEquals(Arrays.asList(7, 12.3f, 7, 12.3f, 7, 3), new ArrayList<>(params.values()));
+    }
+
+    private DataSource recordingDataSource() {
+        ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ResultSetMetaData.class}, (proxy, method, args) -> 0);
+        ResultSet empty = (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "next":
+                            return false;
+                        case "getMetaData":
+                            return metaData;
+                        default:
+                            return null;
+                    }
+                });
+        PreparedStatement ps = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("setObject")) {
+                        params.put((Integer) args[0], args[1]);
+                    }
+                    return method.getName().equals("executeQuery") ? empty : null;
+                });
+        Connection conn = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("prepareStatement")) {
+                        statements.add((String) args[0]);
+                        return ps;
+                    }
+                    return null;
+                });
+        return (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> method.getName().equals("getConnection") ? conn : null);
+    }
+}
@@ -0,0 +1,104 @@
+import fr.univamu.iut.apimenus.Menu;
+import fr.univamu.iut.apimenus.MenuQuery;
+import fr.univamu.iut.apimenus.MenuRepositoryMemory;
+import fr.univamu.iut.apimenus.PlatSource;
+import fr.univamu.iut.apimenus.dto.MenuChangeDTO;
+import fr.univamu.iut.apimenus.dto.MenuPageDTO;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class MenuRepositoryMemoryTest {
+
+    @Test
+    public void testCreateMenuUsesPlatPrices() {
+        MenuRepositoryMemory repo = new MenuRepositoryMemory(PlatSource.fixedPrice(5));
+
+        Assert.assertTrue(repo.createMenu("a", "Menu", "desc", Arrays.asList(1, 2, 1)));
+
+        Menu menu = repo.getMenu(1);
+        Assert.assertEquals(15f, menu.getPrice(), 0.001);
+        Assert.assertEquals(3, menu.getListPlat().size());
+        Assert.assertNull(repo.getMenu(2));
+    }
+
+    @Test
+    public void testPlatChangesKeepPriceInStep() {
+        MenuRepositoryMemory repo = new MenuRepositoryMemory(PlatSource.fixedPrice(5));
+        repo.createMenu("a", "Menu", "desc", Collections.singletonList(1));
+
+        Assert.assertTrue(repo.addAllPlatToMenu(1, Arrays.asList(2, 2)));
+        Assert.assertEquals(15f, repo.getMenu(1).getPrice(), 0.001);
+
+        Assert.assertTrue(repo.removePlatFromMenu(1, 2));
+        Assert.assertEquals(5f, repo.getMenu(1).getPrice(), 0.001);
+        Assert.assertEquals(1, repo.getAllPlatFromMenu(1).size());
+
+        Assert.assertEquals(Collections.singletonList(1), repo.repricePlat(1, 5f, 7f));
+        Assert.assertEquals(7f, repo.getMenu(1).getPrice(), 0.001);
+    }
+
+    @Test
+    public void testMenuPageSortedByPrice() {
+        MenuRepositoryMemory repo = new MenuRepositoryMemory(PlatSource.fixedPrice(1));
+        repo.createMenu("a", "Trois", "", Arrays.asList(1, 2, 3));
+        repo.createMenu("a", "Un", "", Collections.singletonList(1));
+        repo.createMenu("a", "Deux", "", Arrays.asList(1, 2));
+
+        MenuQuery query = new MenuQuery();
+        query.setLimit(2);
+        query.setSort(MenuQuery.Sort.PRICE);
+        MenuPageDTO page = repo.getMenuPage(query);
+        Assert.assertEquals(Arrays.asList(2, 3), ids(page));
+        Assert.assertTrue(page.isHasMore());
+
+        query.decodeCursor(page.getNext());
+        page = repo.getMenuPage(query);
+        Assert.assertEquals(Collections.singletonList(1), ids(page));
+        Assert.assertFalse(page.isHasMore());
+    }
+
+    @Test
+    public void testMenuPageWithDuplicatePrices() {
+        MenuRepositoryMemory repo = new MenuRepositoryMemory(PlatSource.fixedPrice(0.1f));
+        for (int i = 0; i < 5; ++i) {
+            repo.createMenu("a", "Menu", "", Arrays.asList(1, 2, 3));
+        }
+
+        MenuQuery query = new MenuQuery();
+        query.setLimit(2);
+        query.setSort(MenuQuery.Sort.PRICE);
+        List<Integer> seen = new ArrayList<>();
+        MenuPageDTO page = repo.getMenuPage(query);
+        seen.addAll(ids(page));
+        while (page.isHasMore()) {
+            query.decodeCursor(page.getNext());
+            page = repo.getMenuPage(query);
+            seen.addAll(ids(page));
+        }
+        Assert.assertEquals(Arrays.asList(1, 2, 3, 4, 5), seen);
+    }
+
+    @Test
+    public void testChangesAreLogged() {
+        MenuRepositoryMemory repo = new MenuRepositoryMemory(PlatSource.fixedPrice(1));
+        repo.createMenu("a", "Menu", "", Collections.emptyList());
+        repo.deleteMenu(1);
+
+        List<MenuChangeDTO> changes = repo.getChanges(0, 10);
+        Assert.assertEquals(2, changes.size());
+        Assert.assertEquals(MenuChangeDTO.DELETE, changes.get(1).getType());
+        Assert.assertEquals(2, repo.getLastChange());
+        Assert.assertEquals(1, repo.getFirstChange());
+        Assert.assertFalse(repo.deleteMenu(1));
+    }
+
+    private static List<Integer> ids(MenuPageDTO page) {
+        List<Integer> ids = new ArrayList<>();
+        for (Menu menu : page.getItems()) {
+            ids.add(menu.getId());
+        }
+        return ids;
+    }
+}
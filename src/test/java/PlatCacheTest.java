@@ -0,0 +1,125 @@
+import fr.univamu.iut.apimenus.PlatApiClient;
+import fr.univamu.iut.apimenus.PlatApiUnavailableException;
+import fr.univamu.iut.apimenus.PlatCache;
+import fr.univamu.iut.apimenus.dto.PlatDTO;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class PlatCacheTest {
+
+    private List<Integer> requestedIds;
+    private PlatCache cache;
+
+    @Before
+    public void setUp() {
+        requestedIds = new ArrayList<>();
+        PlatApiClient platApi = new PlatApiClient() {
+            @Override
+            public Map<Integer, PlatDTO> fetchPlats(Collection<Integer> listPlatId, Set<Integer> notFoundIds) {
+                Map<Integer, PlatDTO> platsById = new HashMap<>();
+                for (Integer idPlat : listPlatId) {
+                    requestedIds.add(idPlat);
+                    if (idPlat == 404) {
+                        notFoundIds.add(idPlat);
+                    } else {
+                        PlatDTO platDTO = new PlatDTO();
+                        platDTO.setId(idPlat);
+                        platDTO.setPrice(idPlat);
+                        platsById.put(idPlat, platDTO);
+                    }
+                }
+                return platsById;
+            }
+        };
+        cache = new PlatCache(platApi, 2, 60000, 60000);
+    }
+
+    @Test
+    public void testHitAfterMiss() {
+        cache.getAll(Arrays.asList(1, 2));
+        Map<Integer, PlatDTO> plats = cache.getAll(Arrays.asList(1, 2));
+        Assert.assertEquals(2, plats.size());
+        Assert.assertEquals(Arrays.asList(1, 2), requestedIds);
+        Assert.assertEquals(2, cache.getStats().getHits());
+        Assert.assertEquals(2, cache.getStats().getMisses());
+    }
+
+    @Test
+    public void testNotFoundIsCached() {
+        Assert.assertNull(cache.get(404));
+        Assert.assertNull(cache.get(404));
+        Assert.assertEquals(Collections.singletonList(404), requestedIds);
+        Assert.assertEquals(1, cache.getStats().getNegativeHits());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        cache.get(1);
+        cache.get(2);
+        cache.get(1);
+        cache.get(3);
+        Assert.assertNotNull(cache.peek(1));
+        Assert.assertNull(cache.peek(2));
+        Assert.assertEquals(1, cache.getStats().getEvictions());
+    }
+
+    @Test
+    public void testConcurrentMissesShareOneCall() throws Exception {
+        List<Integer> calls = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PlatCache slowCache = new PlatCache(new PlatApiClient() {
+            @Override
+            public Map<Integer, PlatDTO> fetchPlats(Collection<Integer> listPlatId, Set<Integer> notFoundIds) {
+                calls.addAll(listPlatId);
+                fetching.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                PlatDTO platDTO = new PlatDTO();
+                platDTO.setId(1);
+                return Collections.singletonMap(1, platDTO);
+            }
+        }, 10, 60000, 60000);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<PlatDTO> first = executor.submit(() -> slowCache.get(1));
+            fetching.await();
+            Future<PlatDTO> second = executor.submit(() -> slowCache.get(1));
+            while (slowCache.getStats().getCoalesced() == 0) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            Assert.assertNotNull(first.get());
+            Assert.assertNotNull(second.get());
+            Assert.assertEquals(Collections.singletonList(1), calls);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testUnavailablePlatsAreReported() {
+        PlatCache downCache = new PlatCache(new PlatApiClient() {
+            @Override
+            public Map<Integer, PlatDTO> fetchPlats(Collection<Integer> listPlatId, Set<Integer> notFoundIds) {
+                throw new PlatApiUnavailableException("disjoncteur ouvert");
+            }
+        }, 10, 60000, 60000);
+
+        Set<Integer> unavailableIds = new HashSet<>();
+        Assert.assertTrue(downCache.getAll(Arrays.asList(1, 2), unavailableIds).isEmpty());
+        Assert.assertEquals(new HashSet<>(Arrays.asList(1, 2)), unavailableIds);
+    }
+}
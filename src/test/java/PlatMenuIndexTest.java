@@ -0,0 +1,103 @@
+import fr.univamu.iut.apimenus.PlatMenuIndex;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class PlatMenuIndexTest {
+
+    @Test
+    public void testLoadBuildsBothDirections() {
+        PlatMenuIndex index = new PlatMenuIndex();
+        Assert.assertFalse(index.isLoaded());
+
+        index.load(new int[]{1, 1, 1, 2}, new int[]{10, 11, 10, 10}, 4);
+
+        Assert.assertTrue(index.isLoaded());
+        Assert.assertArrayEquals(new int[]{10, 11, 10}, index.getPlatIds(1));
+        Assert.assertArrayEquals(new int[]{1, 2}, sorted(index.getMenuIds(10)));
+        Assert.assertArrayEquals(new int[]{1}, index.getMenuIds(11));
+        Assert.assertArrayEquals(new int[0], index.getPlatIds(3));
+    }
+
+    @Test
+    public void testRemovePlatRemovesEveryOccurrence() {
+        PlatMenuIndex index = new PlatMenuIndex();
+        index.load(new int[]{1, 1, 1}, new int[]{10, 11, 10}, 3);
+
+        index.removePlat(1, 10);
+
+        Assert.assertArrayEquals(new int[]{11}, index.getPlatIds(1));
+        Assert.assertArrayEquals(new int[0], index.getMenuIds(10));
+    }
+
+    @Test
+    public void testRemoveAndReplaceMenu() {
+        PlatMenuIndex index = new PlatMenuIndex();
+        index.load(new int[]{1, 2}, new int[]{10, 10}, 2);
+
+        index.removeMenu(1);
+        Assert.assertArrayEquals(new int[0], index.getPlatIds(1));
+        Assert.assertArrayEquals(new int[]{2}, index.getMenuIds(10));
+
+        index.replaceMenu(2, new int[]{12, 13});
+        Assert.assertArrayEquals(new int[]{12, 13}, index.getPlatIds(2));
+        Assert.assertArrayEquals(new int[0], index.getMenuIds(10));
+        Assert.assertArrayEquals(new int[]{2}, index.getMenuIds(13));
+    }
+
+    @Test
+    public void testManyMenusAgainstReferenceMaps() {
+        PlatMenuIndex index = new PlatMenuIndex();
+        index.load(new int[0], new int[0], 0);
+        Map<Integer, List<Integer>> platsByMenu = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int step = 0; step < 20000; ++step) {
+            int idMenu = 1 + random.nextInt(500);
+            int idPlat = 1 + random.nextInt(50);
+            switch (random.nextInt(4)) {
+                case 0:
+                    index.removePlat(idMenu, idPlat);
+                    if (platsByMenu.containsKey(idMenu)) {
+                        platsByMenu.get(idMenu).removeIf(id -> id == idPlat);
+                    }
+                    break;
+                case 1:
+                    index.removeMenu(idMenu);
+                    platsByMenu.remove(idMenu);
+                    break;
+                default:
+                    index.addPlats(idMenu, new int[]{idPlat});
+                    platsByMenu.computeIfAbsent(idMenu, id -> new ArrayList<>()).add(idPlat);
+                    break;
+            }
+        }
+
+        int nonEmpty = 0;
+        for (int idMenu = 1; idMenu <= 500; ++idMenu) {
+            List<Integer> expected = platsByMenu.getOrDefault(idMenu, Collections.emptyList());
+            Assert.assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), index.getPlatIds(idMenu));
+            if (!expected.isEmpty()) {
+                ++nonEmpty;
+            }
+        }
+        Assert.assertEquals(nonEmpty, index.getMenuCount());
+
+        for (int idPlat = 1; idPlat <= 50; ++idPlat) {
+            Set<Integer> expected = new TreeSet<>();
+            for (Map.Entry<Integer, List<Integer>> entry : platsByMenu.entrySet()) {
+                if (entry.getValue().contains(idPlat)) {
+                    expected.add(entry.getKey());
+                }
+            }
+            Assert.assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), sorted(index.getMenuIds(idPlat)));
+        }
+    }
+
+    private static int[] sorted(int[] ids) {
+        int[] copy = ids.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}
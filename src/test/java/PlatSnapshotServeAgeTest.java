@@ -0,0 +1,86 @@
+import fr.univamu.iut.apimenus.Menu;
+import fr.univamu.iut.apimenus.MenuRepositoryMariadb;
+import fr.univamu.iut.apimenus.PlatApiClient;
+import fr.univamu.iut.apimenus.PlatApiUnavailableException;
+import fr.univamu.iut.apimenus.PlatCache;
+import fr.univamu.iut.apimenus.dto.PlatDTO;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Timestamp;
+import java.util.*;
+
+public class PlatSnapshotServeAgeTest {
+
+    private static final Timestamp FRESH = new Timestamp(System.currentTimeMillis());
+    private static final Timestamp STALE = new Timestamp(System.currentTimeMillis() - 2 * 3600 * 1000);
+
+    @Test
+    public void testStaleCopyIsReplacedByLivePlat() {
+        Menu menu = attach(new PlatApiClient() {
+            @Override
+            public Map<Integer, PlatDTO> fetchPlats(Collection<Integer> listPlatId, Set<Integer> notFoundIds) {
+                Map<Integer, PlatDTO> platsById = new HashMap<>();
+                for (Integer idPlat : listPlatId) {
+                    platsById.put(idPlat, plat(idPlat, "api"));
+                }
+                return platsById;
+            }
+        });
+
+        Assert.assertEquals("api", menu.getListPlat().get(0).getName());
+        Assert.assertEquals("copie", menu.getListPlat().get(1).getName());
+        Assert.assertFalse(menu.isDegraded());
+        Assert.assertEquals(FRESH, menu.getPlatsSyncedAt());
+    }
+
+    @Test
+    public void testStaleCopyServedDegradedWhenApiIsDown() {
+        Menu menu = attach(new PlatApiClient() {
+            @Override
+            public Map<Integer, PlatDTO> fetchPlats(Collection<Integer> listPlatId, Set<Integer> notFoundIds) {
+                throw new PlatApiUnavailableException("disjoncteur ouvert");
+            }
+        });
+
+        Assert.assertEquals("copie", menu.getListPlat().get(0).getName());
+        Assert.assertTrue(menu.isDegraded());
+        Assert.assertEquals(STALE, menu.getPlatsSyncedAt());
+    }
+
+    /**
+     * Associe au menu 1 le plat 1 (copie trop ancienne) et le plat 2 (copie récente)
+     */
+    private Menu attach(PlatApiClient platApi) {
+        Menu menu = new Menu(1, "a", "Menu", "", 0, FRESH);
+        new TestRepository(new PlatCache(platApi, 10, 60000, 60000)).attach(menu);
+        return menu;
+    }
+
+    private static PlatDTO plat(int id, String name) {
+        PlatDTO platDTO = new PlatDTO();
+        platDTO.setId(id);
+        platDTO.setName(name);
+        return platDTO;
+    }
+
+    private static class TestRepository extends MenuRepositoryMariadb {
+
+        TestRepository(PlatCache platCache) {
+            super(null, null, platCache);
+        }
+
+        void attach(Menu menu) {
+            PlatSnapshots snapshots = new PlatSnapshots() {
+                {
+                    platsById.put(1, plat(1, "copie"));
+                    syncedAtById.put(1, STALE);
+                    staleIds.add(1);
+                    platsById.put(2, plat(2, "copie"));
+                    syncedAtById.put(2, FRESH);
+                }
+            };
+            attachPlats(Collections.singletonList(menu), Collections.singletonMap(1, Arrays.asList(1, 2)), snapshots);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+import fr.univamu.iut.apimenus.SingleFlight;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SingleFlightTest {
+
+    @Test
+    public void testConcurrentCallersShareOneLoad() throws Exception {
+        SingleFlight<Integer, String> flight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = executor.submit(() -> flight.execute(1, () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return "menu 1";
+            }));
+            loading.await();
+            Future<String> second = executor.submit(() -> flight.execute(1, () -> {
+                loads.incrementAndGet();
+                return "autre chargement";
+            }));
+            while (flight.getCoalesced() == 0) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            Assert.assertEquals("menu 1", first.get());
+            Assert.assertEquals("menu 1", second.get());
+            Assert.assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testErrorIsPropagatedAndNotKept() {
+        SingleFlight<Integer, String> flight = new SingleFlight<>();
+        try {
+            flight.execute(1, () -> {
+                throw new IllegalStateException("erreur sql");
+            });
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("erreur sql", e.getMessage());
+        }
+        Assert.assertEquals("menu 1", flight.execute(1, () -> "menu 1"));
+    }
+
+    @Test
+    public void testForgetStartsNewLoad() throws Exception {
+        SingleFlight<Integer, String> flight = new SingleFlight<>();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> before = executor.submit(() -> flight.execute(1, () -> {
+                loading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return "avant modification";
+            }));
+            loading.await();
+
+            // modification du menu pendant le chargement : l'appelant suivant ne doit pas recevoir l'ancien résultat
+            flight.forget(1);
+            Assert.assertEquals("après modification", flight.execute(1, () -> "après modification"));
+
+            release.countDown();
+            Assert.assertEquals("avant modification", before.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+import fr.univamu.iut.apimenus.TaskScope;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.*;
+
+public class TaskScopeTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testJoinWaitsForAllTasks() throws Exception {
+        try (TaskScope<Integer> scope = new TaskScope<>(executor)) {
+            Future<Integer> first = scope.fork(() -> 1);
+            Future<Integer> second = scope.fork(() -> {
+                Thread.sleep(50);
+                return 2;
+            });
+            scope.join();
+            Assert.assertEquals(1, (int) first.get());
+            Assert.assertEquals(2, (int) second.get());
+        }
+    }
+
+    @Test
+    public void testFailureCancelsOtherTasks() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        try (TaskScope<Integer> scope = new TaskScope<>(executor)) {
+            Future<Integer> slow = scope.fork(() -> {
+                started.countDown();
+                Thread.sleep(60000);
+                return 1;
+            });
+            started.await();
+            scope.fork(() -> {
+                throw new IllegalStateException("échec");
+            });
+            try {
+                scope.join();
+                Assert.fail();
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+            Assert.assertTrue(slow.isCancelled());
+        }
+    }
+
+    @Test
+    public void testDeadlineCancelsRemainingTasks() throws Exception {
+        try (TaskScope<Integer> scope = new TaskScope<>(executor)) {
+            Future<Integer> slow = scope.fork(() -> {
+                Thread.sleep(60000);
+                return 1;
+            });
+            try {
+                scope.joinUntil(System.currentTimeMillis() + 50);
+                Assert.fail();
+            } catch (TimeoutException e) {
+                Assert.assertTrue(slow.isCancelled());
+            }
+        }
+    }
+}